@@ -0,0 +1,67 @@
+package com.rulesengine.benchmark;
+
+import com.rulesengine.model.RuleResult;
+import com.rulesengine.output.Compression;
+import com.rulesengine.output.ResultFormat;
+import com.rulesengine.output.RuleResultWriter;
+import com.rulesengine.output.RuleResultWriterFactory;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Output generation as done by ResultAggregator (uncompressed) and ResultPublisher (compressed).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResultWriterBenchmark {
+
+    @Param({"10000"})
+    private int catalogSize;
+
+    @Param({"10"})
+    private int ruleCount;
+
+    @Param({"CSV", "PARQUET"})
+    private ResultFormat format;
+
+    @Param({"NONE", "GZIP"})
+    private Compression compression;
+
+    private List<RuleResult> results;
+    private RuleResultWriterFactory writerFactory;
+
+    @Setup
+    public void setUp() {
+        results = SyntheticData.results(catalogSize, ruleCount);
+        writerFactory = new RuleResultWriterFactory(format, compression, CompressionCodecName.SNAPPY);
+    }
+
+    @Benchmark
+    public int writeResults() throws IOException {
+        try (RuleResultWriter writer = writerFactory.open(OutputStream.nullOutputStream(), compression != Compression.NONE)) {
+            for (RuleResult result : results) {
+                writer.write(result);
+            }
+        }
+        return results.size();
+    }
+}
@@ -0,0 +1,88 @@
+package com.rulesengine.benchmark;
+
+import com.rulesengine.service.ProductTableReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full keyset read of a synthetic source table from an in-memory H2 database, including row mapping.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RowMappingBenchmark {
+
+    @Param({"10000"})
+    private int catalogSize;
+
+    @Param({"10", "50"})
+    private int attributeWidth;
+
+    @Param({"1000"})
+    private int batchSize;
+
+    private JdbcTemplate jdbcTemplate;
+    private ProductTableReader reader;
+
+    @Setup
+    public void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:rows;DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        reader = new ProductTableReader(jdbcTemplate);
+
+        StringBuilder ddl = new StringBuilder("CREATE TABLE products (rpc VARCHAR(32) PRIMARY KEY, client_id VARCHAR(32), "
+                + "retailer VARCHAR(32), brand VARCHAR(32), category VARCHAR(32), title VARCHAR(256)");
+        StringBuilder insert = new StringBuilder("INSERT INTO products VALUES (?, ?, ?, ?, ?, ?");
+        for (int a = 1; a < attributeWidth; a++) {
+            ddl.append(", attribute_").append(a).append(" VARCHAR(32)");
+            insert.append(", ?");
+        }
+        jdbcTemplate.execute(ddl.append(")").toString());
+
+        List<Object[]> rows = new ArrayList<>(catalogSize);
+        SyntheticData.products(catalogSize, attributeWidth).forEach(product -> {
+            Object[] row = new Object[5 + attributeWidth];
+            row[0] = product.getRpc();
+            row[1] = product.getClientId();
+            row[2] = product.getRetailer();
+            row[3] = product.getBrand();
+            row[4] = product.getCategory();
+            row[5] = product.getAttributes().get("title");
+            for (int a = 1; a < attributeWidth; a++) {
+                row[5 + a] = product.getAttributes().get("attribute_" + a);
+            }
+            rows.add(row);
+        });
+        jdbcTemplate.batchUpdate(insert.append(")").toString(), rows);
+    }
+
+    @TearDown
+    public void tearDown() {
+        jdbcTemplate.execute("DROP TABLE products");
+    }
+
+    @Benchmark
+    public long readTable(Blackhole blackhole) {
+        return reader.read("products", null, batchSize, blackhole::consume);
+    }
+}
@@ -0,0 +1,140 @@
+package com.rulesengine.benchmark;
+
+import com.rulesengine.metrics.PipelineMetrics;
+import com.rulesengine.model.Product;
+import com.rulesengine.model.RuleConfig;
+import com.rulesengine.model.RuleResult;
+import com.rulesengine.rule.BatchOutcome;
+import com.rulesengine.rule.ProductBatch;
+import com.rulesengine.rule.ResultFingerprintStore;
+import com.rulesengine.rule.Rule;
+import com.rulesengine.rule.RuleGuardRegistry;
+import com.rulesengine.rule.RuleParameters;
+import com.rulesengine.rule.RulePlan;
+import com.rulesengine.rule.TitleLengthRule;
+import com.rulesengine.service.ClientConfigService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.reflect.Field;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RuleEvaluationBenchmark {
+
+    private static final int BATCH_SIZE = 4096;
+
+    @Param({"10000"})
+    private int catalogSize;
+
+    @Param({"10", "100", "500"})
+    private int ruleCount;
+
+    @Param({"10", "50"})
+    private int attributeWidth;
+
+    private List<Product> products;
+    private List<Product> batch;
+    private TitleLengthRule titleLengthRule;
+    private RuleParameters titleLengthParameters;
+    private RulePlan plan;
+    private ResultFingerprintStore fingerprintStore;
+    private ClientConfigService clientConfigService;
+    private int cursor;
+
+    @Setup
+    public void setUp() throws ReflectiveOperationException {
+        products = SyntheticData.products(catalogSize, attributeWidth);
+        batch = products.subList(0, Math.min(BATCH_SIZE, products.size()));
+        List<Rule> rules = SyntheticData.rules(ruleCount);
+        List<RuleConfig> configs = SyntheticData.configs(rules);
+
+        titleLengthRule = new TitleLengthRule();
+        titleLengthParameters = new RuleParameters(Map.of("minLength", "20", "maxLength", "100"));
+        plan = RulePlan.compile(SyntheticData.CLIENT_ID, 0, rules, configs);
+        fingerprintStore = new ResultFingerprintStore(true, catalogSize * ruleCount, Long.MAX_VALUE);
+
+        PipelineMetrics metrics = new PipelineMetrics(new SimpleMeterRegistry());
+        RuleGuardRegistry ruleGuards = new RuleGuardRegistry(Executors.newCachedThreadPool(), metrics, 100, false, 4, 20, 30_000);
+        clientConfigService = new ClientConfigService(rules, SyntheticData.loader(configs), metrics, ruleGuards);
+        Field ttl = ClientConfigService.class.getDeclaredField("planTtlMs");
+        ttl.setAccessible(true);
+        ttl.setLong(clientConfigService, Long.MAX_VALUE);
+    }
+
+    private Product nextProduct() {
+        Product product = products.get(cursor);
+        cursor = cursor + 1 == products.size() ? 0 : cursor + 1;
+        return product;
+    }
+
+    @Benchmark
+    public RuleResult titleLengthApply() {
+        return titleLengthRule.apply(nextProduct(), titleLengthParameters);
+    }
+
+    // Per-product and columnar TitleLengthRule over the same batch; both report time per product
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void titleLengthApplyEach(Blackhole blackhole) {
+        for (Product product : batch) {
+            blackhole.consume(titleLengthRule.apply(product, titleLengthParameters));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    @Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+    public BatchOutcome titleLengthBatch() {
+        BatchOutcome outcome = new BatchOutcome(batch.size());
+        titleLengthRule.evaluate(new ProductBatch(batch), titleLengthParameters, outcome);
+        return outcome;
+    }
+
+    @Benchmark
+    public BitSet planApplicableRules() {
+        return plan.applicableRules(nextProduct());
+    }
+
+    @Benchmark
+    public List<RuleResult> planEvaluate() {
+        return plan.evaluate(nextProduct());
+    }
+
+    // Steady state of a daily re-run: every product was evaluated before and nothing changed
+    @Benchmark
+    public List<RuleResult> planEvaluateUnchanged() {
+        return plan.evaluate(nextProduct(), fingerprintStore);
+    }
+
+    @Benchmark
+    public List<Rule> enabledRules() {
+        return clientConfigService.getEnabledRules(SyntheticData.CLIENT_ID);
+    }
+
+    @Benchmark
+    public RulePlan compilePlan() {
+        return RulePlan.compile(SyntheticData.CLIENT_ID, 0, plan.getRules(), SyntheticData.configs(plan.getRules()));
+    }
+}
@@ -0,0 +1,112 @@
+package com.rulesengine.benchmark;
+
+import com.rulesengine.codec.ProductCodec;
+import com.rulesengine.codec.RuleResultCodec;
+import com.rulesengine.model.Product;
+import com.rulesengine.model.RuleResult;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Binary codec versus the JSON serde on rpc-for-processing (one product) and rule-results (one list per record).
+ * Bytes per record are printed at setup.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"10", "50"})
+    private int attributeWidth;
+
+    @Param({"10", "100"})
+    private int resultsPerRecord;
+
+    private final JsonSerializer<Object> jsonSerializer = new JsonSerializer<>();
+    private final JsonDeserializer<Object> jsonDeserializer = new JsonDeserializer<>();
+    private RecordHeaders productHeaders;
+    private RecordHeaders resultHeaders;
+
+    private Product product;
+    private List<RuleResult> results;
+    private byte[] productJson;
+    private byte[] productBinary;
+    private byte[] resultsJson;
+    private byte[] resultsBinary;
+
+    @Setup
+    public void setUp() {
+        jsonDeserializer.configure(Map.of(JsonDeserializer.TRUSTED_PACKAGES, "*"), false);
+        product = SyntheticData.products(1, attributeWidth).get(0);
+        results = SyntheticData.results(1, resultsPerRecord);
+
+        productHeaders = new RecordHeaders();
+        resultHeaders = new RecordHeaders();
+        productJson = jsonSerializer.serialize("rpc-for-processing", productHeaders, product);
+        productBinary = ProductCodec.encode(product);
+        resultsJson = jsonSerializer.serialize("rule-results", resultHeaders, results);
+        resultsBinary = RuleResultCodec.encode(results);
+
+        System.out.printf("%nproduct bytes/record: json=%d binary=%d; rule-results bytes/record: json=%d binary=%d%n",
+                productJson.length, productBinary.length, resultsJson.length, resultsBinary.length);
+    }
+
+    @Benchmark
+    public byte[] productJsonSerialize() {
+        return jsonSerializer.serialize("rpc-for-processing", new RecordHeaders(), product);
+    }
+
+    @Benchmark
+    public byte[] productBinarySerialize() {
+        return ProductCodec.encode(product);
+    }
+
+    @Benchmark
+    public Object productJsonDeserialize() {
+        return jsonDeserializer.deserialize("rpc-for-processing", productHeaders, productJson);
+    }
+
+    @Benchmark
+    public Product productBinaryDeserialize() {
+        return ProductCodec.decode(productBinary);
+    }
+
+    @Benchmark
+    public byte[] resultsJsonSerialize() {
+        return jsonSerializer.serialize("rule-results", new RecordHeaders(), results);
+    }
+
+    @Benchmark
+    public byte[] resultsBinarySerialize() {
+        return RuleResultCodec.encode(results);
+    }
+
+    @Benchmark
+    public Object resultsJsonDeserialize() {
+        return jsonDeserializer.deserialize("rule-results", resultHeaders, resultsJson);
+    }
+
+    @Benchmark
+    public List<RuleResult> resultsBinaryDeserialize() {
+        return RuleResultCodec.decode(resultsBinary);
+    }
+}
@@ -0,0 +1,146 @@
+package com.rulesengine.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rulesengine.model.Dimension;
+import com.rulesengine.model.Product;
+import com.rulesengine.model.RuleConfig;
+import com.rulesengine.model.RuleResult;
+import com.rulesengine.rule.Rule;
+import com.rulesengine.rule.RuleParameters;
+import com.rulesengine.rule.TitleLengthRule;
+import com.rulesengine.util.RuleConfigurationLoader;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Deterministic synthetic catalogs, rules and configs for the benchmarks.
+ */
+final class SyntheticData {
+
+    static final String CLIENT_ID = "client-0";
+    static final int STORES = 20;
+    static final int BRANDS = 200;
+    static final int CATEGORIES = 50;
+
+    private SyntheticData() {
+    }
+
+    static List<Product> products(int count, int attributeWidth) {
+        Random random = new Random(42);
+        List<Product> products = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Product product = new Product();
+            product.setMessageId("table_20240101");
+            product.setRpc(String.format("rpc-%09d", i));
+            product.setClientId(CLIENT_ID);
+            product.setRetailer("store-" + random.nextInt(STORES));
+            product.setBrand("brand-" + random.nextInt(BRANDS));
+            product.setCategory("category-" + random.nextInt(CATEGORIES));
+            Map<String, String> attributes = new HashMap<>();
+            attributes.put("title", "Product title " + "x".repeat(random.nextInt(120)));
+            for (int a = 1; a < attributeWidth; a++) {
+                attributes.put("attribute_" + a, "value-" + random.nextInt(100));
+            }
+            product.setAttributes(attributes);
+            products.add(product);
+        }
+        return products;
+    }
+
+    /**
+     * {@code count} distinct title-length rules; each restricts a few stores or brands and excludes a category.
+     */
+    static List<Rule> rules(int count) {
+        TitleLengthRule delegate = new TitleLengthRule();
+        List<Rule> rules = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String name = "TitleLengthRule" + i;
+            rules.add(new Rule() {
+                @Override
+                public RuleResult apply(Product product, RuleParameters parameters) {
+                    return delegate.apply(product, parameters);
+                }
+
+                @Override
+                public String getName() {
+                    return name;
+                }
+            });
+        }
+        return rules;
+    }
+
+    static List<RuleConfig> configs(List<Rule> rules) {
+        Random random = new Random(7);
+        List<RuleConfig> configs = new ArrayList<>(rules.size());
+        for (Rule rule : rules) {
+            RuleConfig config = new RuleConfig();
+            config.setRuleName(rule.getName());
+            Map<Dimension, List<String>> applicableTo = new HashMap<>();
+            if (random.nextBoolean()) {
+                applicableTo.put(Dimension.ONLINE_STORE, values("store-", STORES, 5, random));
+            } else {
+                applicableTo.put(Dimension.BRAND, values("brand-", BRANDS, 50, random));
+            }
+            config.setApplicableTo(applicableTo);
+            config.setExclusions(Map.of(Dimension.CATEGORY, values("category-", CATEGORIES, 2, random)));
+            config.setParameters(Map.of("minLength", "20", "maxLength", "100"));
+            configs.add(config);
+        }
+        return configs;
+    }
+
+    static List<RuleResult> results(int products, int rulesPerProduct) {
+        List<RuleResult> results = new ArrayList<>(products * rulesPerProduct);
+        for (int i = 0; i < products; i++) {
+            for (int r = 0; r < rulesPerProduct; r++) {
+                boolean passed = (i + r) % 3 != 0;
+                results.add(RuleResult.builder()
+                        .messageId("table_20240101")
+                        .reportDate("2024-01-01")
+                        .onlineStore("store-" + (i % STORES))
+                        .rpc(String.format("rpc-%09d", i))
+                        .customerId(CLIENT_ID)
+                        .ruleName("TitleLengthRule" + r)
+                        .rulePassed(passed)
+                        .ruleScore(passed ? 1.0 : 0.0)
+                        .errorMessage(passed ? "" : "Title length is not within the specified range")
+                        .build());
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Loader answering from in-memory configs instead of Redis.
+     */
+    static RuleConfigurationLoader loader(List<RuleConfig> configs) {
+        Map<String, RuleConfig> byName = new HashMap<>();
+        configs.forEach(config -> byName.put(config.getRuleName(), config));
+        List<String> enabled = configs.stream().map(RuleConfig::getRuleName).toList();
+        return new RuleConfigurationLoader(new RedisTemplate<>(), new ObjectMapper(), 1, 1) {
+            @Override
+            public RuleConfig loadConfig(String ruleName) {
+                return byName.get(ruleName);
+            }
+
+            @Override
+            public List<String> getEnabledRules(String clientId) {
+                return enabled;
+            }
+        };
+    }
+
+    private static List<String> values(String prefix, int cardinality, int count, Random random) {
+        List<String> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(prefix + random.nextInt(cardinality));
+        }
+        return values;
+    }
+}
@@ -0,0 +1,238 @@
+package com.rulesengine.loadtest;
+
+import com.rulesengine.store.ResultStore;
+import com.rulesengine.support.InMemoryS3;
+import com.rulesengine.warehouse.JdbcWarehouseLoader;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * End-to-end load run of new-rpc-tables -> rpc-for-processing -> rule-results -> S3 / warehouse with the
+ * real RPCProcessor, RuleEngine, ResultAggregator and ResultPublisher beans.
+ * <p>
+ * Kafka and Redis are embedded, S3 is {@link InMemoryS3} and the source tables live in H2. Point
+ * {@code spring.datasource.*} at the docker-compose Postgres to read them from there instead. Staged files
+ * are loaded by the JDBC warehouse loader into the same database, through {@link WarehouseStandIn}. Latency is measured from a table's announcement on
+ * new-rpc-tables to the first warehouse load of each of its rpcs.
+ * <p>
+ * Run with {@code mvn -Ploadtest test}; size the run with {@code -Dloadtest.tables},
+ * {@code -Dloadtest.products-per-table}, {@code -Dloadtest.attributes}, {@code -Dloadtest.declarative-rules}
+ * and {@code -Dloadtest.restricted-rule-fraction}.
+ */
+@Slf4j
+@Tag("load")
+@SpringBootTest
+@ActiveProfiles("loadtest")
+@EmbeddedKafka(partitions = 12, topics = {"new-rpc-tables", "rpc-for-processing", "processing-complete"})
+class PipelineLoadTest {
+
+    private static final int REDIS_PORT = freePort();
+    private static final RedisServer REDIS = startRedis(REDIS_PORT);
+
+    @Value("${loadtest.tables:4}")
+    private int tables;
+
+    @Value("${loadtest.products-per-table:25000}")
+    private int productsPerTable;
+
+    @Value("${loadtest.attributes:20}")
+    private int attributes;
+
+    @Value("${loadtest.declarative-rules:10}")
+    private int declarativeRules;
+
+    @Value("${loadtest.restricted-rule-fraction:0.5}")
+    private double restrictedRuleFraction;
+
+    @Value("${loadtest.table-interval-ms:1000}")
+    private long tableIntervalMs;
+
+    @Value("${loadtest.timeout-seconds:900}")
+    private long timeoutSeconds;
+
+    @Autowired
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private WarehouseStandIn warehouse;
+
+    @Autowired
+    private ResultStore resultStore;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @TestConfiguration
+    static class LocalStandIns {
+
+        @Bean
+        @Primary
+        InMemoryS3 localS3() {
+            return new InMemoryS3();
+        }
+
+        @Bean
+        @Primary
+        WarehouseStandIn warehouse(JdbcWarehouseLoader jdbcWarehouseLoader, JdbcTemplate jdbcTemplate, InMemoryS3 localS3,
+                                   @Value("${s3.bucket.name}") String bucket,
+                                   @Value("${snowflake.table.name}") String table) {
+            return new WarehouseStandIn(jdbcWarehouseLoader, jdbcTemplate, localS3, bucket, table);
+        }
+    }
+
+    @DynamicPropertySource
+    static void redisProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.data.redis.host", () -> "localhost");
+        registry.add("spring.data.redis.port", () -> REDIS_PORT);
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        REDIS.stop();
+    }
+
+    @Test
+    void pipelineThroughputAndLatency() throws Exception {
+        Random random = new Random(42);
+        List<String> tableNames = new ArrayList<>();
+        for (int t = 0; t < tables; t++) {
+            tableNames.add(SyntheticTables.tableName(t));
+            SyntheticTables.create(jdbcTemplate, tableNames.get(t), productsPerTable, attributes, random);
+        }
+        List<String> rules = SyntheticTables.configureRules(redisTemplate, declarativeRules, restrictedRuleFraction, random);
+        long totalProducts = (long) tables * productsPerTable;
+        log.info("Generated {} tables of {} products with {} rules", tables, productsPerTable, rules.size());
+
+        Map<String, Long> announcedAt = new ConcurrentHashMap<>();
+        Set<String> completed = new HashSet<>();
+        try (StageSampler sampler = new StageSampler(50)
+                .stage("ingest", () -> (long) registry.counter("rpc.ingest.rows").count())
+                .stage("evaluate", this::resultsProduced)
+                .stage("aggregate", () -> tableNames.stream().mapToLong(resultStore::size).sum() + messagesCompleted())
+                .stage("publish", warehouse::getRows)) {
+            sampler.start();
+            long start = System.nanoTime();
+            for (String tableName : tableNames) {
+                announcedAt.put(tableName, System.nanoTime());
+                kafkaTemplate.send("new-rpc-tables", tableName, tableName).join();
+                Thread.sleep(tableIntervalMs);
+            }
+
+            // A table is complete once all of its rpcs reached the warehouse; the aggregator then writes its file
+            await(() -> {
+                for (String tableName : tableNames) {
+                    if (!completed.contains(tableName) && warehouse.arrived(tableName) == productsPerTable) {
+                        kafkaTemplate.send("processing-complete", tableName, tableName);
+                        completed.add(tableName);
+                    }
+                }
+                return completed.size() == tables;
+            });
+            long elapsed = System.nanoTime() - start;
+            await(() -> messagesCompleted() >= tables);
+
+            long[] latencies = warehouse.getArrivals().entrySet().stream()
+                    .mapToLong(arrival -> arrival.getValue() - announcedAt.get(SyntheticTables.tableOf(arrival.getKey())))
+                    .sorted()
+                    .toArray();
+            log.info("Products: {}, rules: {}, results loaded: {}, elapsed: {} ms, throughput: {} products/s",
+                    totalProducts, rules.size(), warehouse.getRows(), TimeUnit.NANOSECONDS.toMillis(elapsed),
+                    String.format("%.0f", totalProducts / (elapsed / 1e9)));
+            log.info("End-to-end latency ms: p50={} p95={} p99={} max={}", percentile(latencies, 0.50),
+                    percentile(latencies, 0.95), percentile(latencies, 0.99), percentile(latencies, 1.0));
+            sampler.report().forEach(log::info);
+            assertEquals(totalProducts, latencies.length);
+            assertTrue(messagesCompleted() >= tables);
+        } finally {
+            for (String tableName : tableNames) {
+                Files.deleteIfExists(Path.of("rule_results_" + tableName + ".csv"));
+            }
+        }
+    }
+
+    private long resultsProduced() {
+        return (long) registry.find("rules.results").counters().stream().mapToDouble(Counter::count).sum();
+    }
+
+    private long messagesCompleted() {
+        return registry.summary("results.aggregator.message.heap.bytes").count();
+    }
+
+    private void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeoutSeconds);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("Load run did not finish within " + timeoutSeconds + " s");
+            }
+            Thread.sleep(200);
+        }
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return TimeUnit.NANOSECONDS.toMillis(sorted[Math.max(0, index)]);
+    }
+
+    private static int freePort() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static RedisServer startRedis(int port) {
+        try {
+            RedisServer server = new RedisServer(port);
+            server.start();
+            return server;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.rulesengine.loadtest;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Samples used heap at a fixed interval and attributes each sample to the stages whose progress counter
+ * moved since the previous sample. All stages share one JVM, so a stage's peak is the highest heap seen
+ * while it was active rather than the heap it allocated itself.
+ */
+class StageSampler implements AutoCloseable {
+
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    private final Map<String, StageStats> stages = new LinkedHashMap<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "load-stage-sampler");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final long intervalMs;
+
+    StageSampler(long intervalMs) {
+        this.intervalMs = intervalMs;
+    }
+
+    StageSampler stage(String name, LongSupplier progress) {
+        stages.put(name, new StageStats(progress));
+        return this;
+    }
+
+    void start() {
+        scheduler.scheduleAtFixedRate(this::sample, 0, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void sample() {
+        long heap = memory.getHeapMemoryUsage().getUsed();
+        long now = System.nanoTime();
+        for (StageStats stats : stages.values()) {
+            stats.sample(heap, now);
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    synchronized List<String> report() {
+        List<String> lines = new ArrayList<>();
+        lines.add(String.format("%-12s %12s %12s %14s", "stage", "progress", "active ms", "peak heap MB"));
+        stages.forEach((name, stats) -> lines.add(String.format("%-12s %12d %12d %14.1f", name, stats.lastProgress,
+                stats.firstActive < 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(stats.lastActive - stats.firstActive),
+                stats.peakHeapBytes / (1024.0 * 1024.0))));
+        return lines;
+    }
+
+    private static final class StageStats {
+
+        private final LongSupplier progress;
+        private long lastProgress;
+        private long firstActive = -1;
+        private long lastActive;
+        private long peakHeapBytes;
+
+        StageStats(LongSupplier progress) {
+            this.progress = progress;
+        }
+
+        void sample(long heap, long now) {
+            long current = progress.getAsLong();
+            if (current != lastProgress) {
+                lastProgress = current;
+                if (firstActive < 0) {
+                    firstActive = now;
+                }
+                lastActive = now;
+                peakHeapBytes = Math.max(peakHeapBytes, heap);
+            }
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.rulesengine.loadtest;
+
+import com.rulesengine.model.Dimension;
+import com.rulesengine.model.RuleConfig;
+import com.rulesengine.util.RuleConfigurationLoader;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Synthetic source tables and rule mixes for the load harness. Every product gets at least the
+ * unrestricted TitleLengthRule, so every rpc reaches the warehouse.
+ */
+final class SyntheticTables {
+
+    static final String CLIENT_ID = "load-client";
+    static final int STORES = 20;
+    static final int BRANDS = 200;
+    static final int CATEGORIES = 50;
+
+    private static final int INSERT_BATCH = 1000;
+
+    private SyntheticTables() {
+    }
+
+    static String tableName(int table) {
+        return "load_products_" + table;
+    }
+
+    // The rpc carries its table so warehouse arrivals can be matched to the table's announcement
+    static String rpc(String tableName, int row) {
+        return tableName + "-" + String.format("%09d", row);
+    }
+
+    static String tableOf(String rpc) {
+        return rpc.substring(0, rpc.lastIndexOf('-'));
+    }
+
+    static void create(JdbcTemplate jdbcTemplate, String tableName, int products, int attributeWidth, Random random) {
+        StringBuilder ddl = new StringBuilder("CREATE TABLE " + tableName + " (rpc VARCHAR(64) PRIMARY KEY, "
+                + "client_id VARCHAR(32), retailer VARCHAR(32), brand VARCHAR(32), category VARCHAR(32), title VARCHAR(256)");
+        StringBuilder insert = new StringBuilder("INSERT INTO " + tableName + " VALUES (?, ?, ?, ?, ?, ?");
+        for (int a = 1; a < attributeWidth; a++) {
+            ddl.append(", attribute_").append(a).append(" VARCHAR(32)");
+            insert.append(", ?");
+        }
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + tableName);
+        jdbcTemplate.execute(ddl.append(")").toString());
+
+        String sql = insert.append(")").toString();
+        List<Object[]> rows = new ArrayList<>(INSERT_BATCH);
+        for (int i = 0; i < products; i++) {
+            Object[] row = new Object[5 + attributeWidth];
+            row[0] = rpc(tableName, i);
+            row[1] = CLIENT_ID;
+            row[2] = "store-" + random.nextInt(STORES);
+            row[3] = "brand-" + random.nextInt(BRANDS);
+            row[4] = "category-" + random.nextInt(CATEGORIES);
+            row[5] = "Product title " + "x".repeat(random.nextInt(120));
+            for (int a = 1; a < attributeWidth; a++) {
+                row[5 + a] = "value-" + random.nextInt(100);
+            }
+            rows.add(row);
+            if (rows.size() == INSERT_BATCH || i == products - 1) {
+                jdbcTemplate.batchUpdate(sql, rows);
+                rows.clear();
+            }
+        }
+    }
+
+    /**
+     * Enables TitleLengthRule plus {@code declarativeRules} declarative rules for the load client, a
+     * {@code restrictedFraction} of which only apply to a few stores.
+     */
+    static List<String> configureRules(RedisTemplate<String, Object> redisTemplate, int declarativeRules,
+                                       double restrictedFraction, Random random) {
+        List<String> enabled = new ArrayList<>();
+        RuleConfig titleLength = new RuleConfig();
+        titleLength.setRuleName("TitleLengthRule");
+        titleLength.setParameters(Map.of("minLength", "20", "maxLength", "100"));
+        save(redisTemplate, titleLength, enabled);
+
+        for (int i = 0; i < declarativeRules; i++) {
+            RuleConfig config = new RuleConfig();
+            config.setRuleName("LoadRule" + i);
+            Map<String, String> parameters = new HashMap<>();
+            parameters.put("type", "declarative");
+            parameters.put("title.length", (10 + random.nextInt(20)) + ".." + (80 + random.nextInt(60)));
+            switch (i % 3) {
+                case 0 -> parameters.put("brand.notIn", values("brand-", BRANDS, 20, random));
+                case 1 -> parameters.put("attribute_1.matches", "value-[0-" + random.nextInt(10) + "]\\d?");
+                default -> parameters.put("category.in", values("category-", CATEGORIES, 40, random));
+            }
+            config.setParameters(parameters);
+            if (random.nextDouble() < restrictedFraction) {
+                config.setApplicableTo(Map.of(Dimension.ONLINE_STORE,
+                        List.of(values("store-", STORES, 5, random).split(","))));
+            }
+            save(redisTemplate, config, enabled);
+        }
+        redisTemplate.opsForValue().set(RuleConfigurationLoader.ENABLED_RULES_PREFIX + CLIENT_ID, enabled);
+        return enabled;
+    }
+
+    private static void save(RedisTemplate<String, Object> redisTemplate, RuleConfig config, List<String> enabled) {
+        redisTemplate.opsForValue().set(RuleConfigurationLoader.RULE_CONFIG_PREFIX + config.getRuleName(), config);
+        enabled.add(config.getRuleName());
+    }
+
+    private static String values(String prefix, int cardinality, int count, Random random) {
+        List<String> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(prefix + random.nextInt(cardinality));
+        }
+        return String.join(",", values);
+    }
+}
@@ -0,0 +1,90 @@
+package com.rulesengine.loadtest;
+
+import com.rulesengine.output.RuleResultColumn;
+import com.rulesengine.support.InMemoryS3;
+import com.rulesengine.warehouse.StagedFile;
+import com.rulesengine.warehouse.WarehouseLoader;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Warehouse stand-in: loads the staged files into the local database with the JDBC loader, then reads
+ * them back from the local S3 to record when each rpc first arrived.
+ */
+class WarehouseStandIn implements WarehouseLoader {
+
+    private final WarehouseLoader delegate;
+    private final InMemoryS3 s3;
+    private final String bucket;
+    private final Map<String, Long> arrivals = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> arrivalsByTable = new ConcurrentHashMap<>();
+    private final AtomicLong rows = new AtomicLong();
+
+    WarehouseStandIn(WarehouseLoader delegate, JdbcTemplate jdbcTemplate, InMemoryS3 s3, String bucket, String table) {
+        this.delegate = delegate;
+        this.s3 = s3;
+        this.bucket = bucket;
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + table + " (report_date VARCHAR(10), online_store VARCHAR(255), "
+                + "rpc VARCHAR(255), customer_id VARCHAR(255), rule_name VARCHAR(255), rule_pass BOOLEAN, "
+                + "rule_score DOUBLE PRECISION, error_message VARCHAR(1024))");
+    }
+
+    @Override
+    public void load(List<StagedFile> files) {
+        delegate.load(files);
+        long now = System.nanoTime();
+        for (StagedFile file : files) {
+            recordArrivals(file.s3Key(), now);
+        }
+    }
+
+    private void recordArrivals(String key, long now) {
+        byte[] bytes = s3.getBytes(bucket, key);
+        if (bytes == null) {
+            throw new IllegalStateException("Staged file not found: s3://" + bucket + "/" + key);
+        }
+        try (InputStream in = key.endsWith(".gz")
+                ? new GZIPInputStream(new ByteArrayInputStream(bytes))
+                : new ByteArrayInputStream(bytes);
+             CSVParser parser = CSVFormat.DEFAULT.withFirstRecordAsHeader()
+                     .parse(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            for (CSVRecord record : parser) {
+                String rpc = record.get(RuleResultColumn.RPC.getHeader());
+                if (arrivals.putIfAbsent(rpc, now) == null) {
+                    arrivalsByTable.computeIfAbsent(SyntheticTables.tableOf(rpc), t -> new AtomicLong()).incrementAndGet();
+                }
+                rows.incrementAndGet();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error reading staged file " + key, e);
+        }
+    }
+
+    // System.nanoTime() of the first load that merged a result for each rpc
+    Map<String, Long> getArrivals() {
+        return arrivals;
+    }
+
+    long arrived(String tableName) {
+        AtomicLong arrived = arrivalsByTable.get(tableName);
+        return arrived == null ? 0 : arrived.get();
+    }
+
+    long getRows() {
+        return rows.get();
+    }
+}
@@ -0,0 +1,64 @@
+package com.rulesengine.codec;
+
+import com.rulesengine.util.BinaryReader;
+import com.rulesengine.util.BinaryWriter;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Framing shared by the binary codecs: a magic byte, a payload type and a schema version, followed by the payload.
+ * <p>
+ * The magic byte is not valid as the first byte of UTF-8 JSON, so readers can tell binary and JSON records apart.
+ */
+public final class BinaryCodec {
+
+    public static final int MAGIC = 0xB7;
+    public static final int TYPE_PRODUCT = 1;
+    public static final int TYPE_RULE_RESULTS = 2;
+    public static final int TYPE_PRODUCT_RESULTS = 3;
+    public static final int VERSION = 1;
+
+    private BinaryCodec() {
+    }
+
+    public static boolean isBinary(byte[] data) {
+        return data != null && data.length >= 3 && (data[0] & 0xFF) == MAGIC;
+    }
+
+    static void writeHeader(BinaryWriter writer, int type) {
+        writer.writeByte(MAGIC);
+        writer.writeByte(type);
+        writer.writeByte(VERSION);
+    }
+
+    static int readHeader(BinaryReader reader) {
+        if (reader.readByte() != MAGIC) {
+            throw new IllegalArgumentException("Not a binary record");
+        }
+        int type = reader.readByte();
+        int version = reader.readByte();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported binary record version " + version);
+        }
+        return type;
+    }
+
+    // Nullable strings: 0 = null, otherwise length + 1 followed by UTF-8 bytes
+    static void writeNullable(BinaryWriter writer, String value) {
+        if (value == null) {
+            writer.writeVarInt(0);
+            return;
+        }
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        writer.writeVarInt(utf8.length + 1);
+        writer.writeBytes(utf8, 0, utf8.length);
+    }
+
+    static String readNullable(BinaryReader reader) {
+        int length = reader.readVarInt();
+        if (length == 0) {
+            return null;
+        }
+        return reader.readUtf8(length - 1);
+    }
+}
@@ -0,0 +1,53 @@
+package com.rulesengine.codec;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Attribute keys shared by producer and consumer.
+ * <p>
+ * Well-known keys are written as their position in {@link #WELL_KNOWN_KEYS}; the list is part of the wire
+ * format, so keys may only ever be appended. Other keys are written inline and interned on read so every
+ * decoded product shares the same key instances.
+ */
+final class KeyDictionary {
+
+    static final List<String> WELL_KNOWN_KEYS = List.of(
+            "title", "description", "manufacturer", "subcategory", "segment", "price", "currency",
+            "image_url", "url", "availability", "rating", "review_count", "gtin", "mpn", "size", "color");
+
+    private static final Map<String, Integer> IDS = new HashMap<>();
+    private static final int MAX_INTERNED = 10_000;
+    private static final ConcurrentHashMap<String, String> INTERNED = new ConcurrentHashMap<>();
+
+    static {
+        for (int i = 0; i < WELL_KNOWN_KEYS.size(); i++) {
+            IDS.put(WELL_KNOWN_KEYS.get(i), i);
+        }
+    }
+
+    private KeyDictionary() {
+    }
+
+    static int idOf(String key) {
+        return IDS.getOrDefault(key, -1);
+    }
+
+    static String keyOf(int id) {
+        return WELL_KNOWN_KEYS.get(id);
+    }
+
+    static String intern(String key) {
+        String interned = INTERNED.get(key);
+        if (interned != null) {
+            return interned;
+        }
+        if (INTERNED.size() >= MAX_INTERNED) {
+            return key;
+        }
+        interned = INTERNED.putIfAbsent(key, key);
+        return interned != null ? interned : key;
+    }
+}
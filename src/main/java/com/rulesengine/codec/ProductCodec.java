@@ -0,0 +1,77 @@
+package com.rulesengine.codec;
+
+import com.rulesengine.model.Product;
+import com.rulesengine.model.TableSchema;
+import com.rulesengine.util.BinaryReader;
+import com.rulesengine.util.BinaryWriter;
+
+/**
+ * Binary encoding of a {@link Product}: nullable strings for the fixed fields, then the attribute count
+ * and each key as a dictionary id (0 = inline key, n = well-known key n - 1) followed by its value.
+ * Attributes are written in schema slot order.
+ */
+public final class ProductCodec {
+
+    private ProductCodec() {
+    }
+
+    public static byte[] encode(Product product) {
+        BinaryWriter writer = new BinaryWriter(256);
+        BinaryCodec.writeHeader(writer, BinaryCodec.TYPE_PRODUCT);
+        BinaryCodec.writeNullable(writer, product.getMessageId());
+        BinaryCodec.writeNullable(writer, product.getRpc());
+        BinaryCodec.writeNullable(writer, product.getClientId());
+        BinaryCodec.writeNullable(writer, product.getRetailer());
+        BinaryCodec.writeNullable(writer, product.getBrand());
+        BinaryCodec.writeNullable(writer, product.getCategory());
+
+        TableSchema schema = product.getSchema();
+        if (schema == null) {
+            writer.writeVarInt(0);
+            return writer.toByteArray();
+        }
+        String[] values = product.getAttributeValues();
+        writer.writeVarInt(values.length + 1);
+        for (int i = 0; i < values.length; i++) {
+            String key = schema.attributeName(i);
+            int id = KeyDictionary.idOf(key);
+            if (id < 0) {
+                writer.writeVarInt(0);
+                writer.writeString(key);
+            } else {
+                writer.writeVarInt(id + 1);
+            }
+            BinaryCodec.writeNullable(writer, values[i]);
+        }
+        return writer.toByteArray();
+    }
+
+    public static Product decode(byte[] data) {
+        BinaryReader reader = new BinaryReader(data);
+        int type = BinaryCodec.readHeader(reader);
+        if (type != BinaryCodec.TYPE_PRODUCT) {
+            throw new IllegalArgumentException("Expected a product record but got type " + type);
+        }
+        Product product = new Product();
+        product.setMessageId(BinaryCodec.readNullable(reader));
+        product.setRpc(BinaryCodec.readNullable(reader));
+        product.setClientId(BinaryCodec.readNullable(reader));
+        product.setRetailer(BinaryCodec.readNullable(reader));
+        product.setBrand(BinaryCodec.readNullable(reader));
+        product.setCategory(BinaryCodec.readNullable(reader));
+
+        int count = reader.readVarInt();
+        if (count > 0) {
+            // Names are kept in wire order, so products of one table resolve to the same interned schema
+            String[] names = new String[count - 1];
+            String[] values = new String[count - 1];
+            for (int i = 0; i < names.length; i++) {
+                int id = reader.readVarInt();
+                names[i] = id == 0 ? KeyDictionary.intern(reader.readString()) : KeyDictionary.keyOf(id - 1);
+                values[i] = BinaryCodec.readNullable(reader);
+            }
+            product.setAttributes(TableSchema.of(names), values);
+        }
+        return product;
+    }
+}
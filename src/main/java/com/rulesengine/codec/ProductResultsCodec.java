@@ -0,0 +1,114 @@
+package com.rulesengine.codec;
+
+import com.rulesengine.model.ProductResult;
+import com.rulesengine.model.ProductResults;
+import com.rulesengine.util.BinaryReader;
+import com.rulesengine.util.BinaryWriter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary encoding of a {@link ProductResults} record. The report date, store and customer of each product
+ * go through the same record-local string table as {@link RuleResultCodec}; bitmaps are written as
+ * varlong words and the score and error code counts follow from the evaluated bitmap.
+ */
+public final class ProductResultsCodec {
+
+    private ProductResultsCodec() {
+    }
+
+    public static byte[] encode(ProductResults results) {
+        BinaryWriter writer = new BinaryWriter(64 + results.getProducts().size() * 32);
+        BinaryCodec.writeHeader(writer, BinaryCodec.TYPE_PRODUCT_RESULTS);
+        BinaryCodec.writeNullable(writer, results.getMessageId());
+        writeStrings(writer, results.getRuleNames());
+        writeStrings(writer, results.getErrorMessages());
+        writer.writeVarInt(results.getProducts().size());
+        Map<String, Integer> table = new HashMap<>();
+        for (ProductResult product : results.getProducts()) {
+            RuleResultCodec.writeString(writer, table, product.getReportDate());
+            RuleResultCodec.writeString(writer, table, product.getOnlineStore());
+            BinaryCodec.writeNullable(writer, product.getRpc());
+            RuleResultCodec.writeString(writer, table, product.getCustomerId());
+            writeWords(writer, product.getEvaluated());
+            writeWords(writer, product.getPassed());
+            for (int slot = 0; slot < product.getScores().length; slot++) {
+                writer.writeDouble(product.getScores()[slot]);
+                writer.writeVarInt(product.getErrorCodes()[slot]);
+            }
+        }
+        return writer.toByteArray();
+    }
+
+    public static ProductResults decode(byte[] data) {
+        BinaryReader reader = new BinaryReader(data);
+        int type = BinaryCodec.readHeader(reader);
+        if (type != BinaryCodec.TYPE_PRODUCT_RESULTS) {
+            throw new IllegalArgumentException("Expected a product results record but got type " + type);
+        }
+        String messageId = BinaryCodec.readNullable(reader);
+        List<String> ruleNames = readStrings(reader);
+        List<String> errorMessages = readStrings(reader);
+        int count = reader.readVarInt();
+        List<ProductResult> products = new ArrayList<>(count);
+        List<String> table = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ProductResult product = ProductResult.builder()
+                    .reportDate(RuleResultCodec.readString(reader, table))
+                    .onlineStore(RuleResultCodec.readString(reader, table))
+                    .rpc(BinaryCodec.readNullable(reader))
+                    .customerId(RuleResultCodec.readString(reader, table))
+                    .evaluated(readWords(reader))
+                    .passed(readWords(reader))
+                    .build();
+            int evaluated = 0;
+            for (long word : product.getEvaluated()) {
+                evaluated += Long.bitCount(word);
+            }
+            double[] scores = new double[evaluated];
+            int[] errorCodes = new int[evaluated];
+            for (int slot = 0; slot < evaluated; slot++) {
+                scores[slot] = reader.readDouble();
+                errorCodes[slot] = reader.readVarInt();
+            }
+            product.setScores(scores);
+            product.setErrorCodes(errorCodes);
+            products.add(product);
+        }
+        return new ProductResults(messageId, ruleNames, errorMessages, products);
+    }
+
+    private static void writeStrings(BinaryWriter writer, List<String> values) {
+        writer.writeVarInt(values.size());
+        for (String value : values) {
+            BinaryCodec.writeNullable(writer, value);
+        }
+    }
+
+    private static List<String> readStrings(BinaryReader reader) {
+        int count = reader.readVarInt();
+        List<String> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(BinaryCodec.readNullable(reader));
+        }
+        return values;
+    }
+
+    private static void writeWords(BinaryWriter writer, long[] words) {
+        writer.writeVarInt(words.length);
+        for (long word : words) {
+            writer.writeVarLong(word);
+        }
+    }
+
+    private static long[] readWords(BinaryReader reader) {
+        long[] words = new long[reader.readVarInt()];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = reader.readVarLong();
+        }
+        return words;
+    }
+}
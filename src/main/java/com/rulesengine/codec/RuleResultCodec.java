@@ -0,0 +1,99 @@
+package com.rulesengine.codec;
+
+import com.rulesengine.model.RuleResult;
+import com.rulesengine.util.BinaryReader;
+import com.rulesengine.util.BinaryWriter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary encoding of a list of {@link RuleResult}s.
+ * <p>
+ * Strings go through a table local to the record: the first occurrence is written inline and later
+ * ones as a reference, so the messageId, report date, store, customer, rpc and rule name repeated across
+ * the results of a record are sent once. Tags: 0 = null, 1 = new string, n = table entry n - 2.
+ */
+public final class RuleResultCodec {
+
+    private static final int NULL = 0;
+    private static final int NEW = 1;
+    private static final int REFERENCE_OFFSET = 2;
+
+    private RuleResultCodec() {
+    }
+
+    public static byte[] encode(List<RuleResult> results) {
+        BinaryWriter writer = new BinaryWriter(64 + results.size() * 24);
+        BinaryCodec.writeHeader(writer, BinaryCodec.TYPE_RULE_RESULTS);
+        writer.writeVarInt(results.size());
+        Map<String, Integer> table = new HashMap<>();
+        for (RuleResult result : results) {
+            writeString(writer, table, result.getMessageId());
+            writeString(writer, table, result.getReportDate());
+            writeString(writer, table, result.getOnlineStore());
+            writeString(writer, table, result.getRpc());
+            writeString(writer, table, result.getCustomerId());
+            writeString(writer, table, result.getRuleName());
+            writer.writeByte(result.isRulePassed() ? 1 : 0);
+            writer.writeDouble(result.getRuleScore());
+            writeString(writer, table, result.getErrorMessage());
+        }
+        return writer.toByteArray();
+    }
+
+    public static List<RuleResult> decode(byte[] data) {
+        BinaryReader reader = new BinaryReader(data);
+        int type = BinaryCodec.readHeader(reader);
+        if (type != BinaryCodec.TYPE_RULE_RESULTS) {
+            throw new IllegalArgumentException("Expected a rule results record but got type " + type);
+        }
+        int count = reader.readVarInt();
+        List<RuleResult> results = new ArrayList<>(count);
+        List<String> table = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            results.add(RuleResult.builder()
+                    .messageId(readString(reader, table))
+                    .reportDate(readString(reader, table))
+                    .onlineStore(readString(reader, table))
+                    .rpc(readString(reader, table))
+                    .customerId(readString(reader, table))
+                    .ruleName(readString(reader, table))
+                    .rulePassed(reader.readByte() == 1)
+                    .ruleScore(reader.readDouble())
+                    .errorMessage(readString(reader, table))
+                    .build());
+        }
+        return results;
+    }
+
+    static void writeString(BinaryWriter writer, Map<String, Integer> table, String value) {
+        if (value == null) {
+            writer.writeVarInt(NULL);
+            return;
+        }
+        Integer id = table.get(value);
+        if (id != null) {
+            writer.writeVarInt(id + REFERENCE_OFFSET);
+            return;
+        }
+        table.put(value, table.size());
+        writer.writeVarInt(NEW);
+        writer.writeString(value);
+    }
+
+    static String readString(BinaryReader reader, List<String> table) {
+        int tag = reader.readVarInt();
+        if (tag == NULL) {
+            return null;
+        }
+        if (tag == NEW) {
+            String value = reader.readString();
+            table.add(value);
+            return value;
+        }
+        return table.get(tag - REFERENCE_OFFSET);
+    }
+}
@@ -0,0 +1,46 @@
+package com.rulesengine.codec;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import java.util.Map;
+
+/**
+ * Value deserializer that accepts both binary and JSON records on every topic, so producers can be
+ * switched topic by topic during a rolling upgrade.
+ */
+public class TopicCodecDeserializer implements Deserializer<Object> {
+
+    private final JsonDeserializer<Object> jsonDeserializer = new JsonDeserializer<>();
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        jsonDeserializer.configure(configs, isKey);
+    }
+
+    @Override
+    public Object deserialize(String topic, byte[] data) {
+        return deserialize(topic, null, data);
+    }
+
+    @Override
+    public Object deserialize(String topic, Headers headers, byte[] data) {
+        if (!BinaryCodec.isBinary(data)) {
+            return headers == null ? jsonDeserializer.deserialize(topic, data) : jsonDeserializer.deserialize(topic, headers, data);
+        }
+        int type = data[1] & 0xFF;
+        return switch (type) {
+            case BinaryCodec.TYPE_PRODUCT -> ProductCodec.decode(data);
+            case BinaryCodec.TYPE_RULE_RESULTS -> RuleResultCodec.decode(data);
+            case BinaryCodec.TYPE_PRODUCT_RESULTS -> ProductResultsCodec.decode(data);
+            default -> throw new SerializationException("Unknown binary record type " + type + " on topic " + topic);
+        };
+    }
+
+    @Override
+    public void close() {
+        jsonDeserializer.close();
+    }
+}
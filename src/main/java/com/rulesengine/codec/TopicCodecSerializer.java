@@ -0,0 +1,89 @@
+package com.rulesengine.codec;
+
+import com.rulesengine.model.Product;
+import com.rulesengine.model.ProductResults;
+import com.rulesengine.model.RuleResult;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Serializer;
+import org.springframework.kafka.support.mapping.AbstractJavaTypeMapper;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Value serializer that writes the binary codec on the topics listed in {@link #BINARY_TOPICS_CONFIG}
+ * and JSON everywhere else. Payloads without a binary encoding are always written as JSON.
+ * <p>
+ * JSON lists of rule results name {@link RuleResult} as their content type header; the list's runtime
+ * class alone would type its elements as {@code Object}, and consumers would read them back as maps.
+ */
+public class TopicCodecSerializer implements Serializer<Object> {
+
+    public static final String BINARY_TOPICS_CONFIG = "rules.codec.binary-topics";
+
+    private final JsonSerializer<Object> jsonSerializer = new JsonSerializer<>();
+    private Set<String> binaryTopics = Set.of();
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        jsonSerializer.configure(configs, isKey);
+        binaryTopics = parseTopics(configs.get(BINARY_TOPICS_CONFIG));
+    }
+
+    @Override
+    public byte[] serialize(String topic, Object data) {
+        return serialize(topic, null, data);
+    }
+
+    @Override
+    public byte[] serialize(String topic, Headers headers, Object data) {
+        if (data != null && binaryTopics.contains(topic)) {
+            if (data instanceof Product product) {
+                return ProductCodec.encode(product);
+            }
+            if (data instanceof ProductResults results) {
+                return ProductResultsCodec.encode(results);
+            }
+            if (isRuleResults(data)) {
+                @SuppressWarnings("unchecked")
+                List<RuleResult> results = (List<RuleResult>) data;
+                return RuleResultCodec.encode(results);
+            }
+        }
+        if (headers == null) {
+            return jsonSerializer.serialize(topic, data);
+        }
+        byte[] json = jsonSerializer.serialize(topic, headers, data);
+        if (isRuleResults(data)) {
+            headers.remove(AbstractJavaTypeMapper.DEFAULT_CONTENT_CLASSID_FIELD_NAME);
+            headers.add(AbstractJavaTypeMapper.DEFAULT_CONTENT_CLASSID_FIELD_NAME,
+                    RuleResult.class.getName().getBytes(StandardCharsets.UTF_8));
+        }
+        return json;
+    }
+
+    @Override
+    public void close() {
+        jsonSerializer.close();
+    }
+
+    private static boolean isRuleResults(Object data) {
+        return data instanceof List<?> list && list.stream().allMatch(RuleResult.class::isInstance);
+    }
+
+    static Set<String> parseTopics(Object value) {
+        if (value instanceof Collection<?> topics) {
+            return topics.stream().map(Object::toString).map(String::trim).collect(Collectors.toSet());
+        }
+        if (value instanceof String topics && !topics.isBlank()) {
+            return Arrays.stream(topics.split(",")).map(String::trim).filter(t -> !t.isEmpty()).collect(Collectors.toSet());
+        }
+        return Set.of();
+    }
+}
@@ -2,6 +2,7 @@ package com.rulesengine.config;
 
 import com.amazonaws.auth.AWSStaticCredentialsProvider;
 import com.amazonaws.auth.BasicAWSCredentials;
+import com.amazonaws.client.builder.AwsClientBuilder;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.AmazonS3ClientBuilder;
 import org.springframework.beans.factory.annotation.Value;
@@ -20,12 +21,21 @@ public class AwsConfig {
     @Value("${aws.region}")
     private String region;
 
+    // Set to point at a local S3 stand-in (MinIO, LocalStack, S3Mock)
+    @Value("${aws.s3.endpoint:}")
+    private String s3Endpoint;
+
     @Bean
     public AmazonS3 amazonS3Client() {
         BasicAWSCredentials awsCreds = new BasicAWSCredentials(accessKey, secretKey);
-        return AmazonS3ClientBuilder.standard()
-                .withRegion(region)
-                .withCredentials(new AWSStaticCredentialsProvider(awsCreds))
-                .build();
+        AmazonS3ClientBuilder builder = AmazonS3ClientBuilder.standard()
+                .withCredentials(new AWSStaticCredentialsProvider(awsCreds));
+        if (s3Endpoint.isBlank()) {
+            builder.withRegion(region);
+        } else {
+            builder.withEndpointConfiguration(new AwsClientBuilder.EndpointConfiguration(s3Endpoint, region))
+                    .withPathStyleAccessEnabled(true);
+        }
+        return builder.build();
     }
 }
\ No newline at end of file
@@ -0,0 +1,100 @@
+package com.rulesengine.config;
+
+import com.rulesengine.util.BoundedExecutor;
+import com.rulesengine.util.FlowController;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executors for the pipeline stages.
+ * <p>
+ * {@code rules.execution.mode=virtual} runs every stage on virtual threads, {@code platform} on pooled
+ * platform threads. In both modes the concurrency of a stage is capped by its semaphore.
+ */
+@Configuration
+public class ExecutionConfig {
+
+    @Value("${rules.execution.mode:platform}")
+    private String executionMode;
+
+    @Value("${rules.engine.worker-threads:0}")
+    private int ruleWorkerThreads;
+
+    @Value("${rpc.ingest.concurrency:10}")
+    private int ingestConcurrency;
+
+    @Value("${results.publish.concurrency:4}")
+    private int publishConcurrency;
+
+    @Value("${rpc.ingest.flow.min-in-flight:100}")
+    private int minInFlightRecords;
+
+    @Value("${rpc.ingest.flow.max-in-flight:10000}")
+    private int maxInFlightRecords;
+
+    @Value("${rpc.ingest.flow.max-in-flight-bytes:16777216}")
+    private long maxInFlightBytes;
+
+    @Value("${rpc.ingest.flow.target-latency-ms:200}")
+    private long targetSendLatencyMs;
+
+    public boolean isVirtual() {
+        return "virtual".equalsIgnoreCase(executionMode);
+    }
+
+    // Shared by all rule-engine listener threads, so one poll can use every core
+    @Bean(destroyMethod = "close")
+    public BoundedExecutor ruleEvaluationExecutor() {
+        int parallelism = ruleWorkerThreads > 0 ? ruleWorkerThreads : Runtime.getRuntime().availableProcessors();
+        ExecutorService delegate = isVirtual() ? Executors.newVirtualThreadPerTaskExecutor() : new ForkJoinPool(parallelism);
+        return new BoundedExecutor("rule-evaluation", delegate, parallelism);
+    }
+
+    // Table fetch and Kafka send completion in RPCProcessor
+    @Bean(destroyMethod = "close")
+    public BoundedExecutor ingestExecutor() {
+        return new BoundedExecutor("ingest", newBlockingExecutor("ingest-"), ingestConcurrency);
+    }
+
+    // Runs rules marked isolated so a hung rule can be abandoned; per-rule bulkheads bound its threads
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService ruleIsolationExecutor() {
+        return newBlockingExecutor("rule-isolation-");
+    }
+
+    // Caps and adapts the product sends to rpc-for-processing; keep the byte cap below the producer's buffer.memory
+    @Bean
+    public FlowController ingestFlowController() {
+        return new FlowController("ingest", minInFlightRecords, maxInFlightRecords, maxInFlightBytes,
+                TimeUnit.MILLISECONDS.toNanos(targetSendLatencyMs));
+    }
+
+    // S3 uploads and warehouse merges in ResultPublisher
+    @Bean(destroyMethod = "close")
+    public BoundedExecutor publishExecutor() {
+        return new BoundedExecutor("publish", newBlockingExecutor("publish-"), publishConcurrency);
+    }
+
+    // Thread source for the Kafka listener consumer threads
+    @Bean
+    public AsyncTaskExecutor listenerTaskExecutor() {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("kafka-listener-");
+        executor.setVirtualThreads(isVirtual());
+        return executor;
+    }
+
+    private ExecutorService newBlockingExecutor(String threadPrefix) {
+        if (isVirtual()) {
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(threadPrefix, 0).factory());
+        }
+        return Executors.newCachedThreadPool(Thread.ofPlatform().name(threadPrefix, 0).factory());
+    }
+}
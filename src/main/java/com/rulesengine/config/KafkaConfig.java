@@ -1,15 +1,24 @@
 package com.rulesengine.config;
 
+import com.rulesengine.codec.TopicCodecDeserializer;
+import com.rulesengine.codec.TopicCodecSerializer;
+import com.rulesengine.service.ResultAggregator;
+import org.apache.kafka.clients.admin.NewTopic;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.TopicBuilder;
 import org.springframework.kafka.core.*;
+import org.springframework.kafka.listener.ContainerProperties;
 import org.springframework.kafka.support.serializer.JsonDeserializer;
-import org.springframework.kafka.support.serializer.JsonSerializer;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -18,12 +27,40 @@ import java.util.Map;
 @Configuration
 public class KafkaConfig {
 
+    @Value("${kafka.bootstrap-servers:localhost:9093}")
+    private String bootstrapServers;
+
+    // Topics whose producers write the binary codec; consumers read both formats on every topic
+    @Value("${kafka.codec.binary-topics:}")
+    private String binaryTopics;
+
+    // Partition work units are claimed through this topic's consumer group, so its partition count caps
+    // how many nodes can ingest one table in parallel
+    @Bean
+    public NewTopic rpcTablePartitionsTopic(@Value("${rpc.ingest.partition-topic:rpc-table-partitions}") String topic,
+                                            @Value("${rpc.ingest.partitions:16}") int partitions) {
+        return TopicBuilder.name(topic).partitions(partitions).build();
+    }
+
+    // rule-results and the routed completion topic must be co-partitioned for partition-affine aggregation
+    @Bean
+    public NewTopic ruleResultsTopic(@Value("${results.aggregation.partitions:12}") int partitions) {
+        return TopicBuilder.name("rule-results").partitions(partitions).build();
+    }
+
+    @Bean
+    public NewTopic completionTopic(@Value("${results.aggregation.completion-topic:processing-complete-by-message}") String topic,
+                                    @Value("${results.aggregation.partitions:12}") int partitions) {
+        return TopicBuilder.name(topic).partitions(partitions).build();
+    }
+
     @Bean
     public ProducerFactory<String, Object> producerFactory() {
         Map<String, Object> configProps = new HashMap<>();
-        configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, "localhost:9093");
+        configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
+        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, TopicCodecSerializer.class);
+        configProps.put(TopicCodecSerializer.BINARY_TOPICS_CONFIG, binaryTopics);
         return new DefaultKafkaProducerFactory<>(configProps);
     }
 
@@ -35,18 +72,44 @@ public class KafkaConfig {
     @Bean
     public ConsumerFactory<String, Object> consumerFactory() {
         Map<String, Object> props = new HashMap<>();
-        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, "localhost:9093");
+        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         props.put(ConsumerConfig.GROUP_ID_CONFIG, "product-analysis-group");
         props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, JsonDeserializer.class);
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, TopicCodecDeserializer.class);
         props.put(JsonDeserializer.TRUSTED_PACKAGES, "*");
         return new DefaultKafkaConsumerFactory<>(props);
     }
 
     @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, Object> kafkaListenerContainerFactory() {
+    public ConcurrentKafkaListenerContainerFactory<String, Object> kafkaListenerContainerFactory(
+            @Qualifier("listenerTaskExecutor") AsyncTaskExecutor listenerTaskExecutor) {
+        ConcurrentKafkaListenerContainerFactory<String, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory());
+        factory.getContainerProperties().setListenerTaskExecutor(listenerTaskExecutor);
+        return factory;
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, Object> batchKafkaListenerContainerFactory(
+            @Qualifier("listenerTaskExecutor") AsyncTaskExecutor listenerTaskExecutor) {
+        ConcurrentKafkaListenerContainerFactory<String, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory());
+        factory.getContainerProperties().setListenerTaskExecutor(listenerTaskExecutor);
+        factory.setBatchListener(true);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
+        return factory;
+    }
+
+    // The aggregator commits offsets itself, once the results before them belong to completed jobs. It is
+    // injected lazily because its own @KafkaListener needs this factory
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, Object> aggregatorKafkaListenerContainerFactory(
+            @Qualifier("listenerTaskExecutor") AsyncTaskExecutor listenerTaskExecutor, @Lazy ResultAggregator resultAggregator) {
         ConcurrentKafkaListenerContainerFactory<String, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(consumerFactory());
+        factory.getContainerProperties().setListenerTaskExecutor(listenerTaskExecutor);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        factory.getContainerProperties().setConsumerRebalanceListener(resultAggregator);
         return factory;
     }
 }
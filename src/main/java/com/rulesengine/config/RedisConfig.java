@@ -18,4 +18,4 @@ public class RedisConfig {
         template.setValueSerializer(new Jackson2JsonRedisSerializer<>(Object.class));
         return template;
     }
-}
\ No newline at end of file
+}
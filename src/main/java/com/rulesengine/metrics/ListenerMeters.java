@@ -0,0 +1,33 @@
+package com.rulesengine.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records processed and time spent processing them by one Kafka listener, summed over its consumer threads.
+ */
+public class ListenerMeters {
+
+    private final Timer processing;
+    private final Counter records;
+
+    ListenerMeters(Timer processing, Counter records) {
+        this.processing = processing;
+        this.records = records;
+    }
+
+    public void processed(int recordCount, long nanos) {
+        processing.record(nanos, TimeUnit.NANOSECONDS);
+        records.increment(recordCount);
+    }
+
+    public long getRecords() {
+        return (long) records.count();
+    }
+
+    public long getBusyNanos() {
+        return (long) processing.totalTime(TimeUnit.NANOSECONDS);
+    }
+}
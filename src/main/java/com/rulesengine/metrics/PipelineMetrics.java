@@ -0,0 +1,159 @@
+package com.rulesengine.metrics;
+
+import com.rulesengine.util.FlowController;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Meters of the ingestion, rule evaluation and publishing pipeline.
+ * <p>
+ * Tags are limited to bounded sets (rule name, topic, publish stage); per-table and per-message values
+ * are recorded into untagged summaries. Meters are created once and handed out to the hot paths,
+ * which only record into them.
+ */
+@Component
+public class PipelineMetrics {
+
+    public enum PublishStage {
+        POLL, ENCODE, UPLOAD, MERGE
+    }
+
+    private final MeterRegistry registry;
+    private final Map<String, RuleMeters> ruleMeters = new ConcurrentHashMap<>();
+    private final Map<String, SendMeters> sendMeters = new ConcurrentHashMap<>();
+    private final Map<String, ListenerMeters> listenerMeters = new ConcurrentHashMap<>();
+    private final Map<PublishStage, Timer> publishStages = new ConcurrentHashMap<>();
+
+    private final Counter ingestedRows;
+    private final DistributionSummary tableRowsPerSecond;
+    private final DistributionSummary messageHeapBytes;
+
+    public PipelineMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.ingestedRows = Counter.builder("rpc.ingest.rows")
+                .description("Rows read from source RPC tables")
+                .register(registry);
+        this.tableRowsPerSecond = DistributionSummary.builder("rpc.ingest.table.rows.per.second")
+                .description("Read throughput of each completed source table")
+                .register(registry);
+        this.messageHeapBytes = DistributionSummary.builder("results.aggregator.message.heap.bytes")
+                .description("Aggregator heap held by a messageId when it completed")
+                .baseUnit("bytes")
+                .register(registry);
+        for (PublishStage stage : PublishStage.values()) {
+            publishStages.put(stage, Timer.builder("results.publish.stage")
+                    .description("Time spent in each publishResults stage")
+                    .tag("stage", stage.name().toLowerCase())
+                    .register(registry));
+        }
+    }
+
+    public MeterRegistry getRegistry() {
+        return registry;
+    }
+
+    public RuleMeters ruleMeters(String ruleName) {
+        return ruleMeters.computeIfAbsent(ruleName, name -> {
+            Timer latency = Timer.builder("rules.evaluation")
+                    .description("Rule evaluation latency")
+                    .tag("rule", name)
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofNanos(100))
+                    .maximumExpectedValue(Duration.ofSeconds(1))
+                    .register(registry);
+            Counter passed = Counter.builder("rules.results").tag("rule", name).tag("outcome", "pass").register(registry);
+            Counter failed = Counter.builder("rules.results").tag("rule", name).tag("outcome", "fail").register(registry);
+            Map<String, Counter> rejections = new ConcurrentHashMap<>();
+            return new RuleMeters() {
+                @Override
+                public void record(long nanos, boolean rulePassed) {
+                    latency.record(nanos, TimeUnit.NANOSECONDS);
+                    (rulePassed ? passed : failed).increment();
+                }
+
+                @Override
+                public void rejected(String reason) {
+                    rejections.computeIfAbsent(reason, r -> Counter.builder("rules.guard.rejections")
+                            .description("Rule executions replaced by an error result, or over their time budget")
+                            .tag("rule", name)
+                            .tag("reason", r)
+                            .register(registry)).increment();
+                }
+            };
+        });
+    }
+
+    public SendMeters sendMeters(String topic) {
+        return sendMeters.computeIfAbsent(topic, t -> {
+            AtomicLong inFlight = new AtomicLong();
+            Gauge.builder("kafka.sends.in.flight", inFlight, AtomicLong::get)
+                    .description("Kafka sends not yet acknowledged")
+                    .tag("topic", t)
+                    .register(registry);
+            Counter failures = Counter.builder("kafka.sends.failed")
+                    .description("Kafka sends completed with an error")
+                    .tag("topic", t)
+                    .register(registry);
+            return new SendMeters(inFlight, failures);
+        });
+    }
+
+    public void bindFlowController(FlowController flowController) {
+        String flow = flowController.getName();
+        Gauge.builder("kafka.flow.limit", flowController, FlowController::getLimit)
+                .description("Current adaptive cap on in-flight records")
+                .tag("flow", flow)
+                .register(registry);
+        Gauge.builder("kafka.flow.in.flight.bytes", flowController, FlowController::getInFlightBytes)
+                .baseUnit("bytes")
+                .tag("flow", flow)
+                .register(registry);
+        Gauge.builder("kafka.flow.rate", flowController, FlowController::getRate)
+                .description("Acknowledged records per second")
+                .tag("flow", flow)
+                .register(registry);
+        Gauge.builder("kafka.flow.backpressure", flowController, f -> f.isBackpressure() ? 1 : 0)
+                .tag("flow", flow)
+                .register(registry);
+    }
+
+    public ListenerMeters listenerMeters(String listener) {
+        return listenerMeters.computeIfAbsent(listener, name -> new ListenerMeters(
+                Timer.builder("kafka.listener.processing")
+                        .description("Time listener threads spend processing polled records")
+                        .tag("listener", name)
+                        .register(registry),
+                Counter.builder("kafka.listener.records")
+                        .description("Records processed by the listener")
+                        .tag("listener", name)
+                        .register(registry)));
+    }
+
+    public void rowsFetched(int rows) {
+        ingestedRows.increment(rows);
+    }
+
+    public void tableIngested(long rows, long nanos) {
+        if (nanos > 0) {
+            tableRowsPerSecond.record(rows * 1_000_000_000d / nanos);
+        }
+    }
+
+    public void messageCompleted(long heapBytes) {
+        messageHeapBytes.record(heapBytes);
+    }
+
+    public Timer publishStage(PublishStage stage) {
+        return publishStages.get(stage);
+    }
+}
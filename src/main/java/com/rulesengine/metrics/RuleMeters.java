@@ -0,0 +1,17 @@
+package com.rulesengine.metrics;
+
+/**
+ * Meters of one rule, resolved once when a rule plan is compiled so recording does no lookups.
+ */
+@FunctionalInterface
+public interface RuleMeters {
+
+    RuleMeters NOOP = (nanos, passed) -> {
+    };
+
+    void record(long nanos, boolean passed);
+
+    // An execution that produced an error result instead of the rule's own (timeout, open circuit, ...)
+    default void rejected(String reason) {
+    }
+}
@@ -0,0 +1,34 @@
+package com.rulesengine.metrics;
+
+import io.micrometer.core.instrument.Counter;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-flight and failed Kafka sends for one topic.
+ */
+public class SendMeters {
+
+    private final AtomicLong inFlight;
+    private final Counter failures;
+
+    SendMeters(AtomicLong inFlight, Counter failures) {
+        this.inFlight = inFlight;
+        this.failures = failures;
+    }
+
+    public void started() {
+        inFlight.incrementAndGet();
+    }
+
+    public void completed(Throwable error) {
+        inFlight.decrementAndGet();
+        if (error != null) {
+            failures.increment();
+        }
+    }
+
+    public long getInFlight() {
+        return inFlight.get();
+    }
+}
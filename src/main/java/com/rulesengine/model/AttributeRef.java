@@ -0,0 +1,37 @@
+package com.rulesengine.model;
+
+/**
+ * Attribute name resolved to a slot once per {@link TableSchema}.
+ * <p>
+ * Products of one table share a schema instance, so after the first product of a table every read is an
+ * identity check and an array load. Safe to share between threads.
+ */
+public final class AttributeRef {
+
+    private final String name;
+    private volatile Resolved resolved = new Resolved(null, -1);
+
+    public AttributeRef(String name) {
+        this.name = name;
+    }
+
+    public String get(Product product) {
+        TableSchema schema = product.getSchema();
+        if (schema == null) {
+            return null;
+        }
+        Resolved current = resolved;
+        if (current.schema() != schema) {
+            current = new Resolved(schema, schema.slotOf(name));
+            resolved = current;
+        }
+        return current.slot() < 0 ? null : product.getAttributeValues()[current.slot()];
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    private record Resolved(TableSchema schema, int slot) {
+    }
+}
@@ -1,10 +1,26 @@
 package com.rulesengine.model;
 
 public enum Dimension {
-    BRAND,
-    MANUFACTURER,
-    ONLINE_STORE,
-    CATEGORY,
-    SUBCATEGORY,
-    SEGMENT
+    BRAND(null),
+    MANUFACTURER("manufacturer"),
+    ONLINE_STORE(null),
+    CATEGORY(null),
+    SUBCATEGORY("subcategory"),
+    SEGMENT("segment");
+
+    // Dimensions without a dedicated Product field are read from the attributes
+    private final AttributeRef attribute;
+
+    Dimension(String attributeName) {
+        this.attribute = attributeName == null ? null : new AttributeRef(attributeName);
+    }
+
+    public String extract(Product product) {
+        return switch (this) {
+            case BRAND -> product.getBrand();
+            case ONLINE_STORE -> product.getRetailer();
+            case CATEGORY -> product.getCategory();
+            default -> attribute.get(product);
+        };
+    }
 }
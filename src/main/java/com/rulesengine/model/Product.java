@@ -1,9 +1,27 @@
 package com.rulesengine.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Setter;
+import lombok.ToString;
 
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
 
+/**
+ * A source table row. Attribute values are held in a {@code String[]} laid out by the table's shared
+ * {@link TableSchema} rather than in a per-row map; {@link #getAttributes()} is a read-only view of them.
+ * Schema and values are only set together, so the array always matches the schema's layout. Equality
+ * treats the attributes as a map, so products whose schemas list the same attributes in another order
+ * are equal.
+ */
 @Data
 public class Product {
     private String messageId;
@@ -12,5 +30,138 @@ public class Product {
     private String retailer;
     private String brand;
     private String category;
-    private Map<String, String> attributes;
-}
\ No newline at end of file
+
+    @JsonIgnore
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    private TableSchema schema;
+
+    @JsonIgnore
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    private String[] attributeValues;
+
+    public void setAttributes(TableSchema schema, String[] values) {
+        if (values.length != schema.size()) {
+            throw new IllegalArgumentException("Expected " + schema.size() + " attribute values but got " + values.length);
+        }
+        this.schema = schema;
+        this.attributeValues = values;
+    }
+
+    // Copies the map into the schema layout; prefer setAttributes(TableSchema, String[]) on hot paths
+    public void setAttributes(Map<String, String> attributes) {
+        if (attributes == null) {
+            this.schema = null;
+            this.attributeValues = null;
+            return;
+        }
+        String[] names = new String[attributes.size()];
+        String[] values = new String[attributes.size()];
+        int i = 0;
+        for (Map.Entry<String, String> entry : attributes.entrySet()) {
+            names[i] = entry.getKey();
+            values[i++] = entry.getValue();
+        }
+        setAttributes(TableSchema.of(names), values);
+    }
+
+    @ToString.Include(name = "attributes")
+    public Map<String, String> getAttributes() {
+        return schema == null ? null : new AttributeView();
+    }
+
+    // Looks the slot up by name; rules should use an AttributeRef instead
+    public String getAttribute(String name) {
+        if (schema == null) {
+            return null;
+        }
+        int slot = schema.slotOf(name);
+        return slot < 0 ? null : attributeValues[slot];
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Product other)) {
+            return false;
+        }
+        return Objects.equals(messageId, other.messageId) && Objects.equals(rpc, other.rpc)
+                && Objects.equals(clientId, other.clientId) && Objects.equals(retailer, other.retailer)
+                && Objects.equals(brand, other.brand) && Objects.equals(category, other.category)
+                && attributesEqual(other);
+    }
+
+    // Products of one table share an interned schema, so their value arrays are aligned and compared directly
+    private boolean attributesEqual(Product other) {
+        if (schema == other.schema) {
+            return schema == null || Arrays.equals(attributeValues, other.attributeValues);
+        }
+        return Objects.equals(getAttributes(), other.getAttributes());
+    }
+
+    // Map.hashCode of the attributes, computed without the view so it agrees with equals across schemas
+    @Override
+    public int hashCode() {
+        int hash = Objects.hash(messageId, rpc, clientId, retailer, brand, category);
+        if (schema == null) {
+            return hash;
+        }
+        int attributes = 0;
+        for (int i = 0; i < attributeValues.length; i++) {
+            attributes += schema.attributeName(i).hashCode() ^ Objects.hashCode(attributeValues[i]);
+        }
+        return 31 * hash + attributes;
+    }
+
+    private final class AttributeView extends AbstractMap<String, String> {
+
+        @Override
+        public String get(Object key) {
+            return key instanceof String name ? getAttribute(name) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof String name && schema.slotOf(name) >= 0;
+        }
+
+        @Override
+        public int size() {
+            return schema.size();
+        }
+
+        @Override
+        public Set<Entry<String, String>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<String, String>> iterator() {
+                    return new Iterator<>() {
+                        private int slot;
+
+                        @Override
+                        public boolean hasNext() {
+                            return slot < schema.size();
+                        }
+
+                        @Override
+                        public Entry<String, String> next() {
+                            if (!hasNext()) {
+                                throw new NoSuchElementException();
+                            }
+                            int current = slot++;
+                            return new SimpleImmutableEntry<>(schema.attributeName(current), attributeValues[current]);
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return schema.size();
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.rulesengine.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Results of the rules evaluated for one product within a {@link ProductResults} record. Bit i of
+ * {@code evaluated} and {@code passed} refers to rule i of the record's rule names; {@code scores} and
+ * {@code errorCodes} hold one entry per evaluated rule, in bit order.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductResult {
+    private String reportDate;
+    private String onlineStore;
+    private String rpc;
+    private String customerId;
+    private long[] evaluated;
+    private long[] passed;
+    private double[] scores;
+    private int[] errorCodes;
+}
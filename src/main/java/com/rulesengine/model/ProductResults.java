@@ -0,0 +1,129 @@
+package com.rulesengine.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Compact rule-results record: one {@link ProductResult} per product instead of one {@link RuleResult} per
+ * rule evaluation. Rule names and error messages are tables local to the record; an error code n refers
+ * to error message n - 1 and 0 stands for a null message. Rows are only rebuilt when output is written.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductResults {
+
+    public static final int NO_ERROR = 0;
+
+    private String messageId;
+    private List<String> ruleNames = new ArrayList<>();
+    private List<String> errorMessages = new ArrayList<>();
+    private List<ProductResult> products = new ArrayList<>();
+
+    /**
+     * Packs results of one messageId. A product's results are expected to be adjacent, as the rule plan
+     * emits them; a product whose results are split starts a new entry.
+     */
+    public static ProductResults of(String messageId, List<RuleResult> results) {
+        ProductResults packed = new ProductResults();
+        packed.setMessageId(messageId);
+        Map<String, Integer> ruleIndex = new HashMap<>();
+        Map<String, Integer> errorCodes = new HashMap<>();
+        int from = 0;
+        for (int i = 1; i <= results.size(); i++) {
+            if (i == results.size() || !sameProduct(results.get(from), results.get(i))) {
+                packed.products.add(packed.pack(results.subList(from, i), ruleIndex, errorCodes));
+                from = i;
+            }
+        }
+        return packed;
+    }
+
+    private static boolean sameProduct(RuleResult a, RuleResult b) {
+        return Objects.equals(a.getRpc(), b.getRpc())
+                && Objects.equals(a.getReportDate(), b.getReportDate())
+                && Objects.equals(a.getOnlineStore(), b.getOnlineStore())
+                && Objects.equals(a.getCustomerId(), b.getCustomerId());
+    }
+
+    private ProductResult pack(List<RuleResult> productResults, Map<String, Integer> ruleIndex,
+                               Map<String, Integer> errorCodes) {
+        BitSet evaluated = new BitSet();
+        BitSet passed = new BitSet();
+        Map<Integer, RuleResult> byRule = new HashMap<>();
+        for (RuleResult result : productResults) {
+            int rule = ruleIndex.computeIfAbsent(result.getRuleName(), name -> {
+                ruleNames.add(name);
+                return ruleNames.size() - 1;
+            });
+            evaluated.set(rule);
+            passed.set(rule, result.isRulePassed());
+            byRule.put(rule, result);
+        }
+        double[] scores = new double[byRule.size()];
+        int[] codes = new int[byRule.size()];
+        int slot = 0;
+        for (int rule = evaluated.nextSetBit(0); rule >= 0; rule = evaluated.nextSetBit(rule + 1), slot++) {
+            RuleResult result = byRule.get(rule);
+            scores[slot] = result.getRuleScore();
+            codes[slot] = result.getErrorMessage() == null ? NO_ERROR
+                    : errorCodes.computeIfAbsent(result.getErrorMessage(), message -> {
+                        errorMessages.add(message);
+                        return errorMessages.size();
+                    });
+        }
+        RuleResult first = productResults.get(0);
+        return ProductResult.builder()
+                .reportDate(first.getReportDate())
+                .onlineStore(first.getOnlineStore())
+                .rpc(first.getRpc())
+                .customerId(first.getCustomerId())
+                .evaluated(evaluated.toLongArray())
+                .passed(passed.toLongArray())
+                .scores(scores)
+                .errorCodes(codes)
+                .build();
+    }
+
+    public int resultCount() {
+        return products.stream().mapToInt(product -> product.getScores().length).sum();
+    }
+
+    // Rebuilds the rows, product by product and in rule-table order within a product
+    public void forEachResult(Consumer<RuleResult> consumer) {
+        for (ProductResult product : products) {
+            BitSet evaluated = BitSet.valueOf(product.getEvaluated());
+            BitSet passed = BitSet.valueOf(product.getPassed());
+            int slot = 0;
+            for (int rule = evaluated.nextSetBit(0); rule >= 0; rule = evaluated.nextSetBit(rule + 1), slot++) {
+                int code = product.getErrorCodes()[slot];
+                consumer.accept(RuleResult.builder()
+                        .messageId(messageId)
+                        .reportDate(product.getReportDate())
+                        .onlineStore(product.getOnlineStore())
+                        .rpc(product.getRpc())
+                        .customerId(product.getCustomerId())
+                        .ruleName(ruleNames.get(rule))
+                        .rulePassed(passed.get(rule))
+                        .ruleScore(product.getScores()[slot])
+                        .errorMessage(code == NO_ERROR ? null : errorMessages.get(code - 1))
+                        .build());
+            }
+        }
+    }
+
+    public List<RuleResult> toRuleResults() {
+        List<RuleResult> results = new ArrayList<>(resultCount());
+        forEachResult(results::add);
+        return results;
+    }
+}
@@ -0,0 +1,22 @@
+package com.rulesengine.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One rpc range of a source table, claimed and ingested as a unit by an rpc-listener node.
+ * {@code fromRpc} is exclusive and {@code toRpc} inclusive; null means unbounded.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RpcTablePartition {
+    private String tableName;
+    private int partition;
+    private int partitionCount;
+    private String fromRpc;
+    private String toRpc;
+}
@@ -0,0 +1,66 @@
+package com.rulesengine.model;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Attribute columns of a source table, mapping each attribute name to its slot in
+ * {@link Product#getAttributeValues()}.
+ * <p>
+ * Schemas are interned by their attribute names, so every product of a table shares one instance and
+ * {@link AttributeRef} can cache slots by schema identity.
+ */
+public final class TableSchema {
+
+    public static final TableSchema EMPTY = new TableSchema(new String[0]);
+
+    private static final int MAX_INTERNED = 1024;
+    private static final ConcurrentHashMap<List<String>, TableSchema> INTERNED = new ConcurrentHashMap<>();
+
+    private final String[] attributeNames;
+    private final Map<String, Integer> slots;
+
+    private TableSchema(String[] attributeNames) {
+        this.attributeNames = attributeNames;
+        this.slots = new HashMap<>(attributeNames.length * 4 / 3 + 1);
+        for (int i = 0; i < attributeNames.length; i++) {
+            if (slots.putIfAbsent(attributeNames[i], i) != null) {
+                throw new IllegalArgumentException("Duplicate attribute name: " + attributeNames[i]);
+            }
+        }
+    }
+
+    public static TableSchema of(String... attributeNames) {
+        if (attributeNames.length == 0) {
+            return EMPTY;
+        }
+        List<String> key = List.of(attributeNames);
+        TableSchema schema = INTERNED.get(key);
+        if (schema != null) {
+            return schema;
+        }
+        schema = new TableSchema(Arrays.copyOf(attributeNames, attributeNames.length));
+        if (INTERNED.size() >= MAX_INTERNED) {
+            return schema;
+        }
+        TableSchema existing = INTERNED.putIfAbsent(key, schema);
+        return existing != null ? existing : schema;
+    }
+
+    // Slot of the attribute, or -1 if the table has no such column
+    public int slotOf(String attributeName) {
+        Integer slot = slots.get(attributeName);
+        return slot == null ? -1 : slot;
+    }
+
+    public String attributeName(int slot) {
+        return attributeNames[slot];
+    }
+
+    public int size() {
+        return attributeNames.length;
+    }
+}
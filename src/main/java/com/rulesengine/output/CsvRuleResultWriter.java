@@ -0,0 +1,36 @@
+package com.rulesengine.output;
+
+import com.rulesengine.model.RuleResult;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+
+public class CsvRuleResultWriter implements RuleResultWriter {
+
+    private static final RuleResultColumn[] COLUMNS = RuleResultColumn.values();
+
+    private final CSVPrinter printer;
+    private final Object[] row = new Object[COLUMNS.length];
+
+    public CsvRuleResultWriter(OutputStream out) throws IOException {
+        this.printer = new CSVPrinter(new OutputStreamWriter(out, StandardCharsets.UTF_8),
+                CSVFormat.DEFAULT.withHeader(RuleResultColumn.headers()));
+    }
+
+    @Override
+    public void write(RuleResult result) throws IOException {
+        for (int i = 0; i < COLUMNS.length; i++) {
+            row[i] = COLUMNS[i].valueOf(result);
+        }
+        printer.printRecord(row);
+    }
+
+    @Override
+    public void close() throws IOException {
+        printer.close();
+    }
+}
@@ -0,0 +1,128 @@
+package com.rulesengine.output;
+
+import com.rulesengine.model.RuleResult;
+import org.apache.parquet.example.data.Group;
+import org.apache.parquet.example.data.simple.SimpleGroupFactory;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.example.ExampleParquetWriter;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.apache.parquet.io.OutputFile;
+import org.apache.parquet.io.PositionOutputStream;
+import org.apache.parquet.schema.LogicalTypeAnnotation;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.PrimitiveType;
+import org.apache.parquet.schema.Types;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes rule results as Parquet with dictionary encoding, which collapses the repeated report dates,
+ * stores, rule names and error messages into small RLE-encoded dictionary ids.
+ */
+public class ParquetRuleResultWriter implements RuleResultWriter {
+
+    private static final RuleResultColumn[] COLUMNS = RuleResultColumn.values();
+    private static final MessageType SCHEMA = buildSchema();
+
+    private final SimpleGroupFactory groups = new SimpleGroupFactory(SCHEMA);
+    private final ParquetWriter<Group> writer;
+
+    public ParquetRuleResultWriter(OutputStream out, CompressionCodecName codec) throws IOException {
+        this.writer = ExampleParquetWriter.builder(new StreamOutputFile(out))
+                .withType(SCHEMA)
+                .withDictionaryEncoding(true)
+                .withCompressionCodec(codec)
+                .build();
+    }
+
+    @Override
+    public void write(RuleResult result) throws IOException {
+        Group group = groups.newGroup();
+        for (RuleResultColumn column : COLUMNS) {
+            Object value = column.valueOf(result);
+            if (value == null) {
+                continue;
+            }
+            switch (column.getType()) {
+                case STRING -> group.append(column.getColumnName(), (String) value);
+                case BOOLEAN -> group.append(column.getColumnName(), (Boolean) value);
+                case DOUBLE -> group.append(column.getColumnName(), (Double) value);
+            }
+        }
+        writer.write(group);
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+
+    private static MessageType buildSchema() {
+        Types.MessageTypeBuilder builder = Types.buildMessage();
+        for (RuleResultColumn column : COLUMNS) {
+            switch (column.getType()) {
+                case STRING -> builder.optional(PrimitiveType.PrimitiveTypeName.BINARY)
+                        .as(LogicalTypeAnnotation.stringType()).named(column.getColumnName());
+                case BOOLEAN -> builder.required(PrimitiveType.PrimitiveTypeName.BOOLEAN).named(column.getColumnName());
+                case DOUBLE -> builder.required(PrimitiveType.PrimitiveTypeName.DOUBLE).named(column.getColumnName());
+            }
+        }
+        return builder.named("rule_result");
+    }
+
+    /**
+     * Adapts a plain output stream (local file or streaming S3 upload) to Parquet's OutputFile.
+     */
+    private record StreamOutputFile(OutputStream out) implements OutputFile {
+
+        @Override
+        public PositionOutputStream create(long blockSizeHint) {
+            return new PositionOutputStream() {
+                private long position;
+
+                @Override
+                public long getPos() {
+                    return position;
+                }
+
+                @Override
+                public void write(int b) throws IOException {
+                    out.write(b);
+                    position++;
+                }
+
+                @Override
+                public void write(byte[] bytes, int offset, int length) throws IOException {
+                    out.write(bytes, offset, length);
+                    position += length;
+                }
+
+                @Override
+                public void flush() throws IOException {
+                    out.flush();
+                }
+
+                @Override
+                public void close() throws IOException {
+                    out.close();
+                }
+            };
+        }
+
+        @Override
+        public PositionOutputStream createOrOverwrite(long blockSizeHint) {
+            return create(blockSizeHint);
+        }
+
+        @Override
+        public boolean supportsBlockSize() {
+            return false;
+        }
+
+        @Override
+        public long defaultBlockSize() {
+            return 0;
+        }
+    }
+}
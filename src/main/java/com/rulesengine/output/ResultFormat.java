@@ -0,0 +1,16 @@
+package com.rulesengine.output;
+
+public enum ResultFormat {
+    CSV(".csv"),
+    PARQUET(".parquet");
+
+    private final String extension;
+
+    ResultFormat(String extension) {
+        this.extension = extension;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+}
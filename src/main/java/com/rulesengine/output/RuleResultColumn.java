@@ -0,0 +1,60 @@
+package com.rulesengine.output;
+
+import com.rulesengine.model.RuleResult;
+
+import java.util.Arrays;
+import java.util.function.Function;
+
+/**
+ * Output columns of a rule result, in file order. Shared by every output format and the warehouse load.
+ */
+public enum RuleResultColumn {
+    REPORT_DATE("Report Date", "report_date", Type.STRING, RuleResult::getReportDate),
+    ONLINE_STORE("Online Store", "online_store", Type.STRING, RuleResult::getOnlineStore),
+    RPC("RPC", "rpc", Type.STRING, RuleResult::getRpc),
+    CUSTOMER_ID("Customer ID", "customer_id", Type.STRING, RuleResult::getCustomerId),
+    RULE_NAME("Rule Name", "rule_name", Type.STRING, RuleResult::getRuleName),
+    RULE_PASS("Rule Pass", "rule_pass", Type.BOOLEAN, RuleResult::isRulePassed),
+    RULE_SCORE("Rule Score", "rule_score", Type.DOUBLE, RuleResult::getRuleScore),
+    ERROR_MESSAGE("Error Message", "error_message", Type.STRING, RuleResult::getErrorMessage);
+
+    public enum Type {
+        STRING, BOOLEAN, DOUBLE
+    }
+
+    private static final String[] HEADERS = Arrays.stream(values())
+            .map(RuleResultColumn::getHeader)
+            .toArray(String[]::new);
+
+    private final String header;
+    private final String columnName;
+    private final Type type;
+    private final Function<RuleResult, Object> accessor;
+
+    RuleResultColumn(String header, String columnName, Type type, Function<RuleResult, Object> accessor) {
+        this.header = header;
+        this.columnName = columnName;
+        this.type = type;
+        this.accessor = accessor;
+    }
+
+    public static String[] headers() {
+        return HEADERS.clone();
+    }
+
+    public String getHeader() {
+        return header;
+    }
+
+    public String getColumnName() {
+        return columnName;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Object valueOf(RuleResult result) {
+        return accessor.apply(result);
+    }
+}
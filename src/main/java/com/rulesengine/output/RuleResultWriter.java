@@ -0,0 +1,11 @@
+package com.rulesengine.output;
+
+import com.rulesengine.model.RuleResult;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+public interface RuleResultWriter extends Closeable {
+
+    void write(RuleResult result) throws IOException;
+}
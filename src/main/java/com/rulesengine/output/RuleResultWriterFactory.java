@@ -0,0 +1,47 @@
+package com.rulesengine.output;
+
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Opens result writers in the configured output format. CSV is compressed with the configured stream
+ * compression; Parquet compresses its pages itself.
+ */
+@Component
+public class RuleResultWriterFactory {
+
+    private final ResultFormat format;
+    private final Compression compression;
+    private final CompressionCodecName parquetCodec;
+
+    public RuleResultWriterFactory(@Value("${results.output.format:CSV}") ResultFormat format,
+                                   @Value("${results.publish.compression:GZIP}") Compression compression,
+                                   @Value("${results.output.parquet-codec:SNAPPY}") CompressionCodecName parquetCodec) {
+        this.format = format;
+        this.compression = compression;
+        this.parquetCodec = parquetCodec;
+    }
+
+    public ResultFormat getFormat() {
+        return format;
+    }
+
+    public Compression getCompression() {
+        return compression;
+    }
+
+    public String fileExtension(boolean compressed) {
+        return format == ResultFormat.CSV && compressed ? format.getExtension() + compression.getExtension() : format.getExtension();
+    }
+
+    public RuleResultWriter open(OutputStream out, boolean compressed) throws IOException {
+        return switch (format) {
+            case CSV -> new CsvRuleResultWriter(compressed ? compression.wrap(out) : out);
+            case PARQUET -> new ParquetRuleResultWriter(out, parquetCodec);
+        };
+    }
+}
@@ -0,0 +1,153 @@
+package com.rulesengine.output;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Streams bytes into an S3 object, uploading full parts in parallel while the caller keeps writing.
+ * <p>
+ * Memory is bounded by the part size times the concurrency of the upload executor, which blocks the
+ * writer when it is saturated. Objects smaller than one part are sent with a single putObject.
+ */
+@Slf4j
+public class S3MultipartOutputStream extends OutputStream {
+
+    // S3 rejects non-final parts smaller than 5 MiB
+    public static final int MIN_PART_SIZE = 5 * 1024 * 1024;
+
+    private final AmazonS3 s3;
+    private final String bucket;
+    private final String key;
+    private final int partSize;
+    private final Executor uploadExecutor;
+
+    private final List<CompletableFuture<PartETag>> parts = new ArrayList<>();
+    private byte[] buffer;
+    private int position;
+    private String uploadId;
+    private boolean closed;
+
+    public S3MultipartOutputStream(AmazonS3 s3, String bucket, String key, int partSize, Executor uploadExecutor) {
+        this.s3 = s3;
+        this.bucket = bucket;
+        this.key = key;
+        this.partSize = Math.max(partSize, MIN_PART_SIZE);
+        this.uploadExecutor = uploadExecutor;
+        this.buffer = new byte[this.partSize];
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureOpen();
+        buffer[position++] = (byte) b;
+        if (position == buffer.length) {
+            flushPart();
+        }
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        ensureOpen();
+        while (length > 0) {
+            int chunk = Math.min(length, buffer.length - position);
+            System.arraycopy(bytes, offset, buffer, position, chunk);
+            position += chunk;
+            offset += chunk;
+            length -= chunk;
+            if (position == buffer.length) {
+                flushPart();
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (uploadId == null) {
+                ObjectMetadata metadata = new ObjectMetadata();
+                metadata.setContentLength(position);
+                s3.putObject(new PutObjectRequest(bucket, key, new ByteArrayInputStream(buffer, 0, position), metadata));
+                return;
+            }
+            if (position > 0) {
+                uploadPart(buffer, position, true);
+            }
+            List<PartETag> etags = new ArrayList<>(parts.size());
+            for (CompletableFuture<PartETag> part : parts) {
+                etags.add(part.join());
+            }
+            etags.sort(Comparator.comparingInt(PartETag::getPartNumber));
+            s3.completeMultipartUpload(new CompleteMultipartUploadRequest(bucket, key, uploadId, etags));
+            log.debug("Completed multipart upload of s3://{}/{} in {} parts", bucket, key, etags.size());
+        } catch (RuntimeException e) {
+            abort();
+            throw new IOException("Error uploading s3://" + bucket + "/" + key, e instanceof CompletionException ? e.getCause() : e);
+        } finally {
+            buffer = null;
+        }
+    }
+
+    public void abort() {
+        closed = true;
+        if (uploadId != null) {
+            parts.forEach(part -> part.cancel(false));
+            s3.abortMultipartUpload(new AbortMultipartUploadRequest(bucket, key, uploadId));
+            uploadId = null;
+        }
+    }
+
+    private void flushPart() throws IOException {
+        for (CompletableFuture<PartETag> part : parts) {
+            if (part.isCompletedExceptionally()) {
+                abort();
+                throw new IOException("Error uploading part of s3://" + bucket + "/" + key, part.exceptionNow());
+            }
+        }
+        if (uploadId == null) {
+            uploadId = s3.initiateMultipartUpload(new InitiateMultipartUploadRequest(bucket, key)).getUploadId();
+        }
+        uploadPart(buffer, position, false);
+        buffer = new byte[partSize];
+        position = 0;
+    }
+
+    private void uploadPart(byte[] bytes, int length, boolean last) {
+        int partNumber = parts.size() + 1;
+        String id = uploadId;
+        parts.add(CompletableFuture.supplyAsync(() -> s3.uploadPart(new UploadPartRequest()
+                .withBucketName(bucket)
+                .withKey(key)
+                .withUploadId(id)
+                .withPartNumber(partNumber)
+                .withInputStream(new ByteArrayInputStream(bytes, 0, length))
+                .withPartSize(length)
+                .withLastPart(last)).getPartETag(), uploadExecutor));
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.rulesengine.rule;
+
+/**
+ * Per-row outcome of a {@link BatchRule}: a pass bitmap (bit {@code row % 64} of word {@code row / 64}),
+ * a score per row and the error message carried by failed rows.
+ */
+public final class BatchOutcome {
+
+    private final int size;
+    private final long[] passed;
+    private final double[] scores;
+    private String failureMessage = "";
+
+    public BatchOutcome(int size) {
+        this.size = size;
+        this.passed = new long[(size + 63) >>> 6];
+        this.scores = new double[size];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long[] passedWords() {
+        return passed;
+    }
+
+    public double[] scores() {
+        return scores;
+    }
+
+    public boolean isPassed(int row) {
+        return (passed[row >>> 6] & (1L << row)) != 0;
+    }
+
+    public void setPassed(int row, boolean rowPassed) {
+        if (rowPassed) {
+            passed[row >>> 6] |= 1L << row;
+        } else {
+            passed[row >>> 6] &= ~(1L << row);
+        }
+    }
+
+    public String getFailureMessage() {
+        return failureMessage;
+    }
+
+    public void setFailureMessage(String failureMessage) {
+        this.failureMessage = failureMessage;
+    }
+}
@@ -0,0 +1,14 @@
+package com.rulesengine.rule;
+
+/**
+ * Rule that can also evaluate a whole {@link ProductBatch} at once, writing pass/fail and scores per row
+ * into a {@link BatchOutcome}. The plan runs it once per batch over the columns it reads; per-product
+ * {@link #apply} is still used wherever a single product is evaluated.
+ * <p>
+ * Every row of the batch is evaluated, including rows the rule does not apply to; the plan only emits
+ * results for applicable rows.
+ */
+public interface BatchRule extends Rule {
+
+    void evaluate(ProductBatch batch, RuleParameters parameters, BatchOutcome outcome);
+}
@@ -0,0 +1,44 @@
+package com.rulesengine.rule;
+
+/**
+ * Tight loops over batch columns for {@link BatchRule}s. Uses the {@code jdk.incubator.vector} kernels when
+ * the JVM was started with {@code --add-modules jdk.incubator.vector} and plain loops otherwise, so the
+ * incubator classes are never loaded without the module.
+ */
+public final class ColumnKernels {
+
+    private static final boolean VECTORIZED = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
+    private ColumnKernels() {
+    }
+
+    public static boolean isVectorized() {
+        return VECTORIZED;
+    }
+
+    /**
+     * Sets the bit of every row among the first {@code size} whose value is within {@code [min, max]}.
+     * Bits of other rows are left as they are.
+     */
+    public static void within(int[] values, int size, int min, int max, long[] passed) {
+        if (VECTORIZED) {
+            VectorKernels.within(values, size, min, max, passed);
+        } else {
+            withinScalar(values, 0, size, min, max, passed);
+        }
+    }
+
+    static void withinScalar(int[] values, int from, int to, int min, int max, long[] passed) {
+        for (int row = from; row < to; row++) {
+            if (values[row] >= min && values[row] <= max) {
+                passed[row >>> 6] |= 1L << row;
+            }
+        }
+    }
+
+    public static void scores(long[] passed, int size, double passScore, double failScore, double[] scores) {
+        for (int row = 0; row < size; row++) {
+            scores[row] = (passed[row >>> 6] & (1L << row)) != 0 ? passScore : failScore;
+        }
+    }
+}
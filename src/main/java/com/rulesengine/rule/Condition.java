@@ -0,0 +1,16 @@
+package com.rulesengine.rule;
+
+import com.rulesengine.model.Product;
+
+import java.util.function.Predicate;
+
+/**
+ * One compiled check of a {@link DeclarativeRule}; {@code expression} is the {@code field.operator=argument}
+ * parameter it was compiled from and is reported when the check fails.
+ */
+public record Condition(String field, String expression, Predicate<Product> predicate) {
+
+    public boolean test(Product product) {
+        return predicate.test(product);
+    }
+}
@@ -0,0 +1,177 @@
+package com.rulesengine.rule;
+
+import com.rulesengine.model.AttributeRef;
+import com.rulesengine.model.Product;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Compiles {@code field.operator=argument} rule parameters into {@link Condition}s.
+ * <p>
+ * Fields are {@code rpc}, {@code clientId}, {@code retailer}, {@code brand} and {@code category}; any other
+ * field name is read from the product attributes. Operators:
+ * <ul>
+ *     <li>{@code required=true} - the value is present and not blank</li>
+ *     <li>{@code length=min..max} - string length within the bounds, either bound may be omitted</li>
+ *     <li>{@code range=min..max} - numeric value within the bounds, either bound may be omitted</li>
+ *     <li>{@code matches=regex} - the whole value matches the pattern</li>
+ *     <li>{@code in=a,b,c} / {@code notIn=a,b,c} - set membership</li>
+ * </ul>
+ * Missing values fail every operator except {@code notIn} and {@code required=false}. Pattern matching stops
+ * with a {@link RuleExecutionException} once the evaluating thread is interrupted, so an isolated rule whose
+ * regex backtracks catastrophically gives its thread back when the guard cancels it.
+ */
+final class ConditionCompiler {
+
+    private static final String ATTRIBUTE_PREFIX = "attributes.";
+
+    private ConditionCompiler() {
+    }
+
+    static Condition compile(String key, String argument) {
+        int separator = key.lastIndexOf('.');
+        if (separator <= 0 || separator == key.length() - 1) {
+            throw new IllegalArgumentException("Condition must be written as field.operator: " + key);
+        }
+        String fieldName = key.substring(0, separator);
+        Function<Product, String> field = field(fieldName);
+        String operator = key.substring(separator + 1);
+        String value = argument == null ? "" : argument.trim();
+
+        Predicate<Product> predicate = switch (operator) {
+            case "required" -> required(field, Boolean.parseBoolean(value));
+            case "length" -> length(field, Bounds.parse(key, value));
+            case "range" -> range(field, Bounds.parse(key, value));
+            case "matches" -> matches(field, Pattern.compile(value));
+            case "in" -> in(field, values(value));
+            case "notIn" -> in(field, values(value)).negate();
+            default -> throw new IllegalArgumentException("Unknown condition operator '" + operator + "' in " + key);
+        };
+        return new Condition(fieldName, key + "=" + value, predicate);
+    }
+
+    static boolean isPattern(String key) {
+        return key.endsWith(".matches");
+    }
+
+    static Function<Product, String> field(String name) {
+        return switch (name) {
+            case "rpc" -> Product::getRpc;
+            case "clientId" -> Product::getClientId;
+            case "retailer" -> Product::getRetailer;
+            case "brand" -> Product::getBrand;
+            case "category" -> Product::getCategory;
+            default -> attribute(name.startsWith(ATTRIBUTE_PREFIX) ? name.substring(ATTRIBUTE_PREFIX.length()) : name);
+        };
+    }
+
+    private static Function<Product, String> attribute(String name) {
+        return new AttributeRef(name)::get;
+    }
+
+    private static Predicate<Product> required(Function<Product, String> field, boolean required) {
+        if (!required) {
+            return product -> true;
+        }
+        return product -> {
+            String value = field.apply(product);
+            return value != null && !value.isBlank();
+        };
+    }
+
+    private static Predicate<Product> length(Function<Product, String> field, Bounds bounds) {
+        return product -> {
+            String value = field.apply(product);
+            return value != null && bounds.contains(value.length());
+        };
+    }
+
+    private static Predicate<Product> range(Function<Product, String> field, Bounds bounds) {
+        return product -> {
+            String value = field.apply(product);
+            if (value == null) {
+                return false;
+            }
+            try {
+                return bounds.contains(Double.parseDouble(value.trim()));
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        };
+    }
+
+    private static Predicate<Product> matches(Function<Product, String> field, Pattern pattern) {
+        return product -> {
+            String value = field.apply(product);
+            return value != null && pattern.matcher(new InterruptibleCharSequence(value)).matches();
+        };
+    }
+
+    private static Predicate<Product> in(Function<Product, String> field, Set<String> values) {
+        return product -> {
+            String value = field.apply(product);
+            return value != null && values.contains(value);
+        };
+    }
+
+    private static Set<String> values(String list) {
+        return Arrays.stream(list.split(","))
+                .map(String::trim)
+                .filter(value -> !value.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    private record Bounds(double min, double max) {
+
+        static Bounds parse(String key, String value) {
+            int separator = value.indexOf("..");
+            if (separator < 0) {
+                throw new IllegalArgumentException("Bounds must be written as min..max in " + key + ": " + value);
+            }
+            try {
+                String min = value.substring(0, separator).trim();
+                String max = value.substring(separator + 2).trim();
+                return new Bounds(min.isEmpty() ? Double.NEGATIVE_INFINITY : Double.parseDouble(min),
+                        max.isEmpty() ? Double.POSITIVE_INFINITY : Double.parseDouble(max));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid bounds in " + key + ": " + value, e);
+            }
+        }
+
+        boolean contains(double value) {
+            return value >= min && value <= max;
+        }
+    }
+
+    // Backtracking reads the input through charAt, which makes it the one place a match can be stopped
+    private record InterruptibleCharSequence(String value) implements CharSequence {
+
+        @Override
+        public char charAt(int index) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new RuleExecutionException(RuleGuard.Rejection.TIMEOUT, "Pattern match interrupted", null);
+            }
+            return value.charAt(index);
+        }
+
+        @Override
+        public int length() {
+            return value.length();
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new InterruptibleCharSequence(value.substring(start, end));
+        }
+
+        @Override
+        public String toString() {
+            return value;
+        }
+    }
+}
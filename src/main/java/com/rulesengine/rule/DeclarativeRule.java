@@ -0,0 +1,110 @@
+package com.rulesengine.rule;
+
+import com.rulesengine.model.Product;
+import com.rulesengine.model.RuleConfig;
+import com.rulesengine.model.RuleResult;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Rule defined entirely by its {@link RuleConfig}, so new checks can be added in Redis without a deploy.
+ * <p>
+ * A config is declarative when its parameters contain {@code type=declarative}. Every other parameter key
+ * containing a dot is a condition (see {@link ConditionCompiler}); all conditions must hold for the rule to
+ * pass. An optional {@code message} parameter replaces the default error message. Conditions are compiled
+ * once per config, in key order, with regex patterns precompiled.
+ */
+public final class DeclarativeRule implements Rule {
+
+    public static final String TYPE_PARAMETER = "type";
+    public static final String DECLARATIVE_TYPE = "declarative";
+    public static final String MESSAGE_PARAMETER = "message";
+
+    private final String name;
+    private final RuleConfig config;
+    private final Condition[] conditions;
+    private final String message;
+    private final boolean patterns;
+
+    private DeclarativeRule(String name, RuleConfig config, Condition[] conditions, String message, boolean patterns) {
+        this.name = name;
+        this.config = config;
+        this.conditions = conditions;
+        this.message = message;
+        this.patterns = patterns;
+    }
+
+    public static boolean isDeclarative(RuleConfig config) {
+        return config != null && config.getParameters() != null
+                && DECLARATIVE_TYPE.equalsIgnoreCase(config.getParameters().get(TYPE_PARAMETER));
+    }
+
+    public static DeclarativeRule compile(String name, RuleConfig config) {
+        List<Condition> conditions = new ArrayList<>();
+        boolean patterns = false;
+        for (Map.Entry<String, String> entry : new TreeMap<>(config.getParameters()).entrySet()) {
+            if (entry.getKey().indexOf('.') > 0) {
+                conditions.add(ConditionCompiler.compile(entry.getKey(), entry.getValue()));
+                patterns |= ConditionCompiler.isPattern(entry.getKey());
+            }
+        }
+        if (conditions.isEmpty()) {
+            throw new IllegalArgumentException("Declarative rule " + name + " has no conditions");
+        }
+        return new DeclarativeRule(name, config, conditions.toArray(new Condition[0]),
+                config.getParameters().get(MESSAGE_PARAMETER), patterns);
+    }
+
+    @Override
+    public RuleResult apply(Product product, RuleParameters parameters) {
+        Condition failed = null;
+        for (Condition condition : conditions) {
+            if (!condition.test(product)) {
+                failed = condition;
+                break;
+            }
+        }
+        boolean passed = failed == null;
+
+        return RuleResult.builder()
+                .messageId(product.getMessageId())
+                .reportDate(LocalDate.now().toString())
+                .onlineStore(product.getRetailer())
+                .rpc(product.getRpc())
+                .customerId(product.getClientId())
+                .ruleName(name)
+                .rulePassed(passed)
+                .ruleScore(passed ? 1.0 : 0.0)
+                .errorMessage(passed ? "" : message != null ? message : "Condition not met: " + failed.expression())
+                .build();
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    // Source config, used to reuse the compiled rule until the config changes
+    public RuleConfig getConfig() {
+        return config;
+    }
+
+    @Override
+    public List<String> getInputFields() {
+        return Arrays.stream(conditions).map(Condition::field).distinct().toList();
+    }
+
+    public List<Condition> getConditions() {
+        return List.of(conditions);
+    }
+
+    // Whether any condition is a regex, whose matching time on a hostile value has no useful bound
+    public boolean hasPatternConditions() {
+        return patterns;
+    }
+}
@@ -0,0 +1,86 @@
+package com.rulesengine.rule;
+
+import com.rulesengine.model.Product;
+import com.rulesengine.model.RuleConfig;
+import com.rulesengine.model.TableSchema;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 64-bit FNV-1a fingerprint of a rule's config and the product fields it reads.
+ * <p>
+ * Rules that do not declare their input fields are fingerprinted over the whole product; that hash is
+ * independent of the rule and is computed once per product by {@link #ofProduct}.
+ */
+final class InputFingerprint {
+
+    private static final long OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long PRIME = 0x100000001b3L;
+
+    private final long configHash;
+    private final Function<Product, String>[] fields;
+
+    private InputFingerprint(long configHash, Function<Product, String>[] fields) {
+        this.configHash = configHash;
+        this.fields = fields;
+    }
+
+    @SuppressWarnings("unchecked")
+    static InputFingerprint forRule(Rule rule, RuleConfig config) {
+        long configHash = hash(hash(OFFSET_BASIS, rule.getName()), config.toString());
+        List<String> inputFields = rule.getInputFields();
+        if (inputFields == null) {
+            return new InputFingerprint(configHash, null);
+        }
+        Function<Product, String>[] fields = new Function[inputFields.size()];
+        for (int i = 0; i < fields.length; i++) {
+            fields[i] = ConditionCompiler.field(inputFields.get(i));
+        }
+        return new InputFingerprint(configHash, fields);
+    }
+
+    boolean readsWholeProduct() {
+        return fields == null;
+    }
+
+    long compute(Product product) {
+        long hash = configHash;
+        for (Function<Product, String> field : fields) {
+            hash = hash(hash, field.apply(product));
+        }
+        return hash;
+    }
+
+    long combine(long productHash) {
+        return (configHash ^ productHash) * PRIME;
+    }
+
+    static long ofProduct(Product product) {
+        long hash = hash(OFFSET_BASIS, product.getClientId());
+        hash = hash(hash, product.getRetailer());
+        hash = hash(hash, product.getBrand());
+        hash = hash(hash, product.getCategory());
+        // Summed per entry so the result does not depend on the map's iteration order
+        long attributes = 0;
+        TableSchema schema = product.getSchema();
+        if (schema != null) {
+            String[] values = product.getAttributeValues();
+            for (int i = 0; i < values.length; i++) {
+                attributes += hash(hash(OFFSET_BASIS, schema.attributeName(i)), values[i]);
+            }
+        }
+        return (hash ^ attributes) * PRIME;
+    }
+
+    private static long hash(long hash, String value) {
+        if (value == null) {
+            return (hash ^ 0xffL) * PRIME;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * PRIME;
+        }
+        // Length terminator keeps ("ab", "c") and ("a", "bc") apart
+        return (hash ^ (value.length() + 0x100L)) * PRIME;
+    }
+}
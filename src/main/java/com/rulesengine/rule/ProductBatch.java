@@ -0,0 +1,55 @@
+package com.rulesengine.rule;
+
+import com.rulesengine.model.Product;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Column-oriented view of a chunk of products for {@link BatchRule}s. Fields are named as in declarative
+ * conditions; a column is extracted on first use and shared by every batch rule of the plan.
+ * Not thread-safe: a batch belongs to the thread evaluating it.
+ */
+public final class ProductBatch {
+
+    private final List<Product> products;
+    private final Map<String, String[]> columns = new HashMap<>();
+    private final Map<String, int[]> lengths = new HashMap<>();
+
+    public ProductBatch(List<Product> products) {
+        this.products = products;
+    }
+
+    public int size() {
+        return products.size();
+    }
+
+    public Product get(int row) {
+        return products.get(row);
+    }
+
+    public String[] column(String field) {
+        return columns.computeIfAbsent(field, f -> {
+            Function<Product, String> accessor = ConditionCompiler.field(f);
+            String[] values = new String[products.size()];
+            for (int row = 0; row < values.length; row++) {
+                values[row] = accessor.apply(products.get(row));
+            }
+            return values;
+        });
+    }
+
+    // Length of each value of the field, -1 where it is null
+    public int[] lengths(String field) {
+        return lengths.computeIfAbsent(field, f -> {
+            String[] values = column(f);
+            int[] result = new int[values.length];
+            for (int row = 0; row < values.length; row++) {
+                result[row] = values[row] == null ? -1 : values[row].length();
+            }
+            return result;
+        });
+    }
+}
@@ -0,0 +1,162 @@
+package com.rulesengine.rule;
+
+import com.rulesengine.model.Product;
+import com.rulesengine.model.RuleResult;
+import com.rulesengine.util.NearCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Previous outcome of each (client, rpc, rule) with the fingerprint of the inputs it was computed from.
+ * <p>
+ * When a product is re-run with the same rule config and the same values in the fields the rule reads,
+ * the stored outcome is re-emitted as a result for the new message and report date instead of evaluating
+ * the rule. Only the pass flag, score and a code for the error message are kept per entry; error messages
+ * are shared through a capped table, and results whose message does not fit in it are not remembered.
+ * <p>
+ * The store is an LRU bounded by {@code rules.incremental.max-size}, striped so concurrent evaluation
+ * threads rarely share a lock. A re-run visits a catalog in the same order as the previous run, so a
+ * catalog larger than the store evicts every entry just before it is needed again and nothing is reused:
+ * size the store for every product times every rule of the catalogs re-run within the TTL, at roughly
+ * 200 bytes of heap per entry, or leave it disabled.
+ */
+@Component
+public class ResultFingerprintStore implements MeterBinder {
+
+    private static final int STRIPES = 16;
+    private static final int MAX_ERROR_MESSAGES = 4096;
+    private static final int NULL_MESSAGE = -1;
+    private static final int TABLE_FULL = -2;
+
+    private final boolean enabled;
+    private final NearCache<Key, Entry>[] stripes;
+    private final ConcurrentHashMap<String, Integer> errorCodes = new ConcurrentHashMap<>();
+    private final AtomicReferenceArray<String> errorMessages = new AtomicReferenceArray<>(MAX_ERROR_MESSAGES);
+
+    private final LongAdder reused = new LongAdder();
+    private final LongAdder changed = new LongAdder();
+    private final LongAdder absent = new LongAdder();
+
+    @SuppressWarnings("unchecked")
+    public ResultFingerprintStore(@Value("${rules.incremental.enabled:false}") boolean enabled,
+                                  @Value("${rules.incremental.max-size:1000000}") int maxSize,
+                                  @Value("${rules.incremental.ttl-ms:129600000}") long ttlMs) {
+        this.enabled = enabled;
+        this.stripes = new NearCache[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new NearCache<>(Math.max(1, maxSize / STRIPES), ttlMs);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns the stored result re-addressed to {@code product}, or null when the inputs changed.
+     */
+    public RuleResult reuse(Product product, String ruleName, long fingerprint) {
+        Key key = new Key(product.getClientId(), product.getRpc(), ruleName);
+        Entry entry = stripe(key).getIfPresent(key);
+        if (entry == null) {
+            absent.increment();
+            return null;
+        }
+        if (entry.fingerprint() != fingerprint) {
+            changed.increment();
+            return null;
+        }
+        reused.increment();
+        return RuleResult.builder()
+                .messageId(product.getMessageId())
+                .reportDate(LocalDate.now().toString())
+                .onlineStore(product.getRetailer())
+                .rpc(product.getRpc())
+                .customerId(product.getClientId())
+                .ruleName(ruleName)
+                .rulePassed(entry.passed())
+                .ruleScore(entry.score())
+                .errorMessage(errorMessage(entry.errorCode()))
+                .build();
+    }
+
+    public RuleResult remember(Product product, String ruleName, long fingerprint, RuleResult result) {
+        int errorCode = errorCode(result.getErrorMessage());
+        if (errorCode != TABLE_FULL) {
+            Key key = new Key(product.getClientId(), product.getRpc(), ruleName);
+            stripe(key).put(key, new Entry(fingerprint, result.isRulePassed(), result.getRuleScore(), errorCode));
+        }
+        return result;
+    }
+
+    private int errorCode(String message) {
+        if (message == null) {
+            return NULL_MESSAGE;
+        }
+        Integer code = errorCodes.get(message);
+        if (code != null) {
+            return code;
+        }
+        synchronized (errorCodes) {
+            code = errorCodes.get(message);
+            if (code == null) {
+                if (errorCodes.size() >= MAX_ERROR_MESSAGES) {
+                    return TABLE_FULL;
+                }
+                code = errorCodes.size();
+                // Published before the code, so any entry holding the code can resolve it
+                errorMessages.set(code, message);
+                errorCodes.put(message, code);
+            }
+            return code;
+        }
+    }
+
+    private String errorMessage(int code) {
+        return code == NULL_MESSAGE ? null : errorMessages.get(code);
+    }
+
+    public void invalidateAll() {
+        for (NearCache<Key, Entry> stripe : stripes) {
+            stripe.invalidateAll();
+        }
+    }
+
+    private NearCache<Key, Entry> stripe(Key key) {
+        return stripes[(key.hashCode() & Integer.MAX_VALUE) % STRIPES];
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        lookups(registry, "reused", reused);
+        lookups(registry, "changed", changed);
+        lookups(registry, "absent", absent);
+        FunctionCounter.builder("rules.incremental.evictions", stripes, s -> Arrays.stream(s).mapToLong(NearCache::getEvictions).sum())
+                .register(registry);
+        Gauge.builder("rules.incremental.size", stripes, s -> Arrays.stream(s).mapToLong(NearCache::size).sum())
+                .register(registry);
+    }
+
+    private static void lookups(MeterRegistry registry, String outcome, LongAdder count) {
+        FunctionCounter.builder("rules.incremental.lookups", count, LongAdder::sum)
+                .description("Fingerprint lookups by outcome; reused results skip rule evaluation")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    private record Key(String clientId, String rpc, String ruleName) {
+    }
+
+    private record Entry(long fingerprint, boolean passed, double score, int errorCode) {
+    }
+}
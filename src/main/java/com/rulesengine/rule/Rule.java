@@ -3,9 +3,25 @@ package com.rulesengine.rule;
 import com.rulesengine.model.Product;
 import com.rulesengine.model.RuleResult;
 
+import java.util.List;
+
 public interface Rule {
-    RuleResult apply(Product product);
+
+    RuleResult apply(Product product, RuleParameters parameters);
+
+    // Name used in enabled_rules:* and rule_config:* keys
+    default String getName() {
+        return getClass().getSimpleName();
+    }
+
+    // Dimension filters from RuleConfig are resolved by the RulePlan; override for extra checks only
     default boolean isApplicable(Product product) {
+        return true;
+    }
 
+    // Product fields the rule reads (named as in declarative conditions), or null if it may read any field.
+    // Unchanged inputs let incremental evaluation reuse the previous result
+    default List<String> getInputFields() {
+        return null;
     }
 }
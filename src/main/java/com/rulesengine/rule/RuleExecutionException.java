@@ -0,0 +1,18 @@
+package com.rulesengine.rule;
+
+/**
+ * A rule did not produce a result: it failed, ran out of its time budget or was rejected by its guard.
+ */
+public class RuleExecutionException extends RuntimeException {
+
+    private final RuleGuard.Rejection rejection;
+
+    public RuleExecutionException(RuleGuard.Rejection rejection, String message, Throwable cause) {
+        super(message, cause);
+        this.rejection = rejection;
+    }
+
+    public RuleGuard.Rejection getRejection() {
+        return rejection;
+    }
+}
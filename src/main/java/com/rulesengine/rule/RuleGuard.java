@@ -0,0 +1,229 @@
+package com.rulesengine.rule;
+
+import com.rulesengine.metrics.RuleMeters;
+import com.rulesengine.model.Product;
+import com.rulesengine.model.RuleResult;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Time budget, bulkhead and circuit breaker of one rule, shared by every plan that uses the rule.
+ * <p>
+ * Rules run inline by default; an inline rule over its budget still returns its result but counts as a
+ * failure. The budget is only checked once an inline rule returns, so rules that can run unbounded (see
+ * {@link RuleGuardRegistry}) are isolated. Isolated rules run on the isolation executor behind a per-rule
+ * bulkhead and are abandoned and interrupted when the budget expires, so a hung rule can only ever hold its
+ * own bulkhead slots. After {@code failureThreshold} consecutive failures the circuit opens and the rule is
+ * skipped until a probe execution succeeds after the open interval. A full bulkhead rejects the execution
+ * without counting as a failure.
+ */
+public final class RuleGuard {
+
+    public enum Rejection {
+        TIMEOUT, CIRCUIT_OPEN, BULKHEAD_FULL, ERROR
+    }
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final String ruleName;
+    private final ExecutorService isolationExecutor;
+    private final Semaphore bulkhead;
+    private final int failureThreshold;
+    private final long openNanos;
+    private final RuleMeters meters;
+
+    private volatile long budgetNanos = Long.MAX_VALUE;
+    private volatile boolean isolated;
+
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicBoolean probeInFlight = new AtomicBoolean();
+    private volatile State state = State.CLOSED;
+    private volatile long openedAt;
+
+    RuleGuard(String ruleName, ExecutorService isolationExecutor, int bulkheadSize, int failureThreshold,
+              long openNanos, RuleMeters meters) {
+        this.ruleName = ruleName;
+        this.isolationExecutor = isolationExecutor;
+        this.bulkhead = new Semaphore(bulkheadSize);
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openNanos;
+        this.meters = meters;
+    }
+
+    // Runs rules inline without a budget or breaker
+    public static RuleGuard unguarded(String ruleName) {
+        return new RuleGuard(ruleName, null, Integer.MAX_VALUE, Integer.MAX_VALUE, 0, RuleMeters.NOOP);
+    }
+
+    void configure(long budgetNanos, boolean isolated) {
+        this.budgetNanos = budgetNanos;
+        this.isolated = isolated && isolationExecutor != null;
+    }
+
+    public RuleResult execute(Rule rule, Product product, RuleParameters parameters) {
+        boolean probe = admit();
+        try {
+            return isolated ? executeIsolated(rule, product, parameters) : executeInline(rule, product, parameters);
+        } finally {
+            if (probe) {
+                probeInFlight.set(false);
+            }
+        }
+    }
+
+    /**
+     * Runs a batch rule inline over a whole batch. The breaker and the time budget treat the batch as a
+     * single execution; isolated rules are evaluated per product instead.
+     */
+    public void executeBatch(BatchRule rule, ProductBatch batch, RuleParameters parameters, BatchOutcome outcome) {
+        boolean probe = admit();
+        try {
+            long start = System.nanoTime();
+            try {
+                rule.evaluate(batch, parameters, outcome);
+            } catch (RuntimeException e) {
+                onFailure();
+                throw reject(Rejection.ERROR, "Rule " + ruleName + " failed: " + e.getMessage(), e);
+            }
+            if (System.nanoTime() - start > budgetNanos) {
+                meters.rejected("slow");
+                onFailure();
+            } else {
+                onSuccess();
+            }
+        } finally {
+            if (probe) {
+                probeInFlight.set(false);
+            }
+        }
+    }
+
+    // Returns whether this execution is the half-open probe; throws while the circuit is open
+    private boolean admit() {
+        if (state == State.CLOSED) {
+            return false;
+        }
+        if (!tryProbe()) {
+            throw reject(Rejection.CIRCUIT_OPEN, "Rule " + ruleName + " skipped: circuit open", null);
+        }
+        return true;
+    }
+
+    private RuleResult executeInline(Rule rule, Product product, RuleParameters parameters) {
+        long start = System.nanoTime();
+        RuleResult result;
+        try {
+            result = rule.apply(product, parameters);
+        } catch (RuntimeException e) {
+            onFailure();
+            throw reject(Rejection.ERROR, "Rule " + ruleName + " failed: " + e.getMessage(), e);
+        }
+        if (System.nanoTime() - start > budgetNanos) {
+            // Too late to abandon, so keep the result but let repeated overruns open the circuit
+            meters.rejected("slow");
+            onFailure();
+        } else {
+            onSuccess();
+        }
+        return result;
+    }
+
+    private RuleResult executeIsolated(Rule rule, Product product, RuleParameters parameters) {
+        if (!bulkhead.tryAcquire()) {
+            // Saturation says nothing about the rule's health, so it does not count toward the breaker
+            throw reject(Rejection.BULKHEAD_FULL, "Rule " + ruleName + " skipped: all isolated executions busy", null);
+        }
+        // Whoever claims the permit releases it: the task when it starts, or the caller when it cancels the
+        // task before it started, since a cancelled task that never ran has no finally to release it in
+        AtomicBoolean claimed = new AtomicBoolean();
+        Future<RuleResult> future;
+        try {
+            future = isolationExecutor.submit(() -> {
+                if (!claimed.compareAndSet(false, true)) {
+                    return null;
+                }
+                try {
+                    return rule.apply(product, parameters);
+                } finally {
+                    bulkhead.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            bulkhead.release();
+            throw reject(Rejection.ERROR, "Rule " + ruleName + " could not be scheduled", e);
+        }
+        try {
+            RuleResult result = future.get(budgetNanos, TimeUnit.NANOSECONDS);
+            onSuccess();
+            return result;
+        } catch (TimeoutException e) {
+            cancel(future, claimed);
+            onFailure();
+            throw reject(Rejection.TIMEOUT, "Rule " + ruleName + " timed out after "
+                    + TimeUnit.NANOSECONDS.toMillis(budgetNanos) + " ms", null);
+        } catch (ExecutionException e) {
+            onFailure();
+            throw reject(Rejection.ERROR, "Rule " + ruleName + " failed: " + e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            cancel(future, claimed);
+            Thread.currentThread().interrupt();
+            throw reject(Rejection.ERROR, "Rule " + ruleName + " interrupted", e);
+        }
+    }
+
+    private void cancel(Future<RuleResult> future, AtomicBoolean claimed) {
+        future.cancel(true);
+        if (claimed.compareAndSet(false, true)) {
+            bulkhead.release();
+        }
+    }
+
+    private RuleExecutionException reject(Rejection rejection, String message, Throwable cause) {
+        meters.rejected(rejection.name().toLowerCase());
+        return new RuleExecutionException(rejection, message, cause);
+    }
+
+    private boolean tryProbe() {
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openNanos) {
+            state = State.HALF_OPEN;
+        }
+        return state == State.HALF_OPEN && probeInFlight.compareAndSet(false, true);
+    }
+
+    private void onSuccess() {
+        consecutiveFailures.set(0);
+        if (state != State.CLOSED) {
+            state = State.CLOSED;
+        }
+    }
+
+    private void onFailure() {
+        if (state == State.HALF_OPEN || consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            openedAt = System.nanoTime();
+            state = State.OPEN;
+            consecutiveFailures.set(0);
+        }
+    }
+
+    public String getRuleName() {
+        return ruleName;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public boolean isIsolated() {
+        return isolated;
+    }
+}
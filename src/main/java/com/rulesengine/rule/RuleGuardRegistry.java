@@ -0,0 +1,79 @@
+package com.rulesengine.rule;
+
+import com.rulesengine.metrics.PipelineMetrics;
+import io.micrometer.core.instrument.Gauge;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One {@link RuleGuard} per rule name, kept across plan recompiles so breaker state survives config changes.
+ * <p>
+ * A rule's budget and isolation come from its {@code timeBudgetMs} and {@code isolated} parameters and
+ * default to {@code rules.guard.*}. Declarative rules with {@code matches} conditions are isolated unless
+ * their {@code isolated} parameter says otherwise: an inline rule is only measured after it returns, and a
+ * backtracking regex may never return. Running one inline is logged as a warning at every plan compile.
+ */
+@Slf4j
+@Component
+public class RuleGuardRegistry {
+
+    public static final String TIME_BUDGET_PARAMETER = "timeBudgetMs";
+    public static final String ISOLATED_PARAMETER = "isolated";
+
+    private final ExecutorService isolationExecutor;
+    private final PipelineMetrics metrics;
+    private final long defaultBudgetMs;
+    private final boolean isolateByDefault;
+    private final int bulkheadSize;
+    private final int failureThreshold;
+    private final long openMs;
+    private final ConcurrentHashMap<String, RuleGuard> guards = new ConcurrentHashMap<>();
+
+    public RuleGuardRegistry(@Qualifier("ruleIsolationExecutor") ExecutorService isolationExecutor,
+                             PipelineMetrics metrics,
+                             @Value("${rules.guard.time-budget-ms:100}") long defaultBudgetMs,
+                             @Value("${rules.guard.isolated:false}") boolean isolateByDefault,
+                             @Value("${rules.guard.bulkhead-size:4}") int bulkheadSize,
+                             @Value("${rules.guard.failure-threshold:20}") int failureThreshold,
+                             @Value("${rules.guard.open-ms:30000}") long openMs) {
+        this.isolationExecutor = isolationExecutor;
+        this.metrics = metrics;
+        this.defaultBudgetMs = defaultBudgetMs;
+        this.isolateByDefault = isolateByDefault;
+        this.bulkheadSize = bulkheadSize;
+        this.failureThreshold = failureThreshold;
+        this.openMs = openMs;
+    }
+
+    public RuleGuard guard(Rule rule, RuleParameters parameters) {
+        RuleGuard guard = guards.computeIfAbsent(rule.getName(), this::newGuard);
+        String isolatedParameter = parameters.getString(ISOLATED_PARAMETER);
+        boolean unbounded = rule instanceof DeclarativeRule declarative && declarative.hasPatternConditions();
+        boolean isolated = isolatedParameter == null
+                ? isolateByDefault || unbounded
+                : Boolean.parseBoolean(isolatedParameter);
+        guard.configure(TimeUnit.MILLISECONDS.toNanos(parameters.getLong(TIME_BUDGET_PARAMETER, defaultBudgetMs)),
+                isolated);
+        if (unbounded && !guard.isIsolated()) {
+            log.warn("Rule {} has matches conditions but runs inline: its time budget cannot stop a runaway pattern",
+                    rule.getName());
+        }
+        return guard;
+    }
+
+    private RuleGuard newGuard(String ruleName) {
+        RuleGuard guard = new RuleGuard(ruleName, isolationExecutor, bulkheadSize, failureThreshold,
+                TimeUnit.MILLISECONDS.toNanos(openMs), metrics.ruleMeters(ruleName));
+        Gauge.builder("rules.guard.circuit.open", guard, g -> g.getState() == RuleGuard.State.CLOSED ? 0 : 1)
+                .description("1 while the rule's circuit breaker is open or half-open")
+                .tag("rule", ruleName)
+                .register(metrics.getRegistry());
+        return guard;
+    }
+}
@@ -0,0 +1,75 @@
+package com.rulesengine.rule;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * RuleConfig parameters parsed once when the rule plan is compiled. Null-valued parameters are dropped, so
+ * they read as missing rather than failing the compilation of the client's whole plan.
+ */
+public final class RuleParameters {
+
+    public static final RuleParameters EMPTY = new RuleParameters(Map.of());
+
+    private final Map<String, String> values;
+    private final Map<String, Long> longValues = new HashMap<>();
+    private final Map<String, Double> doubleValues = new HashMap<>();
+
+    public RuleParameters(Map<String, String> values) {
+        Map<String, String> present = new HashMap<>();
+        if (values != null) {
+            values.forEach((name, value) -> {
+                if (name != null && value != null) {
+                    present.put(name, value);
+                }
+            });
+        }
+        this.values = Map.copyOf(present);
+        for (Map.Entry<String, String> entry : this.values.entrySet()) {
+            String value = entry.getValue().trim();
+            try {
+                longValues.put(entry.getKey(), Long.parseLong(value));
+            } catch (NumberFormatException ignored) {
+                // not an integer parameter
+            }
+            try {
+                doubleValues.put(entry.getKey(), Double.parseDouble(value));
+            } catch (NumberFormatException ignored) {
+                // not a numeric parameter
+            }
+        }
+    }
+
+    public String getString(String name) {
+        return values.get(name);
+    }
+
+    public Map<String, String> asMap() {
+        return values;
+    }
+
+    public int getInt(String name) {
+        return Math.toIntExact(getLong(name));
+    }
+
+    public long getLong(String name) {
+        Long value = longValues.get(name);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing or non-integer rule parameter: " + name);
+        }
+        return value;
+    }
+
+    public long getLong(String name, long defaultValue) {
+        Long value = longValues.get(name);
+        return value == null ? defaultValue : value;
+    }
+
+    public double getDouble(String name) {
+        Double value = doubleValues.get(name);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing or non-numeric rule parameter: " + name);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,370 @@
+package com.rulesengine.rule;
+
+import com.rulesengine.metrics.RuleMeters;
+import com.rulesengine.model.Dimension;
+import com.rulesengine.model.Product;
+import com.rulesengine.model.RuleConfig;
+import com.rulesengine.model.RuleResult;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Compiled set of enabled rules for one client.
+ * <p>
+ * {@code applicableTo} and {@code exclusions} are indexed per {@link Dimension} into value -> rule bitsets,
+ * so resolving the applicable rules for a product is one hash lookup and one bitset operation per
+ * constrained dimension, independent of how many rules the client has enabled. A dimension missing from
+ * {@code applicableTo} leaves the rule unrestricted on it; a dimension present with a null or empty value
+ * list matches no value, so the rule never applies.
+ */
+public final class RulePlan {
+
+    private final String clientId;
+    private final long version;
+    private final long compiledAt = System.currentTimeMillis();
+    private final Rule[] rules;
+    private final RuleParameters[] parameters;
+    private final RuleMeters[] meters;
+    private final RuleGuard[] guards;
+    private final InputFingerprint[] fingerprints;
+    private final BitSet allRules;
+    private final BitSet batchRules;
+    private final Map<Dimension, InclusionIndex> inclusions;
+    private final Map<Dimension, Map<String, BitSet>> exclusions;
+
+    private RulePlan(String clientId, long version, Rule[] rules, RuleParameters[] parameters, RuleMeters[] meters,
+                     RuleGuard[] guards, InputFingerprint[] fingerprints, Map<Dimension, InclusionIndex> inclusions,
+                     Map<Dimension, Map<String, BitSet>> exclusions) {
+        this.clientId = clientId;
+        this.version = version;
+        this.rules = rules;
+        this.parameters = parameters;
+        this.meters = meters;
+        this.guards = guards;
+        this.fingerprints = fingerprints;
+        this.allRules = new BitSet(rules.length);
+        this.allRules.set(0, rules.length);
+        this.batchRules = new BitSet(rules.length);
+        for (int i = 0; i < rules.length; i++) {
+            if (rules[i] instanceof BatchRule) {
+                batchRules.set(i);
+            }
+        }
+        this.inclusions = inclusions;
+        this.exclusions = exclusions;
+    }
+
+    public static RulePlan compile(String clientId, long version, List<Rule> rules, List<RuleConfig> configs) {
+        return compile(clientId, version, rules, configs, rule -> RuleMeters.NOOP);
+    }
+
+    public static RulePlan compile(String clientId, long version, List<Rule> rules, List<RuleConfig> configs,
+                                   Function<Rule, RuleMeters> meterResolver) {
+        return compile(clientId, version, rules, configs, meterResolver, (rule, parameters) -> RuleGuard.unguarded(rule.getName()));
+    }
+
+    public static RulePlan compile(String clientId, long version, List<Rule> rules, List<RuleConfig> configs,
+                                   Function<Rule, RuleMeters> meterResolver,
+                                   BiFunction<Rule, RuleParameters, RuleGuard> guardResolver) {
+        int size = rules.size();
+        Map<Dimension, Map<String, BitSet>> included = new EnumMap<>(Dimension.class);
+        Map<Dimension, BitSet> restricted = new EnumMap<>(Dimension.class);
+        Map<Dimension, Map<String, BitSet>> excluded = new EnumMap<>(Dimension.class);
+        RuleParameters[] parameters = new RuleParameters[size];
+        RuleMeters[] meters = new RuleMeters[size];
+        RuleGuard[] guards = new RuleGuard[size];
+        InputFingerprint[] fingerprints = new InputFingerprint[size];
+
+        for (int i = 0; i < size; i++) {
+            RuleConfig config = configs.get(i);
+            parameters[i] = new RuleParameters(config.getParameters());
+            meters[i] = meterResolver.apply(rules.get(i));
+            guards[i] = guardResolver.apply(rules.get(i), parameters[i]);
+            fingerprints[i] = InputFingerprint.forRule(rules.get(i), config);
+            if (config.getApplicableTo() != null) {
+                for (Map.Entry<Dimension, List<String>> entry : config.getApplicableTo().entrySet()) {
+                    restricted.computeIfAbsent(entry.getKey(), d -> new BitSet(size)).set(i);
+                    index(included, entry.getKey(), entry.getValue(), i, size);
+                }
+            }
+            if (config.getExclusions() != null) {
+                for (Map.Entry<Dimension, List<String>> entry : config.getExclusions().entrySet()) {
+                    index(excluded, entry.getKey(), entry.getValue(), i, size);
+                }
+            }
+        }
+
+        // A rule that does not restrict a dimension accepts every value of it, so fold the
+        // unrestricted rules into each value bitset once here instead of on every product
+        Map<Dimension, InclusionIndex> inclusions = new EnumMap<>(Dimension.class);
+        for (Map.Entry<Dimension, BitSet> entry : restricted.entrySet()) {
+            BitSet unrestricted = new BitSet(size);
+            unrestricted.set(0, size);
+            unrestricted.andNot(entry.getValue());
+
+            Map<String, BitSet> allowed = new HashMap<>();
+            for (Map.Entry<String, BitSet> value : included.getOrDefault(entry.getKey(), Map.of()).entrySet()) {
+                BitSet bits = (BitSet) value.getValue().clone();
+                bits.or(unrestricted);
+                allowed.put(value.getKey(), bits);
+            }
+            inclusions.put(entry.getKey(), new InclusionIndex(allowed, unrestricted));
+        }
+
+        return new RulePlan(clientId, version, rules.toArray(new Rule[0]), parameters, meters, guards,
+                fingerprints, inclusions, excluded);
+    }
+
+    private static void index(Map<Dimension, Map<String, BitSet>> target, Dimension dimension,
+                              List<String> values, int rule, int size) {
+        if (values == null) {
+            return;
+        }
+        Map<String, BitSet> byValue = target.computeIfAbsent(dimension, d -> new HashMap<>());
+        for (String value : values) {
+            byValue.computeIfAbsent(value, v -> new BitSet(size)).set(rule);
+        }
+    }
+
+    public BitSet applicableRules(Product product) {
+        BitSet applicable = (BitSet) allRules.clone();
+        for (Map.Entry<Dimension, InclusionIndex> entry : inclusions.entrySet()) {
+            applicable.and(entry.getValue().allowed(entry.getKey().extract(product)));
+            if (applicable.isEmpty()) {
+                return applicable;
+            }
+        }
+        for (Map.Entry<Dimension, Map<String, BitSet>> entry : exclusions.entrySet()) {
+            String value = entry.getKey().extract(product);
+            BitSet excluded = value == null ? null : entry.getValue().get(value);
+            if (excluded != null) {
+                applicable.andNot(excluded);
+            }
+        }
+        return applicable;
+    }
+
+    public List<RuleResult> evaluate(Product product) {
+        BitSet applicable = applicableRules(product);
+        List<RuleResult> results = new ArrayList<>(applicable.cardinality());
+        for (int i = applicable.nextSetBit(0); i >= 0; i = applicable.nextSetBit(i + 1)) {
+            if (rules[i].isApplicable(product)) {
+                results.add(apply(i, product));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Evaluates like {@link #evaluate(Product)}, but re-emits the stored result of every rule whose config
+     * and input fields are unchanged since the product was last evaluated.
+     */
+    public List<RuleResult> evaluate(Product product, ResultFingerprintStore store) {
+        if (!store.isEnabled()) {
+            return evaluate(product);
+        }
+        BitSet applicable = applicableRules(product);
+        List<RuleResult> results = new ArrayList<>(applicable.cardinality());
+        ProductHash productHash = new ProductHash(product);
+        for (int i = applicable.nextSetBit(0); i >= 0; i = applicable.nextSetBit(i + 1)) {
+            if (rules[i].isApplicable(product)) {
+                results.add(evaluateIncrementally(i, product, store, productHash));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Evaluates a chunk of this client's products, in the same result order as evaluating each product in
+     * turn. Each {@link BatchRule} runs once over the columns of the whole chunk and every other rule runs
+     * per product. Batch results bypass the fingerprint store: recomputing a column is cheaper than a
+     * lookup per row.
+     */
+    public List<RuleResult> evaluate(List<Product> products, ResultFingerprintStore store) {
+        int size = products.size();
+        if (batchRules.isEmpty() || size == 1) {
+            List<RuleResult> results = new ArrayList<>();
+            for (Product product : products) {
+                results.addAll(evaluate(product, store));
+            }
+            return results;
+        }
+
+        BitSet[] applicable = new BitSet[size];
+        BitSet used = new BitSet(rules.length);
+        for (int row = 0; row < size; row++) {
+            applicable[row] = applicableRules(products.get(row));
+            used.or(applicable[row]);
+        }
+        ProductBatch batch = new ProductBatch(products);
+        BatchOutcome[] outcomes = new BatchOutcome[rules.length];
+        RuleExecutionException[] failures = new RuleExecutionException[rules.length];
+        long[] rowNanos = new long[rules.length];
+        for (int i = batchRules.nextSetBit(0); i >= 0; i = batchRules.nextSetBit(i + 1)) {
+            // Isolated rules keep their per-product budget and bulkhead
+            if (!used.get(i) || guards[i].isIsolated()) {
+                continue;
+            }
+            BatchOutcome outcome = new BatchOutcome(size);
+            long start = System.nanoTime();
+            try {
+                guards[i].executeBatch((BatchRule) rules[i], batch, parameters[i], outcome);
+                outcomes[i] = outcome;
+            } catch (RuleExecutionException e) {
+                failures[i] = e;
+            }
+            rowNanos[i] = (System.nanoTime() - start) / size;
+        }
+
+        String reportDate = LocalDate.now().toString();
+        List<RuleResult> results = new ArrayList<>();
+        for (int row = 0; row < size; row++) {
+            Product product = products.get(row);
+            ProductHash productHash = new ProductHash(product);
+            for (int i = applicable[row].nextSetBit(0); i >= 0; i = applicable[row].nextSetBit(i + 1)) {
+                if (!rules[i].isApplicable(product)) {
+                    continue;
+                }
+                if (outcomes[i] != null) {
+                    RuleResult result = batchResult(i, product, reportDate, outcomes[i], row);
+                    meters[i].record(rowNanos[i], result.isRulePassed());
+                    results.add(result);
+                } else if (failures[i] != null) {
+                    results.add(errorResult(i, product, failures[i]));
+                } else {
+                    results.add(store.isEnabled() ? evaluateIncrementally(i, product, store, productHash) : apply(i, product));
+                }
+            }
+        }
+        return results;
+    }
+
+    private RuleResult evaluateIncrementally(int index, Product product, ResultFingerprintStore store, ProductHash productHash) {
+        long fingerprint = fingerprints[index].readsWholeProduct()
+                ? fingerprints[index].combine(productHash.get())
+                : fingerprints[index].compute(product);
+        String ruleName = rules[index].getName();
+        RuleResult result = store.reuse(product, ruleName, fingerprint);
+        if (result == null) {
+            // Error results are not remembered, so the rule runs again on the next evaluation
+            try {
+                result = store.remember(product, ruleName, fingerprint, execute(index, product));
+            } catch (RuleExecutionException e) {
+                result = errorResult(index, product, e);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Runs the rule through its guard. A rule that fails, times out or is rejected yields a failed
+     * result carrying the reason instead of an exception.
+     */
+    public RuleResult apply(int index, Product product) {
+        try {
+            return execute(index, product);
+        } catch (RuleExecutionException e) {
+            return errorResult(index, product, e);
+        }
+    }
+
+    private RuleResult execute(int index, Product product) {
+        long start = System.nanoTime();
+        RuleResult result = guards[index].execute(rules[index], product, parameters[index]);
+        meters[index].record(System.nanoTime() - start, result.isRulePassed());
+        return result;
+    }
+
+    private RuleResult batchResult(int index, Product product, String reportDate, BatchOutcome outcome, int row) {
+        boolean passed = outcome.isPassed(row);
+        return RuleResult.builder()
+                .messageId(product.getMessageId())
+                .reportDate(reportDate)
+                .onlineStore(product.getRetailer())
+                .rpc(product.getRpc())
+                .customerId(product.getClientId())
+                .ruleName(rules[index].getName())
+                .rulePassed(passed)
+                .ruleScore(outcome.scores()[row])
+                .errorMessage(passed ? "" : outcome.getFailureMessage())
+                .build();
+    }
+
+    private RuleResult errorResult(int index, Product product, RuleExecutionException e) {
+        return RuleResult.builder()
+                .messageId(product.getMessageId())
+                .reportDate(LocalDate.now().toString())
+                .onlineStore(product.getRetailer())
+                .rpc(product.getRpc())
+                .customerId(product.getClientId())
+                .ruleName(rules[index].getName())
+                .rulePassed(false)
+                .ruleScore(0.0)
+                .errorMessage(e.getMessage())
+                .build();
+    }
+
+    public String getClientId() {
+        return clientId;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public long getCompiledAt() {
+        return compiledAt;
+    }
+
+    public int size() {
+        return rules.length;
+    }
+
+    public Rule getRule(int index) {
+        return rules[index];
+    }
+
+    public RuleParameters getParameters(int index) {
+        return parameters[index];
+    }
+
+    public List<Rule> getRules() {
+        return List.of(rules);
+    }
+
+    // Whole-product input hash, computed at most once per product and only if a rule reads the whole product
+    private static final class ProductHash {
+
+        private final Product product;
+        private long hash;
+        private boolean computed;
+
+        ProductHash(Product product) {
+            this.product = product;
+        }
+
+        long get() {
+            if (!computed) {
+                hash = InputFingerprint.ofProduct(product);
+                computed = true;
+            }
+            return hash;
+        }
+    }
+
+    private record InclusionIndex(Map<String, BitSet> allowedByValue, BitSet unrestricted) {
+
+        BitSet allowed(String value) {
+            BitSet allowed = value == null ? null : allowedByValue.get(value);
+            return allowed != null ? allowed : unrestricted;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.rulesengine.rule;
+
+import com.rulesengine.model.AttributeRef;
+import com.rulesengine.model.Product;
+import com.rulesengine.model.RuleResult;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Component
+public class TitleLengthRule implements BatchRule {
+
+    private static final AttributeRef TITLE = new AttributeRef("title");
+    private static final String FAILURE_MESSAGE = "Title length is not within the specified range";
+
+    @Override
+    public RuleResult apply(Product product, RuleParameters parameters) {
+        String title = TITLE.get(product);
+        int minLength = parameters.getInt("minLength");
+        int maxLength = parameters.getInt("maxLength");
+
+        boolean passed = title != null && title.length() >= minLength && title.length() <= maxLength;
+        double score = passed ? 1.0 : 0.0;
+        String errorMessage = passed ? "" : FAILURE_MESSAGE;
+
+        return RuleResult.builder()
+                .messageId(product.getMessageId())
+                .reportDate(LocalDate.now().toString())
+                .onlineStore(product.getRetailer())
+                .rpc(product.getRpc())
+                .customerId(product.getClientId())
+                .ruleName(getName())
+                .rulePassed(passed)
+                .ruleScore(score)
+                .errorMessage(errorMessage)
+                .build();
+    }
+
+    // A null title has length -1; clamping the minimum to 0 fails it for every minimum, as in apply
+    @Override
+    public void evaluate(ProductBatch batch, RuleParameters parameters, BatchOutcome outcome) {
+        ColumnKernels.within(batch.lengths("title"), batch.size(), Math.max(parameters.getInt("minLength"), 0),
+                parameters.getInt("maxLength"), outcome.passedWords());
+        ColumnKernels.scores(outcome.passedWords(), batch.size(), 1.0, 0.0, outcome.scores());
+        outcome.setFailureMessage(FAILURE_MESSAGE);
+    }
+
+    @Override
+    public List<String> getInputFields() {
+        return List.of("title");
+    }
+}
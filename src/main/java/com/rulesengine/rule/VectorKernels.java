@@ -0,0 +1,31 @@
+package com.rulesengine.rule;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD versions of the {@link ColumnKernels}; only loaded when {@code jdk.incubator.vector} is present.
+ */
+final class VectorKernels {
+
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+
+    private VectorKernels() {
+    }
+
+    // Lane counts are powers of two up to 16, so a vector's mask bits never straddle two bitmap words
+    static void within(int[] values, int size, int min, int max, long[] passed) {
+        int lanes = INTS.length();
+        int bound = INTS.loopBound(size);
+        int row = 0;
+        for (; row < bound; row += lanes) {
+            IntVector vector = IntVector.fromArray(INTS, values, row);
+            VectorMask<Integer> inRange = vector.compare(VectorOperators.GE, min)
+                    .and(vector.compare(VectorOperators.LE, max));
+            passed[row >>> 6] |= inRange.toLong() << (row & 63);
+        }
+        ColumnKernels.withinScalar(values, row, size, min, max, passed);
+    }
+}
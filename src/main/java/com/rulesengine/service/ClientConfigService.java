@@ -1,24 +1,153 @@
 package com.rulesengine.service;
 
+import com.rulesengine.metrics.PipelineMetrics;
+import com.rulesengine.model.RuleConfig;
+import com.rulesengine.rule.DeclarativeRule;
 import com.rulesengine.rule.Rule;
+import com.rulesengine.rule.RuleGuardRegistry;
+import com.rulesengine.rule.RulePlan;
 import com.rulesengine.util.RuleConfigurationLoader;
-import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
+@Slf4j
 @Service
-@RequiredArgsConstructor
 public class ClientConfigService {
 
-    private final List<Rule> allRules;
+    private final Map<String, Rule> rulesByName;
     private final RuleConfigurationLoader ruleConfigurationLoader;
+    private final PipelineMetrics metrics;
+    private final RuleGuardRegistry ruleGuards;
+    private final ConcurrentHashMap<String, RulePlan> rulePlans = new ConcurrentHashMap<>();
+    // One compile in flight per client; other callers serve the previous plan or wait for it
+    private final ConcurrentHashMap<String, CompletableFuture<RulePlan>> compiling = new ConcurrentHashMap<>();
+    // Clients whose last compile failed, and until when their stale plan is served without retrying
+    private final ConcurrentHashMap<String, Long> retryAfter = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, DeclarativeRule> declarativeRules = new ConcurrentHashMap<>();
+
+    @Value("${rules.plan.ttl-ms:60000}")
+    private long planTtlMs;
+
+    @Value("${rules.plan.retry-ms:5000}")
+    private long planRetryMs;
+
+    public ClientConfigService(List<Rule> allRules, RuleConfigurationLoader ruleConfigurationLoader, PipelineMetrics metrics,
+                               RuleGuardRegistry ruleGuards) {
+        this.rulesByName = allRules.stream().collect(Collectors.toMap(Rule::getName, Function.identity()));
+        this.ruleConfigurationLoader = ruleConfigurationLoader;
+        this.metrics = metrics;
+        this.ruleGuards = ruleGuards;
+    }
 
     public List<Rule> getEnabledRules(String clientId) {
+        return getRulePlan(clientId).getRules();
+    }
+
+    /**
+     * Returns the client's plan, recompiling it when the configs changed or its TTL expired. The compile
+     * runs outside the plan map, once per client at a time; while it runs, and for {@code rules.plan.retry-ms}
+     * after it failed, callers keep getting the previous plan. Only a client without any plan waits for the
+     * compile or sees its failure.
+     */
+    public RulePlan getRulePlan(String clientId) {
+        long version = ruleConfigurationLoader.getVersion();
+        RulePlan current = rulePlans.get(clientId);
+        if (isCurrent(current, version)) {
+            return current;
+        }
+        if (current != null && System.currentTimeMillis() < retryAfter.getOrDefault(clientId, 0L)) {
+            return current;
+        }
+        CompletableFuture<RulePlan> compile = new CompletableFuture<>();
+        CompletableFuture<RulePlan> running = compiling.putIfAbsent(clientId, compile);
+        if (running != null) {
+            return current != null ? current : await(running);
+        }
+        try {
+            RulePlan plan = compilePlan(clientId, version);
+            // A compile that started from an older version never replaces a newer plan
+            RulePlan installed = rulePlans.merge(clientId, plan,
+                    (previous, compiled) -> previous.getVersion() > compiled.getVersion() ? previous : compiled);
+            retryAfter.remove(clientId);
+            compile.complete(installed);
+            return installed;
+        } catch (RuntimeException e) {
+            compile.completeExceptionally(e);
+            if (current == null) {
+                throw e;
+            }
+            retryAfter.put(clientId, System.currentTimeMillis() + planRetryMs);
+            log.warn("Could not recompile rule plan for client {}, keeping the plan of version {}: {}",
+                    clientId, current.getVersion(), e.getMessage(), e);
+            return current;
+        } finally {
+            compiling.remove(clientId, compile);
+        }
+    }
+
+    private static RulePlan await(CompletableFuture<RulePlan> compile) {
+        try {
+            return compile.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    // Plans are rebuilt when any config is invalidated, and after the TTL as a fallback for missed notifications
+    private boolean isCurrent(RulePlan plan, long version) {
+        return plan != null && plan.getVersion() == version
+                && System.currentTimeMillis() - plan.getCompiledAt() < planTtlMs;
+    }
+
+    private RulePlan compilePlan(String clientId, long version) {
         List<String> enabledRuleNames = ruleConfigurationLoader.getEnabledRules(clientId);
-        return allRules.stream()
-                .filter(rule -> enabledRuleNames.contains(rule.getClass().getSimpleName()))
-                .collect(Collectors.toList());
+        List<Rule> rules = new ArrayList<>();
+        List<RuleConfig> configs = new ArrayList<>();
+        if (enabledRuleNames != null) {
+            for (String ruleName : enabledRuleNames) {
+                RuleConfig config = ruleConfigurationLoader.loadConfig(ruleName);
+                Rule rule = resolveRule(ruleName, config);
+                if (rule == null || config == null) {
+                    log.warn("Skipping rule {} for client {}: no rule implementation or config found", ruleName, clientId);
+                    continue;
+                }
+                rules.add(rule);
+                configs.add(config);
+            }
+        }
+        log.debug("Compiled rule plan for client {} with {} rules", clientId, rules.size());
+        return RulePlan.compile(clientId, version, rules, configs, rule -> metrics.ruleMeters(rule.getName()),
+                ruleGuards::guard);
+    }
+
+    // Rule components take precedence; declarative rules are compiled once and shared by all plans until their config changes
+    private Rule resolveRule(String ruleName, RuleConfig config) {
+        Rule rule = rulesByName.get(ruleName);
+        if (rule != null || !DeclarativeRule.isDeclarative(config)) {
+            return rule;
+        }
+        DeclarativeRule compiled = declarativeRules.get(ruleName);
+        if (compiled != null && compiled.getConfig().equals(config)) {
+            return compiled;
+        }
+        try {
+            compiled = DeclarativeRule.compile(ruleName, config);
+        } catch (IllegalArgumentException e) {
+            log.error("Invalid declarative rule {}: {}", ruleName, e.getMessage());
+            declarativeRules.remove(ruleName);
+            return null;
+        }
+        declarativeRules.put(ruleName, compiled);
+        return compiled;
     }
 }
@@ -0,0 +1,35 @@
+package com.rulesengine.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+/**
+ * Re-publishes processing-complete notifications keyed by messageId, so each lands on the completion
+ * topic partition whose rule-results partition holds that job's results.
+ * <p>
+ * The payload is the messageId of the finished job, which is the source table name: {@link RPCProcessor}
+ * stamps it on every product it ingests. A notification carrying anything else never closes a job.
+ */
+@Slf4j
+@Service
+public class CompletionRouter {
+
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final String completionTopic;
+
+    public CompletionRouter(KafkaTemplate<String, Object> kafkaTemplate,
+                            @Value("${results.aggregation.completion-topic:processing-complete-by-message}") String completionTopic) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.completionTopic = completionTopic;
+    }
+
+    // Blocks until the routed record is acknowledged so the offset is only committed once it is durable
+    @KafkaListener(topics = "processing-complete", groupId = "result-completion-router-group")
+    public void routeCompletion(String messageId) {
+        kafkaTemplate.send(completionTopic, messageId, messageId).join();
+        log.debug("Routed completion of message {} to {}", messageId, completionTopic);
+    }
+}
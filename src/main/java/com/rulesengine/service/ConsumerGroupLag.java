@@ -0,0 +1,52 @@
+package com.rulesengine.service;
+
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.ListOffsetsResult;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Consumer group lag read through the admin client: records between the group's committed offsets and the
+ * end of each partition of a topic. Partitions without a committed offset are not counted.
+ */
+final class ConsumerGroupLag {
+
+    private static final long TIMEOUT_SECONDS = 10;
+
+    private ConsumerGroupLag() {
+    }
+
+    static long read(AdminClient adminClient, String groupId, String topic)
+            throws ExecutionException, InterruptedException, TimeoutException {
+        Map<TopicPartition, OffsetAndMetadata> committed = adminClient.listConsumerGroupOffsets(groupId)
+                .partitionsToOffsetAndMetadata().get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        Map<TopicPartition, OffsetSpec> latest = new HashMap<>();
+        committed.keySet().stream().filter(partition -> topic.equals(partition.topic()))
+                .forEach(partition -> latest.put(partition, OffsetSpec.latest()));
+        Map<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo> endOffsets =
+                adminClient.listOffsets(latest).all().get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+        long total = 0;
+        for (Map.Entry<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo> entry : endOffsets.entrySet()) {
+            OffsetAndMetadata offset = committed.get(entry.getKey());
+            if (offset != null) {
+                total += Math.max(0, entry.getValue().offset() - offset.offset());
+            }
+        }
+        return total;
+    }
+
+    static int partitionCount(AdminClient adminClient, String topic)
+            throws ExecutionException, InterruptedException, TimeoutException {
+        return adminClient.describeTopics(List.of(topic)).allTopicNames().get(TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                .get(topic).partitions().size();
+    }
+}
@@ -0,0 +1,70 @@
+package com.rulesengine.service;
+
+import com.rulesengine.util.FlowController;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Polls the rule-engine consumer group's lag on rpc-for-processing and signals backpressure to the
+ * ingest flow controller while it exceeds the configured maximum.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.role", havingValue = "rpc-listener")
+public class ConsumerLagMonitor implements MeterBinder, AutoCloseable {
+
+    private static final String TOPIC = "rpc-for-processing";
+    private static final String GROUP_ID = "rule-engine-group";
+
+    private final AdminClient adminClient;
+    private final FlowController flowController;
+    private final long maxLag;
+    private final AtomicLong lag = new AtomicLong();
+
+    public ConsumerLagMonitor(KafkaAdmin kafkaAdmin,
+                              @Qualifier("ingestFlowController") FlowController flowController,
+                              @Value("${rpc.ingest.flow.max-consumer-lag:100000}") long maxLag) {
+        this.adminClient = AdminClient.create(kafkaAdmin.getConfigurationProperties());
+        this.flowController = flowController;
+        this.maxLag = maxLag;
+    }
+
+    @Scheduled(fixedDelayString = "${rpc.ingest.flow.lag-check-interval-ms:5000}")
+    public void checkLag() {
+        try {
+            long total = ConsumerGroupLag.read(adminClient, GROUP_ID, TOPIC);
+            lag.set(total);
+            flowController.setBackpressure(total > maxLag);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            log.warn("Could not read lag of consumer group {}: {}", GROUP_ID, e.getMessage());
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("kafka.consumer.lag", lag, AtomicLong::get)
+                .description("Records of rpc-for-processing not yet consumed by the rule engine")
+                .tag("group", GROUP_ID)
+                .register(registry);
+    }
+
+    @Override
+    public void close() {
+        adminClient.close();
+    }
+}
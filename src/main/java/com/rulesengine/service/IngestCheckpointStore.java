@@ -0,0 +1,108 @@
+package com.rulesengine.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Per-partition ingestion checkpoints, kept in a table next to the source tables so any node can resume
+ * a partition another node was ingesting when it stopped.
+ * <p>
+ * A partition is ingested under a lease: {@link #claim} takes it when it is unowned, already held by the
+ * same owner, or its lease has expired, and checkpoints and renewals only apply while the caller still owns
+ * it. A partition redelivered to a second consumer therefore cannot be ingested twice at the same time.
+ * Lease expiry is computed from the node clocks, which must agree to well within the lease duration.
+ */
+@Component
+public class IngestCheckpointStore {
+
+    private static final Pattern TABLE_NAME = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*(\\.[A-Za-z_][A-Za-z0-9_]*)?");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String checkpointTable;
+    private volatile boolean initialized;
+
+    public IngestCheckpointStore(JdbcTemplate jdbcTemplate,
+                                 @Value("${rpc.ingest.checkpoint-table:rpc_ingest_checkpoints}") String checkpointTable) {
+        if (!TABLE_NAME.matcher(checkpointTable).matches()) {
+            throw new IllegalArgumentException("Invalid checkpoint table name: " + checkpointTable);
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.checkpointTable = checkpointTable;
+    }
+
+    public record Checkpoint(String lastRpc, long rowsRead, boolean completed) {
+    }
+
+    /**
+     * Claims the partition for {@code owner} until {@code leaseMs} from now. Completed partitions cannot be
+     * claimed.
+     */
+    public boolean claim(String tableName, int partition, String owner, long leaseMs) {
+        ensureTable();
+        jdbcTemplate.update("MERGE INTO " + checkpointTable + " AS target " +
+                        "USING (SELECT CAST(? AS VARCHAR(255)) AS table_name, CAST(? AS INT) AS partition_id) AS source " +
+                        "ON target.table_name = source.table_name AND target.partition_id = source.partition_id " +
+                        "WHEN NOT MATCHED THEN INSERT (table_name, partition_id, rows_read, completed, updated_at) " +
+                        "VALUES (source.table_name, source.partition_id, 0, FALSE, CURRENT_TIMESTAMP)",
+                tableName, partition);
+        long now = System.currentTimeMillis();
+        return jdbcTemplate.update("UPDATE " + checkpointTable + " SET lease_owner = ?, lease_until = ? " +
+                        "WHERE table_name = ? AND partition_id = ? AND completed = FALSE " +
+                        "AND (lease_owner IS NULL OR lease_owner = ? OR lease_until < ?)",
+                owner, new Timestamp(now + leaseMs), tableName, partition, owner, new Timestamp(now)) == 1;
+    }
+
+    // Extends the lease; false once another owner has taken the partition over
+    public boolean renew(String tableName, int partition, String owner, long leaseMs) {
+        ensureTable();
+        return jdbcTemplate.update("UPDATE " + checkpointTable + " SET lease_until = ? " +
+                        "WHERE table_name = ? AND partition_id = ? AND lease_owner = ?",
+                new Timestamp(System.currentTimeMillis() + leaseMs), tableName, partition, owner) == 1;
+    }
+
+    public void release(String tableName, int partition, String owner) {
+        ensureTable();
+        jdbcTemplate.update("UPDATE " + checkpointTable + " SET lease_owner = NULL, lease_until = NULL " +
+                "WHERE table_name = ? AND partition_id = ? AND lease_owner = ?", tableName, partition, owner);
+    }
+
+    public Checkpoint load(String tableName, int partition) {
+        ensureTable();
+        List<Checkpoint> checkpoints = jdbcTemplate.query(
+                "SELECT last_rpc, rows_read, completed FROM " + checkpointTable + " WHERE table_name = ? AND partition_id = ?",
+                (rs, rowNum) -> new Checkpoint(rs.getString(1), rs.getLong(2), rs.getBoolean(3)),
+                tableName, partition);
+        return checkpoints.isEmpty() ? null : checkpoints.get(0);
+    }
+
+    /**
+     * Saves the checkpoint and renews the lease if {@code owner} still holds it; false when the partition
+     * was taken over, in which case nothing is written.
+     */
+    public boolean save(String tableName, int partition, String owner, long leaseMs, Checkpoint checkpoint) {
+        ensureTable();
+        return jdbcTemplate.update("UPDATE " + checkpointTable + " SET last_rpc = ?, rows_read = ?, " +
+                        "completed = ?, lease_until = ?, updated_at = CURRENT_TIMESTAMP " +
+                        "WHERE table_name = ? AND partition_id = ? AND lease_owner = ?",
+                checkpoint.lastRpc(), checkpoint.rowsRead(), checkpoint.completed(),
+                new Timestamp(System.currentTimeMillis() + leaseMs), tableName, partition, owner) == 1;
+    }
+
+    private void ensureTable() {
+        if (!initialized) {
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + checkpointTable + " (" +
+                    "table_name VARCHAR(255) NOT NULL, partition_id INT NOT NULL, last_rpc VARCHAR(255), " +
+                    "rows_read BIGINT NOT NULL, completed BOOLEAN NOT NULL, updated_at TIMESTAMP, " +
+                    "lease_owner VARCHAR(255), lease_until TIMESTAMP, PRIMARY KEY (table_name, partition_id))");
+            // Tables created before partitions were leased
+            jdbcTemplate.execute("ALTER TABLE " + checkpointTable + " ADD COLUMN IF NOT EXISTS lease_owner VARCHAR(255)");
+            jdbcTemplate.execute("ALTER TABLE " + checkpointTable + " ADD COLUMN IF NOT EXISTS lease_until TIMESTAMP");
+            initialized = true;
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.rulesengine.service;
+
+import com.rulesengine.metrics.ListenerMeters;
+import com.rulesengine.metrics.PipelineMetrics;
+import com.rulesengine.util.BoundedExecutor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Adjusts the rule-engine listener to the backlog: the number of consumers of its container (up to the
+ * partition count) and the rule-evaluation worker parallelism.
+ * <p>
+ * Every interval it reads the consumer group lag and the listener's processing time and hands them to a
+ * {@link ScalingPolicy}. Changing the consumer count restarts the container, so decisions are spaced by a
+ * cooldown. Each pod scales its own container. The result aggregator is not scaled: it holds open jobs in
+ * local memory, and every restart of its container moves partitions and makes their new owners read the
+ * results of those jobs again.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "listeners.autoscale.enabled", havingValue = "true")
+public class ListenerConcurrencyController implements MeterBinder, AutoCloseable {
+
+    private final AdminClient adminClient;
+    private final KafkaListenerEndpointRegistry listenerRegistry;
+    private final MeterRegistry meterRegistry;
+    private final List<ScaledListener> listeners;
+
+    public ListenerConcurrencyController(KafkaAdmin kafkaAdmin,
+                                         KafkaListenerEndpointRegistry listenerRegistry,
+                                         @Qualifier("ruleEvaluationExecutor") BoundedExecutor ruleEvaluationExecutor,
+                                         PipelineMetrics metrics,
+                                         @Value("${listeners.autoscale.target-drain-ms:60000}") long targetDrainMs,
+                                         @Value("${listeners.autoscale.busy-high:0.75}") double busyHigh,
+                                         @Value("${listeners.autoscale.busy-low:0.25}") double busyLow,
+                                         @Value("${listeners.autoscale.cooldown-ms:60000}") long cooldownMs,
+                                         @Value("${listeners.autoscale.rule-engine.min-consumers:2}") int minConsumers,
+                                         @Value("${listeners.autoscale.rule-engine.max-consumers:24}") int maxConsumers,
+                                         @Value("${listeners.autoscale.rule-engine.min-workers:2}") int minWorkers,
+                                         @Value("${listeners.autoscale.rule-engine.max-workers:64}") int maxWorkers) {
+        this.adminClient = AdminClient.create(kafkaAdmin.getConfigurationProperties());
+        this.listenerRegistry = listenerRegistry;
+        this.meterRegistry = metrics.getRegistry();
+        ScalingPolicy policy = new ScalingPolicy(TimeUnit.MILLISECONDS.toNanos(targetDrainMs), busyHigh, busyLow,
+                TimeUnit.MILLISECONDS.toNanos(cooldownMs), minConsumers, maxConsumers, minWorkers, maxWorkers);
+        // Only one of the rule-engine containers runs, depending on rules.engine.listener-mode
+        this.listeners = List.of(
+                new ScaledListener(RuleEngine.RECORD_LISTENER_ID, "rule-engine-group", "rpc-for-processing",
+                        metrics.listenerMeters(RuleEngine.RECORD_LISTENER_ID), policy, ruleEvaluationExecutor),
+                new ScaledListener(RuleEngine.BATCH_LISTENER_ID, "rule-engine-group", "rpc-for-processing",
+                        metrics.listenerMeters(RuleEngine.BATCH_LISTENER_ID), policy, ruleEvaluationExecutor));
+    }
+
+    @Scheduled(initialDelayString = "${listeners.autoscale.interval-ms:15000}",
+            fixedDelayString = "${listeners.autoscale.interval-ms:15000}")
+    public void adjust() {
+        for (ScaledListener listener : listeners) {
+            MessageListenerContainer container = listenerRegistry.getListenerContainer(listener.id);
+            if (!(container instanceof ConcurrentMessageListenerContainer<?, ?> concurrent) || !concurrent.isRunning()) {
+                continue;
+            }
+            try {
+                listener.adjust(concurrent);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException | TimeoutException e) {
+                log.warn("Could not read lag of consumer group {}: {}", listener.groupId, e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (ScaledListener listener : listeners) {
+            Gauge.builder("kafka.listener.concurrency", listener, l -> l.consumers)
+                    .description("Consumers of the listener container")
+                    .tag("listener", listener.id)
+                    .register(registry);
+            Gauge.builder("kafka.listener.lag", listener, l -> l.lag)
+                    .description("Consumer group lag seen by the last scaling check")
+                    .tag("listener", listener.id)
+                    .register(registry);
+            Gauge.builder("kafka.listener.utilization", listener, l -> l.utilization)
+                    .description("Fraction of the last interval the listener's consumers spent processing")
+                    .tag("listener", listener.id)
+                    .register(registry);
+            Gauge.builder("kafka.listener.workers", listener.workers, BoundedExecutor::getMaxConcurrency)
+                    .description("Worker parallelism available to the listener")
+                    .tag("listener", listener.id)
+                    .register(registry);
+        }
+    }
+
+    @Override
+    public void close() {
+        adminClient.close();
+    }
+
+    private final class ScaledListener {
+
+        private final String id;
+        private final String groupId;
+        private final String topic;
+        private final ListenerMeters meters;
+        private final ScalingPolicy policy;
+        private final BoundedExecutor workers;
+        private final Map<String, Counter> decisions = new ConcurrentHashMap<>();
+
+        // Last sample, read by the gauges
+        private volatile int consumers;
+        private volatile long lag;
+        private volatile double utilization;
+        private long sampledAt;
+        private long sampledRecords;
+        private long sampledBusyNanos;
+        private double recordNanos = Double.NaN;
+        private long changedAt;
+
+        ScaledListener(String id, String groupId, String topic, ListenerMeters meters, ScalingPolicy policy,
+                       BoundedExecutor workers) {
+            this.id = id;
+            this.groupId = groupId;
+            this.topic = topic;
+            this.meters = meters;
+            this.policy = policy;
+            this.workers = workers;
+        }
+
+        void adjust(ConcurrentMessageListenerContainer<?, ?> container)
+                throws ExecutionException, InterruptedException, TimeoutException {
+            long now = System.nanoTime();
+            long previousLag = lag;
+            long records = meters.getRecords();
+            long busyNanos = meters.getBusyNanos();
+            consumers = container.getConcurrency();
+            lag = ConsumerGroupLag.read(adminClient, groupId, topic);
+
+            boolean firstSample = sampledAt == 0;
+            long processed = records - sampledRecords;
+            utilization = firstSample ? 0 : (busyNanos - sampledBusyNanos) / ((double) consumers * (now - sampledAt));
+            if (processed > 0) {
+                recordNanos = (busyNanos - sampledBusyNanos) / (double) processed;
+            }
+            sampledAt = now;
+            sampledRecords = records;
+            sampledBusyNanos = busyNanos;
+            if (firstSample) {
+                return;
+            }
+
+            int workerCount = workers.getMaxConcurrency();
+            ScalingPolicy.Sample sample = new ScalingPolicy.Sample(lag, previousLag, utilization, recordNanos, consumers,
+                    ConsumerGroupLag.partitionCount(adminClient, topic), workerCount, workers.getActiveCount() >= workerCount);
+            ScalingPolicy.Decision decision = policy.decide(sample, changedAt == 0 ? Long.MAX_VALUE : now - changedAt);
+            switch (decision.action()) {
+                case WORKERS_UP, WORKERS_DOWN -> setWorkers(decision.count(), decision.action());
+                case CONSUMERS_UP, CONSUMERS_DOWN -> setConsumers(container, decision.count(), decision.action());
+                case AT_LIMIT -> decision(decision.action());
+                case NONE -> {
+                }
+            }
+        }
+
+        private void setWorkers(int count, ScalingPolicy.Action action) {
+            log.info("Listener {}: lag {}, utilization {}, {} ns/record; worker parallelism {} -> {}",
+                    id, lag, String.format("%.2f", utilization), Math.round(recordNanos), workers.getMaxConcurrency(), count);
+            workers.setMaxConcurrency(count);
+            changed(action);
+        }
+
+        // The consumer count of a running container is fixed, so it is stopped and started with the new count
+        private void setConsumers(ConcurrentMessageListenerContainer<?, ?> container, int count, ScalingPolicy.Action action) {
+            log.info("Listener {}: lag {}, utilization {}, {} ns/record; consumers {} -> {}",
+                    id, lag, String.format("%.2f", utilization), Math.round(recordNanos), consumers, count);
+            container.stop();
+            container.setConcurrency(count);
+            container.start();
+            consumers = count;
+            changed(action);
+        }
+
+        private void changed(ScalingPolicy.Action action) {
+            changedAt = System.nanoTime();
+            // The restart and the new parallelism distort the next interval's utilization
+            sampledAt = changedAt;
+            sampledRecords = meters.getRecords();
+            sampledBusyNanos = meters.getBusyNanos();
+            decision(action);
+        }
+
+        private void decision(ScalingPolicy.Action action) {
+            decisions.computeIfAbsent(action.name().toLowerCase(), a -> Counter.builder("kafka.listener.scaling.decisions")
+                    .description("Scaling decisions taken by the listener concurrency controller")
+                    .tag("listener", id)
+                    .tag("action", a)
+                    .register(meterRegistry)).increment();
+        }
+    }
+}
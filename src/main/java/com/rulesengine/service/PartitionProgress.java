@@ -0,0 +1,128 @@
+package com.rulesengine.service;
+
+import com.rulesengine.model.RpcTablePartition;
+import com.rulesengine.service.IngestCheckpointStore.Checkpoint;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Tracks the batches of one leased partition in read order and checkpoints the rpc of the last batch for
+ * which it and every earlier batch have been sent; batches complete out of order on the ingest executor.
+ * A failed batch, or a checkpoint or renewal refused because the lease was taken over, fails the partition.
+ */
+@Slf4j
+final class PartitionProgress {
+
+    private final RpcTablePartition partition;
+    private final IngestCheckpointStore checkpointStore;
+    private final String owner;
+    private final long leaseMs;
+    private final Deque<Batch> pending = new ArrayDeque<>();
+    private Checkpoint checkpoint;
+    private long nextBatch;
+    private String failure;
+
+    PartitionProgress(RpcTablePartition partition, Checkpoint checkpoint, IngestCheckpointStore checkpointStore,
+                      String owner, long leaseMs) {
+        this.partition = partition;
+        this.checkpoint = checkpoint;
+        this.checkpointStore = checkpointStore;
+        this.owner = owner;
+        this.leaseMs = leaseMs;
+    }
+
+    synchronized String resumeFrom() {
+        return checkpoint.lastRpc();
+    }
+
+    synchronized Checkpoint checkpoint() {
+        return checkpoint;
+    }
+
+    synchronized boolean isFailed() {
+        return failure != null;
+    }
+
+    synchronized long submitted(String lastRpc, int rows) {
+        pending.addLast(new Batch(nextBatch, lastRpc, rows));
+        return nextBatch++;
+    }
+
+    synchronized void completed(long batchId, boolean sent) {
+        if (!sent) {
+            fail("batch sends failed");
+            return;
+        }
+        for (Batch batch : pending) {
+            if (batch.id == batchId) {
+                batch.done = true;
+                break;
+            }
+        }
+        long rows = checkpoint.rowsRead();
+        String lastRpc = checkpoint.lastRpc();
+        while (failure == null && !pending.isEmpty() && pending.peekFirst().done) {
+            Batch batch = pending.pollFirst();
+            rows += batch.rows;
+            lastRpc = batch.lastRpc;
+        }
+        if (rows != checkpoint.rowsRead()) {
+            save(new Checkpoint(lastRpc, rows, false));
+        }
+    }
+
+    synchronized void renew() {
+        if (failure == null && !checkpointStore.renew(partition.getTableName(), partition.getPartition(), owner, leaseMs)) {
+            fail("lease taken over");
+        }
+    }
+
+    synchronized void finish() {
+        if (failure == null && !pending.isEmpty()) {
+            fail("batch sends failed");
+        }
+        if (failure == null) {
+            save(new Checkpoint(checkpoint.lastRpc(), checkpoint.rowsRead(), true));
+        }
+        if (failure != null) {
+            throw failed();
+        }
+        log.info("Ingested partition {}/{} of table {} ({} rows)", partition.getPartition(),
+                partition.getPartitionCount(), partition.getTableName(), checkpoint.rowsRead());
+    }
+
+    synchronized IllegalStateException failed() {
+        return new IllegalStateException("Ingestion of partition " + partition.getPartition() + " of table "
+                + partition.getTableName() + " stopped: " + failure);
+    }
+
+    private void save(Checkpoint next) {
+        if (checkpointStore.save(partition.getTableName(), partition.getPartition(), owner, leaseMs, next)) {
+            checkpoint = next;
+        } else {
+            fail("lease taken over");
+        }
+    }
+
+    private void fail(String reason) {
+        if (failure == null) {
+            failure = reason;
+        }
+    }
+
+    private static final class Batch {
+
+        private final long id;
+        private final String lastRpc;
+        private final int rows;
+        private boolean done;
+
+        Batch(long id, String lastRpc, int rows) {
+            this.id = id;
+            this.lastRpc = lastRpc;
+            this.rows = rows;
+        }
+    }
+}
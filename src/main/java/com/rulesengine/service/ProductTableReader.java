@@ -0,0 +1,165 @@
+package com.rulesengine.service;
+
+import com.rulesengine.model.Product;
+import com.rulesengine.model.TableSchema;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Streams a source RPC table in keyset-paginated batches ordered by {@code rpc}.
+ * <p>
+ * Each page is {@code WHERE rpc > :lastRpc ORDER BY rpc LIMIT :batchSize}, so every page costs an index
+ * range scan regardless of how deep into the table it is. {@code rpc} is expected to be unique and indexed.
+ * Large tables are split into rpc ranges with {@link #splitPoints} and each range is read independently.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProductTableReader {
+
+    private static final Pattern TABLE_NAME = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*(\\.[A-Za-z_][A-Za-z0-9_]*)?");
+    private static final Set<String> PRODUCT_COLUMNS = Set.of("rpc", "client_id", "retailer", "brand", "category");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Reads the table from the row after {@code fromRpc} (or the start when null), handing each batch
+     * to {@code sink} on the calling thread. Returns the number of rows read.
+     */
+    public long read(String tableName, String fromRpc, int batchSize, Consumer<List<Product>> sink) {
+        return read(tableName, fromRpc, null, batchSize, sink);
+    }
+
+    /**
+     * Reads the rows with {@code fromRpc < rpc <= toRpc}; a null bound leaves that side of the range open.
+     */
+    public long read(String tableName, String fromRpc, String toRpc, int batchSize, Consumer<List<Product>> sink) {
+        validate(tableName);
+        RowMapper<Product> rowMapper = resolveColumns(tableName).rowMapper();
+        String upperBound = toRpc == null ? "" : " AND rpc <= ?";
+        String firstPage = "SELECT * FROM " + tableName + " WHERE 1 = 1" + upperBound + " ORDER BY rpc LIMIT ?";
+        String nextPage = "SELECT * FROM " + tableName + " WHERE rpc > ?" + upperBound + " ORDER BY rpc LIMIT ?";
+
+        String lastRpc = fromRpc;
+        long rows = 0;
+        while (true) {
+            List<Product> products = lastRpc == null
+                    ? jdbcTemplate.query(firstPage, rowMapper, pageArgs(null, toRpc, batchSize))
+                    : jdbcTemplate.query(nextPage, rowMapper, pageArgs(lastRpc, toRpc, batchSize));
+            if (products.isEmpty()) {
+                break;
+            }
+            rows += products.size();
+            lastRpc = products.get(products.size() - 1).getRpc();
+            sink.accept(products);
+            if (products.size() < batchSize) {
+                break;
+            }
+        }
+        log.info("Read {} rows from table {} in range ({}, {}]", rows, tableName, fromRpc, toRpc);
+        return rows;
+    }
+
+    /**
+     * Splits the table into up to {@code partitions} rpc ranges of roughly equal row counts, returning the
+     * inclusive upper bound of every range but the last. Costs one ordered scan of the rpc column.
+     */
+    public List<String> splitPoints(String tableName, int partitions) {
+        validate(tableName);
+        if (partitions <= 1) {
+            return List.of();
+        }
+        List<String> upperBounds = jdbcTemplate.queryForList(
+                "SELECT MAX(rpc) FROM (SELECT rpc, NTILE(" + partitions + ") OVER (ORDER BY rpc) AS bucket FROM "
+                        + tableName + ") buckets GROUP BY bucket ORDER BY 1", String.class);
+        return upperBounds.isEmpty() ? List.of() : upperBounds.subList(0, upperBounds.size() - 1);
+    }
+
+    private static Object[] pageArgs(String lastRpc, String toRpc, int batchSize) {
+        List<Object> args = new ArrayList<>(3);
+        if (lastRpc != null) {
+            args.add(lastRpc);
+        }
+        if (toRpc != null) {
+            args.add(toRpc);
+        }
+        args.add(batchSize);
+        return args.toArray();
+    }
+
+    private static void validate(String tableName) {
+        if (!TABLE_NAME.matcher(tableName).matches()) {
+            throw new IllegalArgumentException("Invalid table name: " + tableName);
+        }
+    }
+
+    private Columns resolveColumns(String tableName) {
+        return jdbcTemplate.query("SELECT * FROM " + tableName + " WHERE 1 = 0",
+                (ResultSetExtractor<Columns>) rs -> Columns.from(rs.getMetaData()));
+    }
+
+    /**
+     * Column positions and the attribute schema resolved once per table from the result set metadata.
+     */
+    private record Columns(int rpc, int clientId, int retailer, int brand, int category,
+                           TableSchema schema, int[] attributeIndexes) {
+
+        static Columns from(ResultSetMetaData metaData) throws SQLException {
+            Map<String, Integer> productColumns = new HashMap<>();
+            List<String> attributeNames = new ArrayList<>();
+            List<Integer> attributeIndexes = new ArrayList<>();
+            for (int i = 1; i <= metaData.getColumnCount(); i++) {
+                String columnName = metaData.getColumnLabel(i).toLowerCase();
+                if (PRODUCT_COLUMNS.contains(columnName)) {
+                    productColumns.put(columnName, i);
+                } else {
+                    attributeNames.add(columnName);
+                    attributeIndexes.add(i);
+                }
+            }
+            if (!productColumns.containsKey("rpc")) {
+                throw new IllegalStateException("Source table has no rpc column");
+            }
+            return new Columns(
+                    productColumns.get("rpc"),
+                    productColumns.getOrDefault("client_id", 0),
+                    productColumns.getOrDefault("retailer", 0),
+                    productColumns.getOrDefault("brand", 0),
+                    productColumns.getOrDefault("category", 0),
+                    TableSchema.of(attributeNames.toArray(new String[0])),
+                    attributeIndexes.stream().mapToInt(Integer::intValue).toArray());
+        }
+
+        RowMapper<Product> rowMapper() {
+            return (rs, rowNum) -> {
+                Product product = new Product();
+                product.setRpc(rs.getString(rpc));
+                product.setClientId(clientId == 0 ? null : rs.getString(clientId));
+                product.setRetailer(retailer == 0 ? null : rs.getString(retailer));
+                product.setBrand(brand == 0 ? null : rs.getString(brand));
+                product.setCategory(category == 0 ? null : rs.getString(category));
+
+                String[] values = new String[attributeIndexes.length];
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = rs.getString(attributeIndexes[i]);
+                }
+                product.setAttributes(schema, values);
+                return product;
+            };
+        }
+    }
+}
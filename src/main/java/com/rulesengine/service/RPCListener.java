@@ -1,5 +1,6 @@
 package com.rulesengine.service;
 
+import com.rulesengine.model.RpcTablePartition;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Service;
@@ -18,4 +19,12 @@ public class RPCListener {
     public void listenNewRPCTables(String tableName) {
         rpcProcessor.processNewRPCTable(tableName);
     }
+
+    // One partition per poll; a partition can take longer than the default max.poll.interval.ms to ingest
+    @KafkaListener(topics = "${rpc.ingest.partition-topic:rpc-table-partitions}", groupId = "rpc-partition-group",
+            concurrency = "${rpc.ingest.partition-concurrency:2}",
+            properties = {"max.poll.records=1", "max.poll.interval.ms=${rpc.ingest.partition-max-poll-interval-ms:1800000}"})
+    public void listenTablePartitions(RpcTablePartition partition) {
+        rpcProcessor.processPartition(partition);
+    }
 }
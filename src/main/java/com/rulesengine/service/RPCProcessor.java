@@ -1,90 +1,255 @@
 package com.rulesengine.service;
 
+import com.rulesengine.metrics.PipelineMetrics;
+import com.rulesengine.metrics.SendMeters;
 import com.rulesengine.model.Product;
-import lombok.RequiredArgsConstructor;
+import com.rulesengine.model.RpcTablePartition;
+import com.rulesengine.model.TableSchema;
+import com.rulesengine.service.IngestCheckpointStore.Checkpoint;
+import com.rulesengine.util.BoundedExecutor;
+import com.rulesengine.util.FlowController;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.SendResult;
 import org.springframework.retry.annotation.Backoff;
 import org.springframework.retry.annotation.Retryable;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
 
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class RPCProcessor {
 
     private final KafkaTemplate<String, Object> kafkaTemplate;
-    private final JdbcTemplate jdbcTemplate;
-    private final ThreadPoolExecutor executorService = (ThreadPoolExecutor) Executors.newFixedThreadPool(10);
+    private final ProductTableReader productTableReader;
+    private final IngestCheckpointStore checkpointStore;
+    private final BoundedExecutor ingestExecutor;
+    private final FlowController flowController;
+    private final PipelineMetrics metrics;
+    private final SendMeters sendMeters;
 
+    private final int batchSize;
+    private final int maxInFlightBatches;
+    private final int partitions;
+    private final String partitionTopic;
+    private final long leaseMs;
+    private final long leaseRenewMs;
+
+    // Partitions this node is ingesting, whose leases the heartbeat renews
+    private final Set<PartitionProgress> active = ConcurrentHashMap.newKeySet();
+
+    public RPCProcessor(KafkaTemplate<String, Object> kafkaTemplate,
+                        ProductTableReader productTableReader,
+                        IngestCheckpointStore checkpointStore,
+                        @Qualifier("ingestExecutor") BoundedExecutor ingestExecutor,
+                        @Qualifier("ingestFlowController") FlowController flowController,
+                        PipelineMetrics metrics,
+                        @Value("${rpc.ingest.batch-size:1000}") int batchSize,
+                        @Value("${rpc.ingest.max-in-flight-batches:20}") int maxInFlightBatches,
+                        @Value("${rpc.ingest.partitions:16}") int partitions,
+                        @Value("${rpc.ingest.partition-topic:rpc-table-partitions}") String partitionTopic,
+                        @Value("${rpc.ingest.lease-ms:120000}") long leaseMs,
+                        @Value("${rpc.ingest.lease-renew-ms:30000}") long leaseRenewMs) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.productTableReader = productTableReader;
+        this.checkpointStore = checkpointStore;
+        this.ingestExecutor = ingestExecutor;
+        this.flowController = flowController;
+        metrics.bindFlowController(flowController);
+        this.metrics = metrics;
+        this.sendMeters = metrics.sendMeters("rpc-for-processing");
+        this.batchSize = batchSize;
+        this.maxInFlightBatches = maxInFlightBatches;
+        this.partitions = partitions;
+        this.partitionTopic = partitionTopic;
+        this.leaseMs = leaseMs;
+        this.leaseRenewMs = leaseRenewMs;
+    }
+
+    /**
+     * Splits a new table into rpc ranges and publishes each as a work unit; the partition topic's consumer
+     * group spreads them over all rpc-listener nodes.
+     */
     @Retryable(value = {Exception.class}, maxAttempts = 3, backoff = @Backoff(delay = 1000))
     public void processNewRPCTable(String tableName) {
         try {
-            int batchSize = 1000;
-            int offset = 0;
+            List<String> splitPoints = productTableReader.splitPoints(tableName, partitions);
+            int partitionCount = splitPoints.size() + 1;
+            List<CompletableFuture<SendResult<String, Object>>> sends = new ArrayList<>(partitionCount);
+            for (int i = 0; i < partitionCount; i++) {
+                RpcTablePartition partition = RpcTablePartition.builder()
+                        .tableName(tableName)
+                        .partition(i)
+                        .partitionCount(partitionCount)
+                        .fromRpc(i == 0 ? null : splitPoints.get(i - 1))
+                        .toRpc(i == partitionCount - 1 ? null : splitPoints.get(i))
+                        .build();
+                sends.add(kafkaTemplate.send(partitionTopic, tableName + ":" + i, partition));
+            }
+            CompletableFuture.allOf(sends.toArray(new CompletableFuture[0])).join();
+            log.info("Split table {} into {} partitions", tableName, partitionCount);
+        } catch (Exception e) {
+            log.error("Error splitting new RPC table: {}", e.getMessage(), e);
+            throw e; // Rethrow for retry
+        }
+    }
 
-            while (true) {
-                List<Product> products = fetchProductsFromTable(tableName, offset, batchSize);
-                if (products.isEmpty()) {
-                    break;
-                }
+    /**
+     * Ingests one partition under a lease, resuming after its last checkpoint. Checkpoints only advance past
+     * batches whose sends all completed, so a failed or interrupted partition re-sends at most the batches in
+     * flight. A partition redelivered while another consumer still holds its lease waits for that consumer to
+     * finish or its lease to expire, so it is ingested once, and still ingested if the holder died.
+     */
+    @Retryable(value = {Exception.class}, maxAttempts = 3, backoff = @Backoff(delay = 1000))
+    public void processPartition(RpcTablePartition partition) {
+        String tableName = partition.getTableName();
+        String owner = UUID.randomUUID().toString();
+        if (!claim(partition, owner)) {
+            log.info("Partition {}/{} of table {} already ingested, skipping",
+                    partition.getPartition(), partition.getPartitionCount(), tableName);
+            return;
+        }
+        PartitionProgress progress = null;
+        try {
+            Checkpoint checkpoint = checkpointStore.load(tableName, partition.getPartition());
+            progress = new PartitionProgress(partition,
+                    checkpoint.lastRpc() == null ? new Checkpoint(partition.getFromRpc(), 0, false) : checkpoint,
+                    checkpointStore, owner, leaseMs);
+            active.add(progress);
+            ingest(partition, progress);
+        } finally {
+            if (progress != null) {
+                active.remove(progress);
+            }
+            checkpointStore.release(tableName, partition.getPartition(), owner);
+        }
+    }
 
-                offset += batchSize;
+    // False once the partition is complete; waits while another consumer holds it
+    private boolean claim(RpcTablePartition partition, String owner) {
+        String tableName = partition.getTableName();
+        while (!checkpointStore.claim(tableName, partition.getPartition(), owner, leaseMs)) {
+            Checkpoint checkpoint = checkpointStore.load(tableName, partition.getPartition());
+            if (checkpoint != null && checkpoint.completed()) {
+                return false;
+            }
+            log.info("Partition {}/{} of table {} is leased by another consumer, waiting",
+                    partition.getPartition(), partition.getPartitionCount(), tableName);
+            try {
+                Thread.sleep(leaseRenewMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted waiting for partition " + partition.getPartition()
+                        + " of table " + tableName, e);
+            }
+        }
+        return true;
+    }
 
-                CompletableFuture.runAsync(() -> processProductBatch(products), executorService)
+    private void ingest(RpcTablePartition partition, PartitionProgress progress) {
+        String tableName = partition.getTableName();
+        // Bounds the batches held in memory: the reader blocks until the send stage frees a slot
+        Semaphore inFlightBatches = new Semaphore(maxInFlightBatches);
+        long start = System.nanoTime();
+        long rows;
+        try {
+            rows = productTableReader.read(tableName, progress.resumeFrom(), partition.getToRpc(), batchSize, products -> {
+                if (progress.isFailed()) {
+                    throw progress.failed();
+                }
+                metrics.rowsFetched(products.size());
+                // The table is the job: every product, and so every result, carries the table name as messageId,
+                // which is also what processing-complete must carry for ResultAggregator to close the job
+                products.forEach(product -> product.setMessageId(tableName));
+                inFlightBatches.acquireUninterruptibly();
+                long batch = progress.submitted(products.get(products.size() - 1).getRpc(), products.size());
+                CompletableFuture.supplyAsync(() -> processProductBatch(products), ingestExecutor)
                         .exceptionally(e -> {
                             log.error("Error processing product batch", e);
-                            return null;
+                            return false;
+                        })
+                        .whenComplete((sent, e) -> {
+                            try {
+                                progress.completed(batch, Boolean.TRUE.equals(sent));
+                            } finally {
+                                inFlightBatches.release();
+                            }
                         });
-            }
+            });
         } catch (Exception e) {
-            log.error("Error processing new RPC table: {}", e.getMessage(), e);
-            throw e; // Rethrow for retry
+            log.error("Error processing partition {} of RPC table {}: {}", partition.getPartition(), tableName, e.getMessage(), e);
+            throw e; // Rethrow for retry, which resumes from the last checkpoint
+        } finally {
+            inFlightBatches.acquireUninterruptibly(maxInFlightBatches);
         }
+        progress.finish();
+        metrics.tableIngested(rows, System.nanoTime() - start);
+    }
+
+    // Heartbeat for partitions whose checkpoints advance slower than their lease expires
+    @Scheduled(fixedDelayString = "${rpc.ingest.lease-renew-ms:30000}")
+    public void renewLeases() {
+        active.forEach(PartitionProgress::renew);
     }
 
-    private void processProductBatch(List<Product> products) {
+    // Each send waits for the flow controller, which caps in-flight records and bytes across all batches
+    private boolean processProductBatch(List<Product> products) {
+        List<CompletableFuture<Boolean>> sends = new ArrayList<>(products.size());
         for (Product product : products) {
-            CompletableFuture<SendResult<String, Object>> future = kafkaTemplate.send("rpc-for-processing", product);
-            future.thenAccept(result -> log.debug("Sent product {} to Kafka", product.getRpc()))
+            long bytes = estimateBytes(product);
+            flowController.acquire(bytes);
+            sendMeters.started();
+            long start = System.nanoTime();
+            CompletableFuture<SendResult<String, Object>> future;
+            try {
+                future = kafkaTemplate.send("rpc-for-processing", product.getRpc(), product);
+            } catch (RuntimeException e) {
+                flowController.release(bytes, System.nanoTime() - start, true);
+                sendMeters.completed(e);
+                throw e;
+            }
+            future.whenComplete((result, ex) -> {
+                flowController.release(bytes, System.nanoTime() - start, ex != null);
+                sendMeters.completed(ex);
+            });
+            sends.add(future.thenApply(result -> {
+                        log.debug("Sent product {} to Kafka", product.getRpc());
+                        return true;
+                    })
                     .exceptionally(ex -> {
                         log.error("Error sending product {} to Kafka", product.getRpc(), ex);
-                        return null;
-                    });
+                        return false;
+                    }));
         }
+        CompletableFuture.allOf(sends.toArray(new CompletableFuture[0])).join();
+        return sends.stream().allMatch(CompletableFuture::join);
     }
 
-    @Retryable(value = {Exception.class}, maxAttempts = 3, backoff = @Backoff(delay = 1000))
-    private List<Product> fetchProductsFromTable(String tableName, int offset, int limit) {
-        String sql = "SELECT * FROM " + tableName + " LIMIT ? OFFSET ?";
-        return jdbcTemplate.query(sql, new Object[]{limit, offset}, (rs, rowNum) -> {
-                    Product product = new Product();
-                    product.setRpc(rs.getString("rpc"));
-                    product.setClientId(rs.getString("client_id"));
-                    product.setRetailer(rs.getString("retailer"));
-                    product.setBrand(rs.getString("brand"));
-                    product.setCategory(rs.getString("category"));
-
-                    Map<String, String> attributes = new HashMap<>();
-                    for (int i = 1; i <= rs.getMetaData().getColumnCount(); i++) {
-                        String columnName = rs.getMetaData().getColumnName(i);
-                        if (!List.of("rpc", "client_id", "retailer", "brand", "category").contains(columnName)) {
-                            attributes.put(columnName, rs.getString(columnName));
-                        }
-                    }
-                    product.setAttributes(attributes);
+    // Approximate serialized size; only needs to be proportional for the byte cap to bound producer memory
+    private static long estimateBytes(Product product) {
+        long bytes = 64 + length(product.getRpc()) + length(product.getClientId()) + length(product.getRetailer())
+                + length(product.getBrand()) + length(product.getCategory()) + length(product.getMessageId());
+        TableSchema schema = product.getSchema();
+        if (schema != null) {
+            String[] values = product.getAttributeValues();
+            for (int i = 0; i < values.length; i++) {
+                bytes += 8 + length(schema.attributeName(i)) + length(values[i]);
+            }
+        }
+        return bytes;
+    }
 
-                    return product;
-                }
-        );
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
     }
-}
\ No newline at end of file
+}
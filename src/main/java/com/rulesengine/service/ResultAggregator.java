@@ -1,75 +1,315 @@
 package com.rulesengine.service;
 
+import com.rulesengine.metrics.PipelineMetrics;
+import com.rulesengine.model.ProductResults;
 import com.rulesengine.model.RuleResult;
-import lombok.RequiredArgsConstructor;
+import com.rulesengine.output.RuleResultWriter;
+import com.rulesengine.output.RuleResultWriterFactory;
+import com.rulesengine.store.ResultStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.csv.CSVFormat;
-import org.apache.commons.csv.CSVPrinter;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
 import org.springframework.stereotype.Service;
 
-import java.io.FileWriter;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.util.ArrayList;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Aggregates the results of each job and writes its file once the job completes.
+ * <p>
+ * A job is one source table: its products, and so its results, carry the table name as messageId, and
+ * processing-complete carries the same table name. rule-results is keyed by messageId and the completion
+ * topic is re-keyed the same way by {@link CompletionRouter}. Both topics have the same partition count and
+ * one listener consumes them with the range assignor, which hands partition N of both topics to the same
+ * consumer, so a job's results and its completion always meet on one consumer. The number of aggregating
+ * consumers is capped by that partition count.
+ * <p>
+ * Results are only held in the local {@link ResultStore}, so rule-results offsets are committed no further
+ * than the first result of the oldest job not yet completed on the partition. A partition that moves to
+ * another consumer is committed that far and its open jobs are dropped; the new owner reads their results
+ * again. Jobs that see no results for the idle timeout, such as jobs completed by a previous owner whose
+ * later results were read again, are dropped the same way.
+ * <p>
+ * processing-complete has no ordering relative to rule-results: it is sent once the table's products are
+ * on rpc-for-processing, while the rule engine may still be evaluating them. Results that arrive for a job
+ * after its file was written, within the completed-job retention, are dropped and counted as late; a table
+ * processed again within that retention is therefore only aggregated once the retention has passed.
+ */
 @Slf4j
 @Service
-@RequiredArgsConstructor
-public class ResultAggregator {
+public class ResultAggregator implements MeterBinder, ConsumerAwareRebalanceListener {
 
-    private final ConcurrentHashMap<String, ConcurrentHashMap<String, List<RuleResult>>> messageResults = new ConcurrentHashMap<>();
+    public static final String LISTENER_ID = "result-aggregator";
+    static final String RESULTS_TOPIC = "rule-results";
 
-    // Highlight: Changed to accept a list of RuleResults
-    @KafkaListener(topics = "rule-results", groupId = "result-aggregator-group", concurrency = "5")
-    public void aggregateResults(List<RuleResult> results) {
-        for (RuleResult result : results) {
-            messageResults
-                    .computeIfAbsent(result.getMessageId(), k -> new ConcurrentHashMap<>())
-                    .computeIfAbsent(result.getRpc(), k -> new ArrayList<>())
-                    .add(result);
+    private final ResultStore resultStore;
+    private final RuleResultWriterFactory writerFactory;
+    private final PipelineMetrics metrics;
+    private final String completionTopic;
+    private final long commitIntervalNanos;
+    private final long jobIdleTimeoutNanos;
+    private final long completedRetentionNanos;
+    private final Counter lateResults;
+    private final Counter abandonedJobs;
+
+    // Open jobs per rule-results partition, each touched only by the consumer thread that owns the partition
+    private final Map<Integer, PartitionJobs> partitions = new ConcurrentHashMap<>();
+    // Jobs completed within the retention, by completion time
+    private final Map<String, Long> completed = new ConcurrentHashMap<>();
+
+    public ResultAggregator(ResultStore resultStore, RuleResultWriterFactory writerFactory, PipelineMetrics metrics,
+                            @Value("${results.aggregation.completion-topic:processing-complete-by-message}") String completionTopic,
+                            @Value("${results.aggregation.commit-interval-ms:5000}") long commitIntervalMs,
+                            @Value("${results.aggregation.job-idle-timeout-ms:21600000}") long jobIdleTimeoutMs,
+                            @Value("${results.aggregation.completed-retention-ms:600000}") long completedRetentionMs) {
+        this.resultStore = resultStore;
+        this.writerFactory = writerFactory;
+        this.metrics = metrics;
+        this.completionTopic = completionTopic;
+        this.commitIntervalNanos = TimeUnit.MILLISECONDS.toNanos(commitIntervalMs);
+        this.jobIdleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(jobIdleTimeoutMs);
+        this.completedRetentionNanos = TimeUnit.MILLISECONDS.toNanos(completedRetentionMs);
+        this.lateResults = Counter.builder("results.aggregator.late.results")
+                .description("Results dropped because their job had already completed")
+                .register(metrics.getRegistry());
+        this.abandonedJobs = Counter.builder("results.aggregator.abandoned.jobs")
+                .description("Open jobs dropped without a file, on a partition move or after the idle timeout")
+                .register(metrics.getRegistry());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("results.aggregator.heap.bytes", resultStore, ResultStore::totalHeapBytes)
+                .description("Heap held by results of messages not yet completed")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("results.aggregator.messages", resultStore, ResultStore::messageCount)
+                .description("Messages with results awaiting processing-complete")
+                .register(registry);
+    }
+
+    // Offsets are committed by the listener itself, see aggregatorKafkaListenerContainerFactory
+    @KafkaListener(id = LISTENER_ID, topics = {RESULTS_TOPIC, "${results.aggregation.completion-topic:processing-complete-by-message}"},
+            groupId = "result-aggregator-group", concurrency = "${results.aggregation.concurrency:5}",
+            containerFactory = "aggregatorKafkaListenerContainerFactory",
+            properties = "partition.assignment.strategy=org.apache.kafka.clients.consumer.RangeAssignor")
+    @SuppressWarnings("unchecked")
+    public void onRecord(ConsumerRecord<String, Object> record, Consumer<?, ?> consumer) {
+        long start = System.nanoTime();
+        try {
+            if (completionTopic.equals(record.topic())) {
+                complete((String) record.value(), record, consumer);
+                return;
+            }
+            PartitionJobs jobs = partitions.computeIfAbsent(record.partition(), PartitionJobs::new);
+            if (record.value() instanceof ProductResults results) {
+                if (open(jobs, results.getMessageId(), record.offset(), results.resultCount())) {
+                    resultStore.append(results);
+                }
+            } else {
+                aggregateResults(jobs, record.offset(), (List<RuleResult>) record.value());
+            }
+            jobs.nextOffset = record.offset() + 1;
+            jobs.expireIdle(start);
+            if (start - jobs.committedAt >= commitIntervalNanos) {
+                commit(consumer, jobs, new HashMap<>());
+            }
+        } finally {
+            metrics.listenerMeters(LISTENER_ID).processed(1, System.nanoTime() - start);
+        }
+    }
+
+    private void aggregateResults(PartitionJobs jobs, long offset, List<RuleResult> results) {
+        if (results.isEmpty()) {
+            return;
+        }
+        // A record holds the results of one product or one rule-engine batch, usually a single messageId
+        String messageId = results.get(0).getMessageId();
+        int from = 0;
+        for (int i = 1; i <= results.size(); i++) {
+            if (i == results.size() || !results.get(i).getMessageId().equals(messageId)) {
+                if (open(jobs, messageId, offset, i - from)) {
+                    resultStore.append(messageId, results.subList(from, i));
+                }
+                if (i < results.size()) {
+                    messageId = results.get(i).getMessageId();
+                    from = i;
+                }
+            }
+        }
+    }
+
+    // Registers results of the job at the offset; false if the job already completed
+    private boolean open(PartitionJobs jobs, String messageId, long offset, int results) {
+        if (completed.containsKey(messageId)) {
+            lateResults.increment(results);
+            return false;
+        }
+        jobs.opened(messageId, offset);
+        return true;
+    }
+
+    private void complete(String messageId, ConsumerRecord<String, Object> record, Consumer<?, ?> consumer) {
+        generateCsvFile(messageId);
+        completed.put(messageId, System.nanoTime());
+        PartitionJobs jobs = partitions.computeIfAbsent(record.partition(), PartitionJobs::new);
+        jobs.open.remove(messageId);
+        Map<TopicPartition, OffsetAndMetadata> commits = new HashMap<>();
+        commits.put(new TopicPartition(record.topic(), record.partition()), new OffsetAndMetadata(record.offset() + 1));
+        commit(consumer, jobs, commits);
+    }
+
+    // Commits the given offsets along with the partition's rule-results offset, if it advanced
+    private void commit(Consumer<?, ?> consumer, PartitionJobs jobs, Map<TopicPartition, OffsetAndMetadata> commits) {
+        long offset = jobs.commitOffset();
+        if (offset > jobs.committed) {
+            commits.put(jobs.partition, new OffsetAndMetadata(offset));
+        }
+        commits.keySet().retainAll(consumer.assignment());
+        if (!commits.isEmpty()) {
+            consumer.commitSync(commits);
+            if (commits.containsKey(jobs.partition)) {
+                jobs.committed = offset;
+            }
+        }
+        jobs.committedAt = System.nanoTime();
+    }
+
+    @Override
+    public void onPartitionsRevokedBeforeCommit(Consumer<?, ?> consumer, Collection<TopicPartition> revoked) {
+        for (TopicPartition partition : revoked) {
+            PartitionJobs jobs = RESULTS_TOPIC.equals(partition.topic()) ? partitions.remove(partition.partition()) : null;
+            if (jobs == null) {
+                continue;
+            }
+            try {
+                commit(consumer, jobs, new HashMap<>());
+            } catch (KafkaException e) {
+                log.warn("Could not commit {} on revocation, its new owner re-reads from the last commit: {}",
+                        partition, e.getMessage());
+            }
+            jobs.abandonAll();
+        }
+    }
+
+    // Lost partitions may already be owned elsewhere, so nothing is committed
+    @Override
+    public void onPartitionsLost(Consumer<?, ?> consumer, Collection<TopicPartition> lost) {
+        for (TopicPartition partition : lost) {
+            PartitionJobs jobs = RESULTS_TOPIC.equals(partition.topic()) ? partitions.remove(partition.partition()) : null;
+            if (jobs != null) {
+                jobs.abandonAll();
+            }
         }
     }
 
-    @KafkaListener(topics = "processing-complete", groupId = "result-aggregator-group")
     public void generateCsvFile(String messageId) {
-        String fileName = "rule_results_" + messageId + ".csv";
+        String fileName = "rule_results_" + messageId + writerFactory.fileExtension(false);
 
         // Highlight: Use try-with-resources for proper resource management
-        try (FileWriter out = new FileWriter(fileName);
-             CSVPrinter printer = new CSVPrinter(out, CSVFormat.DEFAULT
-                     .withHeader("Report Date", "Online Store", "RPC", "Customer ID", "Rule Name", "Rule Pass", "Rule Score", "Error Message"))) {
-
-            ConcurrentHashMap<String, List<RuleResult>> results = messageResults.get(messageId);
-            if (results != null) {
-                // Highlight: Process results in parallel
-                results.values().parallelStream().forEach(rpcResults -> {
-                    for (RuleResult result : rpcResults) {
-                        try {
-                            synchronized (printer) {
-                                printer.printRecord(
-                                        result.getReportDate(),
-                                        result.getOnlineStore(),
-                                        result.getRpc(),
-                                        result.getCustomerId(),
-                                        result.getRuleName(),
-                                        result.isRulePassed(),
-                                        result.getRuleScore(),
-                                        result.getErrorMessage()
-                                );
-                            }
-                        } catch (IOException e) {
-                            log.error("Error writing to CSV file", e);
-                        }
-                    }
-                });
-            }
-            log.info("CSV file generated for message {}: {}", messageId, fileName);
-        } catch (IOException e) {
-            log.error("Error generating CSV file for message {}", messageId, e);
+        try (RuleResultWriter writer = writerFactory.open(new FileOutputStream(fileName), false)) {
+
+            log.info("Writing {} results for message {}", resultStore.size(messageId), messageId);
+            resultStore.forEach(messageId, result -> {
+                try {
+                    writer.write(result);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            log.info("{} file generated for message {}: {}", writerFactory.getFormat(), messageId, fileName);
+        } catch (IOException | UncheckedIOException e) {
+            log.error("Error generating results file for message {}", messageId, e);
         } finally {
-            messageResults.remove(messageId);
+            metrics.messageCompleted(resultStore.heapBytes(messageId));
+            resultStore.remove(messageId);
+        }
+    }
+
+    /**
+     * Open jobs of one rule-results partition: the offset of each job's first result and when it last
+     * received one.
+     */
+    private final class PartitionJobs {
+
+        private final TopicPartition partition;
+        private final Map<String, OpenJob> open = new HashMap<>();
+        private long nextOffset;
+        private long committed;
+        private long committedAt = System.nanoTime();
+        private long sweptAt = System.nanoTime();
+
+        PartitionJobs(int partition) {
+            this.partition = new TopicPartition(RESULTS_TOPIC, partition);
+        }
+
+        void opened(String messageId, long offset) {
+            OpenJob job = open.computeIfAbsent(messageId, id -> new OpenJob(offset));
+            job.lastResultAt = System.nanoTime();
+        }
+
+        // Every record before the oldest open job's first result belongs to a completed job
+        long commitOffset() {
+            long offset = nextOffset;
+            for (OpenJob job : open.values()) {
+                offset = Math.min(offset, job.firstOffset);
+            }
+            return offset;
+        }
+
+        void expireIdle(long now) {
+            if (now - sweptAt < Math.min(Math.min(jobIdleTimeoutNanos, completedRetentionNanos), TimeUnit.MINUTES.toNanos(1))) {
+                return;
+            }
+            sweptAt = now;
+            open.entrySet().removeIf(entry -> {
+                if (now - entry.getValue().lastResultAt < jobIdleTimeoutNanos) {
+                    return false;
+                }
+                log.warn("Dropping message {} on {}: no results for {} ms and no completion",
+                        entry.getKey(), partition, TimeUnit.NANOSECONDS.toMillis(jobIdleTimeoutNanos));
+                abandon(entry.getKey());
+                completed.put(entry.getKey(), now);
+                return true;
+            });
+            completed.values().removeIf(completedAt -> now - completedAt >= completedRetentionNanos);
+        }
+
+        void abandonAll() {
+            open.keySet().forEach(this::abandon);
+            open.clear();
+        }
+
+        private void abandon(String messageId) {
+            resultStore.remove(messageId);
+            abandonedJobs.increment();
+        }
+    }
+
+    private static final class OpenJob {
+
+        private final long firstOffset;
+        private long lastResultAt;
+
+        OpenJob(long firstOffset) {
+            this.firstOffset = firstOffset;
         }
     }
-}
\ No newline at end of file
+}
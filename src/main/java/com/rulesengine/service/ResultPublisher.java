@@ -2,126 +2,470 @@ package com.rulesengine.service;
 
 
 import com.amazonaws.services.s3.AmazonS3;
-import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.rulesengine.metrics.PipelineMetrics;
+import com.rulesengine.metrics.PipelineMetrics.PublishStage;
+import com.rulesengine.model.ProductResults;
 import com.rulesengine.model.RuleResult;
-import lombok.RequiredArgsConstructor;
+import com.rulesengine.output.RuleResultWriter;
+import com.rulesengine.output.RuleResultWriterFactory;
+import com.rulesengine.output.S3MultipartOutputStream;
+import com.rulesengine.util.BoundedExecutor;
+import com.rulesengine.warehouse.StagedFile;
+import com.rulesengine.warehouse.WarehouseLoader;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.csv.CSVFormat;
-import org.apache.commons.csv.CSVPrinter;
+import org.apache.kafka.clients.consumer.CommitFailedException;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
-import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.RebalanceInProgressException;
+import org.apache.kafka.common.errors.RecordDeserializationException;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.kafka.core.KafkaTemplate;
-import org.springframework.retry.annotation.Backoff;
-import org.springframework.retry.annotation.Retryable;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.stereotype.Service;
 
-import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Continuously publishes rule results from Kafka to S3 and the warehouse.
+ * <p>
+ * Poll, encode, upload and merge run on their own threads connected by bounded queues, so a batch is
+ * being encoded while the previous one uploads and the one before merges. Batches are cut by record count
+ * or age. The poll thread owns the consumer: it pauses fetching while the encode queue is full and commits
+ * each batch's offsets once its merge succeeded, in batch order. Any stage failure discards the in-flight
+ * batches and rewinds the consumer to the committed offsets; the warehouse load is idempotent, so
+ * re-published results are harmless; a failed commit is handled the same way, as is any error of the poll
+ * loop itself, while records that cannot be deserialized are skipped. The merge stage hands all files uploaded
+ * since its last load to the {@link WarehouseLoader} at once.
+ */
 @Slf4j
 @Service
-@RequiredArgsConstructor
-public class ResultPublisher {
+public class ResultPublisher implements SmartLifecycle {
 
-    private final JdbcTemplate jdbcTemplate;
+    private static final String GROUP_ID = "result-publisher-group";
+    private static final Duration POLL_TIMEOUT = Duration.ofMillis(100);
+    private static final long STAGE_POLL_MS = 100;
+
+    private final WarehouseLoader warehouseLoader;
     private final AmazonS3 amazonS3Client;
-    private KafkaConsumer<String, RuleResult> kafkaConsumer;
+    private final BoundedExecutor publishExecutor;
+    private final RuleResultWriterFactory writerFactory;
+    private final PipelineMetrics metrics;
+    private final ConsumerFactory<String, Object> consumerFactory;
 
     @Value("${s3.bucket.name}")
     private String s3BucketName;
 
-    @Value("${snowflake.table.name}")
-    private String snowflakeTableName;
-
-    @Value("${kafka.results.topic}")
+    @Value("${kafka.results.topic:rule-results}")
     private String resultsTopic;
 
-    @Scheduled(fixedRate = 300000) // Run every 5 minutes
-    @Retryable(value = {Exception.class}, maxAttempts = 3, backoff = @Backoff(delay = 1000))
-    public void publishResults() {
-        List<RuleResult> batchToProcess = new ArrayList<>();
+    @Value("${results.publish.part-size-bytes:8388608}")
+    private int partSizeBytes;
+
+    @Value("${results.publish.enabled:true}")
+    private boolean enabled;
+
+    @Value("${results.publish.batch-max-records:500000}")
+    private long batchMaxRecords;
+
+    @Value("${results.publish.batch-max-age-ms:10000}")
+    private long batchMaxAgeMs;
+
+    @Value("${results.publish.queue-capacity:2}")
+    private int queueCapacity;
+
+    @Value("${results.publish.failure-backoff-ms:5000}")
+    private long failureBackoffMs;
+
+    @Value("${results.publish.merge-max-files:8}")
+    private int mergeMaxFiles;
+
+    private BlockingQueue<Polled> encodeQueue;
+    private BlockingQueue<Batch> uploadQueue;
+    private BlockingQueue<Batch> mergeQueue;
+    private final ConcurrentLinkedQueue<Batch> commitQueue = new ConcurrentLinkedQueue<>();
+
+    // Bumped on every failure; batches of an older epoch are discarded by every stage
+    private final AtomicLong epoch = new AtomicLong();
+    private final AtomicBoolean resetRequested = new AtomicBoolean();
+    private volatile boolean running;
+    private Thread pollThread;
+    private Thread encodeThread;
+    private Thread uploadThread;
+    private Thread mergeThread;
+
+    public ResultPublisher(WarehouseLoader warehouseLoader, AmazonS3 amazonS3Client,
+                           @Qualifier("publishExecutor") BoundedExecutor publishExecutor,
+                           RuleResultWriterFactory writerFactory,
+                           PipelineMetrics metrics,
+                           ConsumerFactory<String, Object> consumerFactory) {
+        this.warehouseLoader = warehouseLoader;
+        this.amazonS3Client = amazonS3Client;
+        this.publishExecutor = publishExecutor;
+        this.writerFactory = writerFactory;
+        this.metrics = metrics;
+        this.consumerFactory = consumerFactory;
+    }
+
+    @Override
+    public boolean isAutoStartup() {
+        return enabled;
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        encodeQueue = new ArrayBlockingQueue<>(queueCapacity);
+        uploadQueue = new ArrayBlockingQueue<>(queueCapacity);
+        // Uploaded batches hold no results, so the merge stage can queue enough of them for one load
+        mergeQueue = new ArrayBlockingQueue<>(Math.max(queueCapacity, mergeMaxFiles));
+        running = true;
+        pollThread = Thread.ofPlatform().name("result-publisher-poll").start(this::pollLoop);
+        encodeThread = Thread.ofPlatform().name("result-publisher-encode").start(this::encodeLoop);
+        uploadThread = Thread.ofPlatform().name("result-publisher-upload").start(this::uploadLoop);
+        mergeThread = Thread.ofPlatform().name("result-publisher-merge").start(this::mergeLoop);
+        log.info("Result publisher started on topic {}", resultsTopic);
+    }
+
+    // Stops polling, lets the stages drain the batches in flight and commits their offsets
+    @Override
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            pollThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.info("Result publisher stopped");
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void pollLoop() {
+        Properties overrides = new Properties();
+        overrides.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        try (Consumer<String, Object> consumer = consumerFactory.createConsumer(GROUP_ID, null, null, overrides)) {
+            consumer.subscribe(List.of(resultsTopic), new ConsumerRebalanceListener() {
+                @Override
+                public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+                    commitMerged(consumer);
+                }
+
+                // Partitions assigned while the encoder is behind start paused, like the ones already owned
+                @Override
+                public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+                    if (encodeQueue.remainingCapacity() == 0) {
+                        consumer.pause(partitions);
+                    }
+                }
+            });
+            while (running) {
+                try {
+                    poll(consumer);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    running = false;
+                } catch (RecordDeserializationException e) {
+                    // A record no codec can read would fail every poll; it is skipped and covered by the next commit
+                    log.error("Skipping undecodable rule result at {} offset {}", e.topicPartition(), e.offset(), e);
+                    consumer.seek(e.topicPartition(), e.offset() + 1);
+                } catch (RuntimeException e) {
+                    fail("polling", e);
+                }
+            }
+            awaitStages();
+            commitMerged(consumer);
+        } catch (RuntimeException e) {
+            log.error("Result publisher poll loop failed", e);
+            running = false;
+        }
+    }
+
+    private void poll(Consumer<String, Object> consumer) throws InterruptedException {
+        commitMerged(consumer);
+        if (resetRequested.getAndSet(false)) {
+            rewind(consumer);
+        }
+        // Keep polling while the encoder is behind so the consumer stays in the group
+        if (encodeQueue.remainingCapacity() == 0) {
+            consumer.pause(consumer.assignment());
+        } else if (!consumer.paused().isEmpty()) {
+            consumer.resume(consumer.paused());
+        }
+        long start = System.nanoTime();
+        ConsumerRecords<String, Object> records = consumer.poll(POLL_TIMEOUT);
+        if (!records.isEmpty()) {
+            record(PublishStage.POLL, start);
+            encodeQueue.put(new Polled(epoch.get(), records));
+        }
+    }
+
+    private void encodeLoop() {
+        Batch current = null;
+        while (running || !encodeQueue.isEmpty()) {
+            try {
+                Polled polled = encodeQueue.poll(STAGE_POLL_MS, TimeUnit.MILLISECONDS);
+                long currentEpoch = epoch.get();
+                if (current != null && current.epoch != currentEpoch) {
+                    current.abort();
+                    current = null;
+                }
+                if (polled != null && polled.epoch == currentEpoch) {
+                    if (current == null) {
+                        current = new Batch(currentEpoch, newS3Key());
+                    }
+                    long start = System.nanoTime();
+                    current.write(polled.records);
+                    record(PublishStage.ENCODE, start);
+                }
+                if (current != null && (current.records >= batchMaxRecords || current.age() >= batchMaxAgeMs || !running)) {
+                    uploadQueue.put(current);
+                    current = null;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (IOException | RuntimeException e) {
+                if (current != null) {
+                    current.abort();
+                    current = null;
+                }
+                fail("encoding", e);
+            }
+        }
+        if (current != null) {
+            current.abort();
+        }
+    }
+
+    private void uploadLoop() {
+        while (running || encodeThread.isAlive() || !uploadQueue.isEmpty()) {
+            Batch batch = null;
+            try {
+                batch = uploadQueue.poll(STAGE_POLL_MS, TimeUnit.MILLISECONDS);
+                if (batch == null) {
+                    continue;
+                }
+                if (batch.epoch != epoch.get()) {
+                    batch.abort();
+                    continue;
+                }
+                long start = System.nanoTime();
+                batch.close();
+                record(PublishStage.UPLOAD, start);
+                mergeQueue.put(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (IOException | RuntimeException e) {
+                batch.abort();
+                fail("uploading", e);
+            }
+        }
+    }
 
-        // Poll the Kafka topic for all available messages
-        while (true) {
-            ConsumerRecords<String, RuleResult> records = kafkaConsumer.poll(Duration.ofMillis(100));
-            if (records.isEmpty()) {
+    // Loads every batch uploaded by the time the previous load finished, up to merge-max-files, in one go
+    private void mergeLoop() {
+        List<Batch> batches = new ArrayList<>();
+        while (running || uploadThread.isAlive() || !mergeQueue.isEmpty()) {
+            try {
+                Batch first = mergeQueue.poll(STAGE_POLL_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batches.clear();
+                batches.add(first);
+                mergeQueue.drainTo(batches, mergeMaxFiles - 1);
+                long currentEpoch = epoch.get();
+                batches.removeIf(batch -> batch.epoch != currentEpoch);
+                if (batches.isEmpty()) {
+                    continue;
+                }
+                long start = System.nanoTime();
+                warehouseLoader.load(batches.stream().map(Batch::stagedFile).toList());
+                record(PublishStage.MERGE, start);
+                commitQueue.addAll(batches);
+                log.info("Published {} rule results from {} files in s3://{}", batches.stream().mapToLong(b -> b.records).sum(),
+                        batches.size(), s3BucketName);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
                 break;
+            } catch (RuntimeException e) {
+                fail("merging", e);
             }
-            for (ConsumerRecord<String, RuleResult> record : records) {
-                batchToProcess.add(record.value());
+        }
+    }
+
+    private void fail(String stage, Exception e) {
+        log.error("Error {} rule results, rewinding to the last committed offsets", stage, e);
+        epoch.incrementAndGet();
+        resetRequested.set(true);
+    }
+
+    // Batches are merged in order, so committing each merged batch's offsets never skips an unmerged record
+    private void commitMerged(Consumer<String, Object> consumer) {
+        long currentEpoch = epoch.get();
+        Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+        for (Batch batch = commitQueue.poll(); batch != null; batch = commitQueue.poll()) {
+            if (batch.epoch == currentEpoch) {
+                offsets.putAll(batch.offsets);
             }
         }
+        // Partitions revoked since the batch was polled are committed by their new owner
+        offsets.keySet().retainAll(consumer.assignment());
+        if (offsets.isEmpty()) {
+            return;
+        }
+        try {
+            consumer.commitSync(offsets);
+        } catch (CommitFailedException | RebalanceInProgressException e) {
+            // The merged results are re-published from the last committed offsets once the group settles
+            fail("committing", e);
+        }
+    }
 
-        if (!batchToProcess.isEmpty()) {
-            String fileName = generateCsvFile(batchToProcess);
-            String s3Key = uploadToS3(fileName);
-            mergeIntoSnowflake(s3Key);
+    private void rewind(Consumer<String, Object> consumer) {
+        encodeQueue.clear();
+        commitQueue.clear();
+        Map<TopicPartition, OffsetAndMetadata> committed = consumer.committed(consumer.assignment());
+        for (TopicPartition partition : consumer.assignment()) {
+            OffsetAndMetadata offset = committed.get(partition);
+            if (offset == null) {
+                consumer.seekToBeginning(List.of(partition));
+            } else {
+                consumer.seek(partition, offset);
+            }
+        }
+        try {
+            Thread.sleep(failureBackoffMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
 
-            // Commit the offsets after successful processing
-            kafkaConsumer.commitSync();
+    private void awaitStages() {
+        try {
+            encodeThread.join();
+            uploadThread.join();
+            mergeThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
     }
 
-    private String generateCsvFile(List<RuleResult> results) {
-        String fileName = "rule_results_" + LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME) + ".csv";
-        try (FileWriter out = new FileWriter(fileName);
-             CSVPrinter printer = new CSVPrinter(out, CSVFormat.DEFAULT
-                     .withHeader("Report Date", "Online Store", "RPC", "Customer ID", "Rule Name", "Rule Pass", "Rule Score", "Error Message"))) {
+    // Records the time since start against the stage and returns the new start
+    private long record(PublishStage stage, long start) {
+        long now = System.nanoTime();
+        metrics.publishStage(stage).record(now - start, TimeUnit.NANOSECONDS);
+        return now;
+    }
+
+    private String newS3Key() {
+        return "rule-results/rule_results_" + LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME)
+                + writerFactory.fileExtension(true);
+    }
 
-            for (RuleResult result : results) {
-                printer.printRecord(
-                        result.getReportDate(),
-                        result.getOnlineStore(),
-                        result.getRpc(),
-                        result.getCustomerId(),
-                        result.getRuleName(),
-                        result.isRulePassed(),
-                        result.getRuleScore(),
-                        result.getErrorMessage()
-                );
+    private record Polled(long epoch, ConsumerRecords<String, Object> records) {
+    }
+
+    /**
+     * One published file: a result writer in the configured output format streaming into an S3 upload,
+     * and the offsets to commit once the file is merged.
+     */
+    private class Batch {
+
+        private final long epoch;
+        private final String s3Key;
+        private final long createdAt = System.currentTimeMillis();
+        private final S3MultipartOutputStream s3Stream;
+        private final RuleResultWriter writer;
+        private final Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+        private final Set<String> reportDates = new HashSet<>();
+        private long records;
+
+        Batch(long epoch, String s3Key) throws IOException {
+            this.epoch = epoch;
+            this.s3Key = s3Key;
+            this.s3Stream = new S3MultipartOutputStream(amazonS3Client, s3BucketName, s3Key, partSizeBytes, publishExecutor);
+            this.writer = writerFactory.open(s3Stream, true);
+        }
+
+        void write(ConsumerRecords<String, Object> polled) throws IOException {
+            for (TopicPartition partition : polled.partitions()) {
+                List<ConsumerRecord<String, Object>> partitionRecords = polled.records(partition);
+                for (ConsumerRecord<String, Object> record : partitionRecords) {
+                    // Rule engine records carry a list of results or a compact per-product record
+                    if (record.value() instanceof List<?> results) {
+                        for (Object result : results) {
+                            write((RuleResult) result);
+                        }
+                    } else if (record.value() instanceof ProductResults results) {
+                        // Compact records are expanded into rows only here, as they are written out
+                        for (RuleResult result : results.toRuleResults()) {
+                            write(result);
+                        }
+                    } else if (record.value() instanceof RuleResult result) {
+                        write(result);
+                    }
+                }
+                long nextOffset = partitionRecords.get(partitionRecords.size() - 1).offset() + 1;
+                offsets.put(partition, new OffsetAndMetadata(nextOffset));
             }
-        } catch (IOException e) {
-            log.error("Error generating CSV file", e);
-        }
-        return fileName;
-    }
-
-    @Retryable(value = {Exception.class}, maxAttempts = 3, backoff = @Backoff(delay = 1000))
-    private String uploadToS3(String fileName) {
-        String s3Key = "rule-results/" + fileName;
-        File file = new File(fileName);
-        amazonS3Client.putObject(new PutObjectRequest(s3BucketName, s3Key, file));
-        file.delete(); // Clean up local file after upload
-        return s3Key;
-    }
-
-    @Retryable(value = {Exception.class}, maxAttempts = 3, backoff = @Backoff(delay = 1000))
-    private void mergeIntoSnowflake(String s3Key) {
-        String sql = String.format(
-                "MERGE INTO %s t USING " +
-                        "(SELECT $1 as report_date, $2 as online_store, $3 as rpc, $4 as customer_id, " +
-                        "$5 as rule_name, $6 as rule_pass, $7 as rule_score, $8 as error_message " +
-                        "FROM @%s/%s) s " +
-                        "ON t.report_date = s.report_date AND t.rpc = s.rpc AND t.rule_name = s.rule_name " +
-                        "WHEN MATCHED THEN UPDATE SET " +
-                        "t.online_store = s.online_store, t.customer_id = s.customer_id, " +
-                        "t.rule_pass = s.rule_pass, t.rule_score = s.rule_score, t.error_message = s.error_message " +
-                        "WHEN NOT MATCHED THEN INSERT " +
-                        "(report_date, online_store, rpc, customer_id, rule_name, rule_pass, rule_score, error_message) " +
-                        "VALUES (s.report_date, s.online_store, s.rpc, s.customer_id, s.rule_name, s.rule_pass, s.rule_score, s.error_message)",
-                snowflakeTableName, s3BucketName, s3Key
-        );
-
-        jdbcTemplate.execute(sql);
-    }
-}
\ No newline at end of file
+        }
+
+        private void write(RuleResult result) throws IOException {
+            writer.write(result);
+            if (result.getReportDate() != null) {
+                reportDates.add(result.getReportDate());
+            }
+            records++;
+        }
+
+        StagedFile stagedFile() {
+            return new StagedFile(s3Key, reportDates);
+        }
+
+        long age() {
+            return System.currentTimeMillis() - createdAt;
+        }
+
+        void close() throws IOException {
+            writer.close();
+            log.debug("Uploaded rule results to s3://{}/{}", s3BucketName, s3Key);
+        }
+
+        void abort() {
+            s3Stream.abort();
+        }
+    }
+}
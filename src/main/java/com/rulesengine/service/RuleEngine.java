@@ -1,11 +1,17 @@
 package com.rulesengine.service;
 
-import com.rulesengine.model.InputMessage;
+import com.rulesengine.metrics.ListenerMeters;
+import com.rulesengine.metrics.PipelineMetrics;
+import com.rulesengine.metrics.SendMeters;
 import com.rulesengine.model.Product;
+import com.rulesengine.model.ProductResults;
 import com.rulesengine.model.RuleResult;
-import com.rulesengine.rule.Rule;
-import lombok.RequiredArgsConstructor;
+import com.rulesengine.rule.ResultFingerprintStore;
+import com.rulesengine.rule.RulePlan;
+import com.rulesengine.util.BoundedExecutor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.SendResult;
@@ -13,30 +19,63 @@ import org.springframework.retry.annotation.Backoff;
 import org.springframework.retry.annotation.Retryable;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
 
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class RuleEngine {
 
+    public static final String RECORD_LISTENER_ID = "rule-engine-record";
+    public static final String BATCH_LISTENER_ID = "rule-engine-batch";
+
     private final KafkaTemplate<String, Object> kafkaTemplate;
-    private final List<Rule> rules;
     private final ClientConfigService clientConfigService;
+    private final BoundedExecutor ruleEvaluationExecutor;
+    private final ResultFingerprintStore fingerprintStore;
+    private final SendMeters sendMeters;
+    private final ListenerMeters recordListenerMeters;
+    private final ListenerMeters batchListenerMeters;
+
+    private final int evaluationChunkSize;
+    private final int resultsPerRecord;
+    private final boolean compactResults;
+
+    public RuleEngine(KafkaTemplate<String, Object> kafkaTemplate,
+                      ClientConfigService clientConfigService,
+                      @Qualifier("ruleEvaluationExecutor") BoundedExecutor ruleEvaluationExecutor,
+                      ResultFingerprintStore fingerprintStore,
+                      PipelineMetrics metrics,
+                      @Value("${rules.engine.evaluation-chunk-size:64}") int evaluationChunkSize,
+                      @Value("${rules.engine.results-per-record:1000}") int resultsPerRecord,
+                      @Value("${rules.engine.compact-results:false}") boolean compactResults) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.clientConfigService = clientConfigService;
+        this.ruleEvaluationExecutor = ruleEvaluationExecutor;
+        this.fingerprintStore = fingerprintStore;
+        this.sendMeters = metrics.sendMeters("rule-results");
+        this.recordListenerMeters = metrics.listenerMeters(RECORD_LISTENER_ID);
+        this.batchListenerMeters = metrics.listenerMeters(BATCH_LISTENER_ID);
+        this.evaluationChunkSize = evaluationChunkSize;
+        this.resultsPerRecord = resultsPerRecord;
+        this.compactResults = compactResults;
+    }
 
-    @KafkaListener(topics = "rpc-for-processing", groupId = "rule-engine-group", concurrency = "10")
+    @KafkaListener(id = RECORD_LISTENER_ID, topics = "rpc-for-processing", groupId = "rule-engine-group", concurrency = "10",
+            autoStartup = "#{'${rules.engine.listener-mode:batch}' == 'record'}")
     @Retryable(value = {Exception.class}, maxAttempts = 3, backoff = @Backoff(delay = 1000))
     public void processRPC(Product product) {
+        long start = System.nanoTime();
         try {
-            List<Rule> enabledRules = clientConfigService.getEnabledRules(product.getClientId());
+            RulePlan plan = clientConfigService.getRulePlan(product.getClientId());
 
-            List<RuleResult> results = enabledRules.parallelStream()
-                    .filter(rule -> rule.isApplicable(product))
-                    .map(rule -> rule.apply(product))
-                    .toList();
+            List<RuleResult> results = plan.evaluate(product, fingerprintStore);
 
-            CompletableFuture<SendResult<String, Object>> future = kafkaTemplate.send("rule-results", results);
+            CompletableFuture<SendResult<String, Object>> future = send(product.getMessageId(), results);
             future.thenAccept(result -> log.debug("Sent rule results for product {}", product.getRpc()))
                     .exceptionally(ex -> {
                         log.error("Error sending rule results for product {}", product.getRpc(), ex);
@@ -45,6 +84,85 @@ public class RuleEngine {
         } catch (Exception e) {
             log.error("Error processing RPC: {}", e.getMessage(), e);
             throw e; // Rethrow for retry
+        } finally {
+            recordListenerMeters.processed(1, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Evaluates a whole poll on the shared worker pool and publishes the results in large records.
+     * Returns only once every send is acknowledged, so the container commits the batch offsets
+     * after its results are durable; a failure rethrows and the batch is redelivered.
+     */
+    @KafkaListener(id = BATCH_LISTENER_ID, topics = "rpc-for-processing", groupId = "rule-engine-group", concurrency = "10",
+            containerFactory = "batchKafkaListenerContainerFactory",
+            autoStartup = "#{'${rules.engine.listener-mode:batch}' == 'batch'}")
+    public void processRPCBatch(List<Product> products) {
+        long start = System.nanoTime();
+        try {
+            publishBatch(products);
+        } finally {
+            batchListenerMeters.processed(products.size(), System.nanoTime() - start);
+        }
+    }
+
+    private void publishBatch(List<Product> products) {
+        List<CompletableFuture<List<RuleResult>>> evaluations = new ArrayList<>();
+        for (int from = 0; from < products.size(); from += evaluationChunkSize) {
+            List<Product> chunk = products.subList(from, Math.min(from + evaluationChunkSize, products.size()));
+            evaluations.add(CompletableFuture.supplyAsync(() -> evaluate(chunk), ruleEvaluationExecutor));
+        }
+
+        // Records are keyed by messageId so all results of a job land on one rule-results partition
+        Map<String, List<RuleResult>> resultsByMessage = new LinkedHashMap<>();
+        int resultCount = 0;
+        for (CompletableFuture<List<RuleResult>> evaluation : evaluations) {
+            for (RuleResult result : evaluation.join()) {
+                resultsByMessage.computeIfAbsent(result.getMessageId(), id -> new ArrayList<>()).add(result);
+                resultCount++;
+            }
+        }
+
+        List<CompletableFuture<SendResult<String, Object>>> sends = new ArrayList<>();
+        for (Map.Entry<String, List<RuleResult>> entry : resultsByMessage.entrySet()) {
+            List<RuleResult> results = entry.getValue();
+            for (int from = 0; from < results.size(); from += resultsPerRecord) {
+                List<RuleResult> record = new ArrayList<>(results.subList(from, Math.min(from + resultsPerRecord, results.size())));
+                sends.add(send(entry.getKey(), record));
+            }
+        }
+        try {
+            CompletableFuture.allOf(sends.toArray(new CompletableFuture[0])).join();
+        } catch (Exception e) {
+            log.error("Error sending rule results for batch of {} products", products.size(), e);
+            throw e; // Rethrow so the batch is redelivered
+        }
+        log.debug("Evaluated {} products into {} rule results in {} records", products.size(), resultCount, sends.size());
+    }
+
+    // Compact records carry each product's fields once, with pass bitmaps and packed scores per rule
+    private CompletableFuture<SendResult<String, Object>> send(String messageId, List<RuleResult> results) {
+        Object record = compactResults ? ProductResults.of(messageId, results) : results;
+        sendMeters.started();
+        CompletableFuture<SendResult<String, Object>> future = kafkaTemplate.send("rule-results", messageId, record);
+        future.whenComplete((result, ex) -> sendMeters.completed(ex));
+        return future;
+    }
+
+    private List<RuleResult> evaluate(List<Product> products) {
+        List<RuleResult> results = new ArrayList<>();
+        // Polls are usually dominated by one client, so evaluate each run of same-client products as one batch
+        int from = 0;
+        while (from < products.size()) {
+            String clientId = products.get(from).getClientId();
+            int to = from + 1;
+            while (to < products.size() && Objects.equals(products.get(to).getClientId(), clientId)) {
+                to++;
+            }
+            RulePlan plan = clientConfigService.getRulePlan(clientId);
+            results.addAll(plan.evaluate(products.subList(from, to), fingerprintStore));
+            from = to;
         }
+        return results;
     }
-}
\ No newline at end of file
+}
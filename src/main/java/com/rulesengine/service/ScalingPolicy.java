@@ -0,0 +1,98 @@
+package com.rulesengine.service;
+
+/**
+ * Scaling decision for one listener, from a sample of its lag and processing time.
+ * <p>
+ * The lag is projected to drain in {@code lag * recordNanos / consumers}. A listener that would take longer
+ * than the target and is either falling further behind or busy most of the time scales up: its worker pool
+ * first, when every worker is busy, then its consumers, up to the partition count. One that would drain in a
+ * quarter of the target while mostly idle scales down, workers first. No decision is taken within the
+ * cooldown of the previous one.
+ */
+final class ScalingPolicy {
+
+    enum Action {
+        NONE, WORKERS_UP, WORKERS_DOWN, CONSUMERS_UP, CONSUMERS_DOWN, AT_LIMIT
+    }
+
+    /**
+     * One interval of a listener: its lag now and at the previous sample, the fraction of the interval its
+     * consumers spent processing, the per-record processing time (NaN before the first processed record),
+     * its consumers, the topic's partitions, and its worker parallelism, or 0 without a worker pool.
+     */
+    record Sample(long lag, long previousLag, double utilization, double recordNanos, int consumers, int partitions,
+                  int workers, boolean workersSaturated) {
+    }
+
+    record Decision(Action action, int count) {
+
+        static final Decision NONE = new Decision(Action.NONE, 0);
+    }
+
+    private final long targetDrainNanos;
+    private final double busyHigh;
+    private final double busyLow;
+    private final long cooldownNanos;
+    private final int minConsumers;
+    private final int maxConsumers;
+    private final int minWorkers;
+    private final int maxWorkers;
+
+    ScalingPolicy(long targetDrainNanos, double busyHigh, double busyLow, long cooldownNanos,
+                  int minConsumers, int maxConsumers, int minWorkers, int maxWorkers) {
+        this.targetDrainNanos = targetDrainNanos;
+        this.busyHigh = busyHigh;
+        this.busyLow = busyLow;
+        this.cooldownNanos = cooldownNanos;
+        this.minConsumers = minConsumers;
+        this.maxConsumers = maxConsumers;
+        this.minWorkers = minWorkers;
+        this.maxWorkers = maxWorkers;
+    }
+
+    // Without a measured per-record time any lag counts as behind
+    static double drainNanos(long lag, double recordNanos, int consumers) {
+        if (lag == 0) {
+            return 0;
+        }
+        return Double.isNaN(recordNanos) ? Double.POSITIVE_INFINITY : lag * recordNanos / consumers;
+    }
+
+    Decision decide(Sample sample, long nanosSinceChange) {
+        if (nanosSinceChange < cooldownNanos) {
+            return Decision.NONE;
+        }
+        double drainNanos = drainNanos(sample.lag(), sample.recordNanos(), sample.consumers());
+        if (drainNanos > targetDrainNanos && (sample.lag() > sample.previousLag() || sample.utilization() > busyHigh)) {
+            return scaleUp(sample);
+        }
+        if (drainNanos < targetDrainNanos / 4d && sample.utilization() < busyLow) {
+            return scaleDown(sample);
+        }
+        return Decision.NONE;
+    }
+
+    private Decision scaleUp(Sample sample) {
+        int workers = sample.workers();
+        if (workers > 0 && workers < maxWorkers && sample.workersSaturated()) {
+            return new Decision(Action.WORKERS_UP, Math.min(maxWorkers, workers + Math.max(1, workers / 2)));
+        }
+        int limit = Math.min(maxConsumers, sample.partitions());
+        int consumers = sample.consumers();
+        if (consumers < limit) {
+            return new Decision(Action.CONSUMERS_UP, Math.min(limit, consumers + Math.max(1, consumers / 2)));
+        }
+        return new Decision(Action.AT_LIMIT, consumers);
+    }
+
+    private Decision scaleDown(Sample sample) {
+        int workers = sample.workers();
+        if (workers > minWorkers) {
+            return new Decision(Action.WORKERS_DOWN, Math.max(minWorkers, workers - Math.max(1, workers / 4)));
+        }
+        if (sample.consumers() > minConsumers) {
+            return new Decision(Action.CONSUMERS_DOWN, sample.consumers() - 1);
+        }
+        return Decision.NONE;
+    }
+}
@@ -0,0 +1,285 @@
+package com.rulesengine.service;
+
+import com.rulesengine.metrics.ListenerMeters;
+import com.rulesengine.metrics.PipelineMetrics;
+import com.rulesengine.model.Product;
+import com.rulesengine.model.RuleConfig;
+import com.rulesengine.model.TableSchema;
+import com.rulesengine.rule.BatchOutcome;
+import com.rulesengine.rule.BatchRule;
+import com.rulesengine.rule.ProductBatch;
+import com.rulesengine.rule.Rule;
+import com.rulesengine.rule.RuleParameters;
+import com.rulesengine.rule.RulePlan;
+import com.rulesengine.util.RuleConfigurationLoader;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.kafka.listener.AbstractMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Warms a starting instance before it joins the consumer groups.
+ * <p>
+ * Runs in a lifecycle phase just before the Kafka listener containers: it bulk-loads all rule configs and
+ * enabled-rule lists, compiles every client's rule plan, and runs synthetic products through each rule until
+ * the rule code is compiled, so the first partitions assigned to the instance are processed at full speed.
+ * A failed warm-up is logged and the listeners start cold. The rule config invalidation subscription starts in
+ * an earlier phase, so a config changed during the preload is invalidated rather than served stale until its TTL.
+ * <p>
+ * Only rule-processor instances evaluate rules, so other roles start without it.
+ * <p>
+ * Reports the warm-up duration, the time from JVM start until the listeners start, and the time from the
+ * first rule-engine record until the per-record processing time stops improving; the latter two are also
+ * reported with warm-up disabled, for comparison.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.role", havingValue = "rule-processor", matchIfMissing = true)
+public class WarmStartCoordinator implements SmartLifecycle, MeterBinder {
+
+    private static final String[] RETAILERS = {"retailer-a", "retailer-b", "retailer-c"};
+    private static final String[] BRANDS = {"brand-a", "brand-b", "brand-c", "brand-d"};
+    private static final String[] CATEGORIES = {"grocery", "electronics", "apparel"};
+
+    private final RuleConfigurationLoader ruleConfigurationLoader;
+    private final ClientConfigService clientConfigService;
+    private final List<Rule> ruleBeans;
+    private final ListenerMeters ruleEngineMeters;
+    private final boolean enabled;
+    private final int preloadBatchSize;
+    private final int products;
+    private final int chunkSize;
+    private final int maxRounds;
+    private final long maxDurationNanos;
+    private final double throughputTolerance;
+
+    private volatile boolean running;
+    private volatile double warmupMs = Double.NaN;
+    private volatile double readyMs = Double.NaN;
+    private volatile double fullThroughputMs = Double.NaN;
+
+    // Throughput check state, touched by the scheduler thread only
+    private long firstRecordAt;
+    private long sampledRecords;
+    private long sampledBusyNanos;
+    private double sampledRecordNanos = Double.NaN;
+
+    public WarmStartCoordinator(RuleConfigurationLoader ruleConfigurationLoader,
+                                ClientConfigService clientConfigService,
+                                List<Rule> ruleBeans,
+                                PipelineMetrics metrics,
+                                @Value("${rules.warmup.enabled:false}") boolean enabled,
+                                @Value("${rules.engine.listener-mode:batch}") String listenerMode,
+                                @Value("${rules.engine.evaluation-chunk-size:64}") int chunkSize,
+                                @Value("${rules.warmup.preload-batch-size:500}") int preloadBatchSize,
+                                @Value("${rules.warmup.products:512}") int products,
+                                @Value("${rules.warmup.rounds:200}") int maxRounds,
+                                @Value("${rules.warmup.max-duration-ms:30000}") long maxDurationMs,
+                                @Value("${rules.warmup.throughput-tolerance:0.1}") double throughputTolerance) {
+        this.ruleConfigurationLoader = ruleConfigurationLoader;
+        this.clientConfigService = clientConfigService;
+        this.ruleBeans = ruleBeans;
+        this.ruleEngineMeters = metrics.listenerMeters(
+                "record".equals(listenerMode) ? RuleEngine.RECORD_LISTENER_ID : RuleEngine.BATCH_LISTENER_ID);
+        this.enabled = enabled;
+        this.chunkSize = chunkSize;
+        this.preloadBatchSize = preloadBatchSize;
+        this.products = products;
+        this.maxRounds = maxRounds;
+        this.maxDurationNanos = TimeUnit.MILLISECONDS.toNanos(maxDurationMs);
+        this.throughputTolerance = throughputTolerance;
+    }
+
+    // Just before the listener containers, which are started by the endpoint registry in DEFAULT_PHASE, and
+    // after RuleConfigSubscription
+    @Override
+    public int getPhase() {
+        return AbstractMessageListenerContainer.DEFAULT_PHASE - 1;
+    }
+
+    @Override
+    public void start() {
+        if (enabled) {
+            long start = System.nanoTime();
+            try {
+                warmUp(preload());
+            } catch (RuntimeException e) {
+                log.warn("Warm-up failed, starting listeners cold: {}", e.getMessage(), e);
+            }
+            warmupMs = (System.nanoTime() - start) / 1e6;
+            log.info("Warm-up took {} ms", Math.round(warmupMs));
+        }
+        readyMs = ManagementFactory.getRuntimeMXBean().getUptime();
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private List<RulePlan> preload() {
+        List<String> clientIds = ruleConfigurationLoader.preload(preloadBatchSize);
+        List<RulePlan> plans = new ArrayList<>();
+        for (String clientId : clientIds) {
+            try {
+                plans.add(clientConfigService.getRulePlan(clientId));
+            } catch (RuntimeException e) {
+                log.warn("Could not compile rule plan for client {}: {}", clientId, e.getMessage());
+            }
+        }
+        log.info("Preloaded rule configs and compiled rule plans for {} clients", plans.size());
+        return plans;
+    }
+
+    /**
+     * Calls the rules directly rather than through the plans, so synthetic products leave no trace in the
+     * rule metrics, guards or fingerprint store. Rules that fail on synthetic input are dropped from the run.
+     */
+    private void warmUp(List<RulePlan> plans) {
+        Map<Rule, RuleParameters> rules = new IdentityHashMap<>();
+        for (RulePlan plan : plans) {
+            for (int i = 0; i < plan.size(); i++) {
+                rules.putIfAbsent(plan.getRule(i), plan.getParameters(i));
+            }
+        }
+        for (Rule rule : ruleBeans) {
+            rules.computeIfAbsent(rule, r -> {
+                RuleConfig config = ruleConfigurationLoader.loadConfig(r.getName());
+                return config == null ? RuleParameters.EMPTY : new RuleParameters(config.getParameters());
+            });
+        }
+        List<Product> batch = syntheticProducts(rules.keySet());
+
+        long start = System.nanoTime();
+        int rounds = 0;
+        while (!rules.isEmpty() && rounds < maxRounds && System.nanoTime() - start < maxDurationNanos) {
+            rules.entrySet().removeIf(entry -> !run(entry.getKey(), entry.getValue(), batch));
+            for (RulePlan plan : plans) {
+                for (Product product : batch) {
+                    plan.applicableRules(product);
+                }
+            }
+            rounds++;
+        }
+        log.info("Ran {} rules over {} synthetic products for {} rounds", rules.size(), batch.size(), rounds);
+    }
+
+    private boolean run(Rule rule, RuleParameters parameters, List<Product> batch) {
+        try {
+            if (rule instanceof BatchRule batchRule) {
+                for (int from = 0; from < batch.size(); from += chunkSize) {
+                    List<Product> chunk = batch.subList(from, Math.min(from + chunkSize, batch.size()));
+                    batchRule.evaluate(new ProductBatch(chunk), parameters, new BatchOutcome(chunk.size()));
+                }
+            }
+            for (Product product : batch) {
+                if (rule.isApplicable(product)) {
+                    rule.apply(product, parameters);
+                }
+            }
+            return true;
+        } catch (RuntimeException e) {
+            log.debug("Skipping warm-up of rule {}: {}", rule.getName(), e.getMessage());
+            return false;
+        }
+    }
+
+    // Every input field of every rule gets values of varied length, numeric or text, and sometimes null
+    private List<Product> syntheticProducts(Set<Rule> rules) {
+        Set<String> fields = new LinkedHashSet<>();
+        for (Rule rule : rules) {
+            List<String> inputFields = rule.getInputFields();
+            if (inputFields != null) {
+                fields.addAll(inputFields);
+            }
+        }
+        TableSchema schema = TableSchema.of(fields.toArray(new String[0]));
+        Random random = new Random(42);
+        List<Product> batch = new ArrayList<>(products);
+        for (int i = 0; i < products; i++) {
+            Product product = new Product();
+            product.setMessageId("warm-up");
+            product.setRpc("warm-up-" + i);
+            product.setClientId("warm-up");
+            product.setRetailer(RETAILERS[i % RETAILERS.length]);
+            product.setBrand(BRANDS[i % BRANDS.length]);
+            product.setCategory(CATEGORIES[i % CATEGORIES.length]);
+            String[] values = new String[schema.size()];
+            for (int slot = 0; slot < values.length; slot++) {
+                values[slot] = syntheticValue(random);
+            }
+            product.setAttributes(schema, values);
+            batch.add(product);
+        }
+        return batch;
+    }
+
+    private static String syntheticValue(Random random) {
+        return switch (random.nextInt(4)) {
+            case 0 -> null;
+            case 1 -> Integer.toString(random.nextInt(100_000));
+            case 2 -> String.format("%.2f", random.nextDouble() * 1000);
+            default -> "x".repeat(random.nextInt(120));
+        };
+    }
+
+    // Full throughput: the first interval after records arrive whose per-record time is within tolerance of the last one
+    @Scheduled(fixedDelayString = "${rules.warmup.throughput-check-ms:5000}")
+    public void checkThroughput() {
+        if (!running || !Double.isNaN(fullThroughputMs)) {
+            return;
+        }
+        long records = ruleEngineMeters.getRecords();
+        long busyNanos = ruleEngineMeters.getBusyNanos();
+        long processed = records - sampledRecords;
+        double recordNanos = processed == 0 ? Double.NaN : (busyNanos - sampledBusyNanos) / (double) processed;
+        sampledRecords = records;
+        sampledBusyNanos = busyNanos;
+        if (processed == 0) {
+            return;
+        }
+        if (firstRecordAt == 0) {
+            firstRecordAt = System.nanoTime();
+        } else if (recordNanos <= sampledRecordNanos * (1 + throughputTolerance)) {
+            fullThroughputMs = (System.nanoTime() - firstRecordAt) / 1e6;
+            log.info("Rule engine at full throughput {} ms after its first record ({} ns/record)",
+                    Math.round(fullThroughputMs), Math.round(recordNanos));
+        }
+        sampledRecordNanos = recordNanos;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        TimeGauge.builder("startup.warmup.duration", this, TimeUnit.MILLISECONDS, w -> w.warmupMs)
+                .description("Time spent preloading rule configs and warming up rules")
+                .register(registry);
+        TimeGauge.builder("startup.ready.time", this, TimeUnit.MILLISECONDS, w -> w.readyMs)
+                .description("Time from JVM start until the Kafka listeners start")
+                .register(registry);
+        TimeGauge.builder("startup.full.throughput.time", this, TimeUnit.MILLISECONDS, w -> w.fullThroughputMs)
+                .description("Time from the first rule-engine record until the per-record processing time stops improving")
+                .register(registry);
+    }
+}
@@ -0,0 +1,60 @@
+package com.rulesengine.store;
+
+import com.rulesengine.model.RuleResult;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+@Component
+@ConditionalOnProperty(name = "results.store.type", havingValue = "memory")
+public class InMemoryResultStore implements ResultStore {
+
+    // Rough per-result footprint of the object graph, used for reporting only
+    private static final long ESTIMATED_RESULT_BYTES = 256;
+
+    private final ConcurrentHashMap<String, Queue<RuleResult>> messageResults = new ConcurrentHashMap<>();
+
+    @Override
+    public void append(String messageId, List<RuleResult> results) {
+        messageResults.computeIfAbsent(messageId, k -> new ConcurrentLinkedQueue<>()).addAll(results);
+    }
+
+    @Override
+    public void forEach(String messageId, Consumer<RuleResult> consumer) {
+        Queue<RuleResult> results = messageResults.get(messageId);
+        if (results != null) {
+            results.forEach(consumer);
+        }
+    }
+
+    @Override
+    public void remove(String messageId) {
+        messageResults.remove(messageId);
+    }
+
+    @Override
+    public long size(String messageId) {
+        Queue<RuleResult> results = messageResults.get(messageId);
+        return results == null ? 0 : results.size();
+    }
+
+    @Override
+    public long heapBytes(String messageId) {
+        return size(messageId) * ESTIMATED_RESULT_BYTES;
+    }
+
+    @Override
+    public long totalHeapBytes() {
+        return messageResults.values().stream().mapToLong(Queue::size).sum() * ESTIMATED_RESULT_BYTES;
+    }
+
+    @Override
+    public int messageCount() {
+        return messageResults.size();
+    }
+}
@@ -0,0 +1,36 @@
+package com.rulesengine.store;
+
+import com.rulesengine.model.ProductResults;
+import com.rulesengine.model.RuleResult;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Holds rule results per messageId until the job completes and its output is written.
+ */
+public interface ResultStore {
+
+    void append(String messageId, List<RuleResult> results);
+
+    // Stores expand compact records into rows unless they can hold them more compactly
+    default void append(ProductResults results) {
+        append(results.getMessageId(), results.toRuleResults());
+    }
+
+    /**
+     * Streams every result stored for the messageId, in no particular order.
+     */
+    void forEach(String messageId, Consumer<RuleResult> consumer) throws IOException;
+
+    void remove(String messageId);
+
+    long size(String messageId);
+
+    long heapBytes(String messageId);
+
+    long totalHeapBytes();
+
+    int messageCount();
+}
@@ -0,0 +1,368 @@
+package com.rulesengine.store;
+
+import com.rulesengine.model.ProductResult;
+import com.rulesengine.model.ProductResults;
+import com.rulesengine.model.RuleResult;
+import com.rulesengine.util.BinaryReader;
+import com.rulesengine.util.BinaryWriter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Result store that keeps results in a compact binary encoding and spills them to segment files once the
+ * total heap budget is exceeded.
+ * <p>
+ * Low-cardinality strings (report date, store, customer, rule name, error message) are dictionary-encoded
+ * per messageId; the rpc is written inline. Compact {@link ProductResults} are kept as one entry per product
+ * that holds the product's fields once. Segments are appended through a file channel and mapped read-only
+ * only while the results are streamed out. Each segment holds whole entries only, so segments can be decoded
+ * independently.
+ * <p>
+ * Results appended for a messageId within {@code removed-retention-ms} of its removal are dropped, so a late
+ * result cannot recreate a log that nothing would ever remove again.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "results.store.type", havingValue = "spill", matchIfMissing = true)
+public class SpillingResultStore implements ResultStore {
+
+    // String encoding tags: 0 = null, 1 = inline literal, n >= 2 = dictionary id n - 2
+    private static final int NULL_STRING = 0;
+    private static final int LITERAL_STRING = 1;
+    private static final int DICTIONARY_OFFSET = 2;
+
+    // Entry tags: a single result row, or all results of one product
+    private static final int ROW_ENTRY = 0;
+    private static final int PRODUCT_ENTRY = 1;
+
+    private final Path directory;
+    private final long heapBudgetBytes;
+    private final int segmentBytes;
+    private final int maxDictionaryEntries;
+    private final long removedRetentionMs;
+
+    private final ConcurrentHashMap<String, ResultLog> logs = new ConcurrentHashMap<>();
+    // Removal time of recently removed messageIds, whose results are dropped
+    private final ConcurrentHashMap<String, Long> removed = new ConcurrentHashMap<>();
+    private final AtomicLong bufferedBytes = new AtomicLong();
+
+    public SpillingResultStore(@Value("${results.store.directory:${java.io.tmpdir}/rule-results}") String directory,
+                               @Value("${results.store.heap-budget-bytes:67108864}") long heapBudgetBytes,
+                               @Value("${results.store.segment-bytes:67108864}") int segmentBytes,
+                               @Value("${results.store.max-dictionary-entries:65536}") int maxDictionaryEntries,
+                               @Value("${results.store.removed-retention-ms:600000}") long removedRetentionMs) throws IOException {
+        this.directory = Files.createDirectories(Path.of(directory));
+        this.heapBudgetBytes = heapBudgetBytes;
+        this.segmentBytes = segmentBytes;
+        this.maxDictionaryEntries = maxDictionaryEntries;
+        this.removedRetentionMs = removedRetentionMs;
+    }
+
+    @Override
+    public void append(String messageId, List<RuleResult> results) {
+        ResultLog resultLog = open(messageId);
+        if (resultLog != null && resultLog.append(results)) {
+            spillIfOverBudget(resultLog);
+        } else {
+            log.debug("Dropped {} results for removed message {}", results.size(), messageId);
+        }
+    }
+
+    @Override
+    public void append(ProductResults results) {
+        ResultLog resultLog = open(results.getMessageId());
+        if (resultLog != null && resultLog.append(results)) {
+            spillIfOverBudget(resultLog);
+        } else {
+            log.debug("Dropped {} results for removed message {}", results.resultCount(), results.getMessageId());
+        }
+    }
+
+    // Null once the messageId was removed; remove() marks it before dropping the log, so no log is created after
+    private ResultLog open(String messageId) {
+        return logs.compute(messageId, (id, existing) ->
+                existing != null || removed.containsKey(id) ? existing : new ResultLog(id));
+    }
+
+    private void spillIfOverBudget(ResultLog resultLog) {
+        if (bufferedBytes.get() > heapBudgetBytes) {
+            resultLog.spill();
+        }
+    }
+
+    @Override
+    public void forEach(String messageId, Consumer<RuleResult> consumer) throws IOException {
+        ResultLog resultLog = logs.get(messageId);
+        if (resultLog != null) {
+            resultLog.forEach(consumer);
+        }
+    }
+
+    @Override
+    public void remove(String messageId) {
+        long now = System.currentTimeMillis();
+        removed.values().removeIf(removedAt -> now - removedAt > removedRetentionMs);
+        removed.put(messageId, now);
+        ResultLog resultLog = logs.remove(messageId);
+        if (resultLog != null) {
+            resultLog.delete();
+        }
+    }
+
+    @Override
+    public long size(String messageId) {
+        ResultLog resultLog = logs.get(messageId);
+        return resultLog == null ? 0 : resultLog.records;
+    }
+
+    @Override
+    public long heapBytes(String messageId) {
+        ResultLog resultLog = logs.get(messageId);
+        return resultLog == null ? 0 : resultLog.heapBytes();
+    }
+
+    @Override
+    public long totalHeapBytes() {
+        return logs.values().stream().mapToLong(ResultLog::heapBytes).sum();
+    }
+
+    @Override
+    public int messageCount() {
+        return logs.size();
+    }
+
+    private final class ResultLog {
+
+        private final String messageId;
+        private final StringDictionary dictionary = new StringDictionary(maxDictionaryEntries);
+        private final List<Segment> segments = new ArrayList<>();
+        private BinaryWriter buffer = new BinaryWriter(4096);
+        private FileChannel current;
+        private long records;
+        private boolean deleted;
+
+        ResultLog(String messageId) {
+            this.messageId = messageId;
+            bufferedBytes.addAndGet(buffer.capacity());
+        }
+
+        // False once deleted, when an append that raced with remove() is dropped
+        synchronized boolean append(List<RuleResult> results) {
+            if (deleted) {
+                return false;
+            }
+            int before = buffer.capacity();
+            for (RuleResult result : results) {
+                buffer.writeVarInt(ROW_ENTRY);
+                writeString(result.getReportDate());
+                writeString(result.getOnlineStore());
+                writeLiteral(result.getRpc());
+                writeString(result.getCustomerId());
+                writeString(result.getRuleName());
+                buffer.writeByte(result.isRulePassed() ? 1 : 0);
+                buffer.writeDouble(result.getRuleScore());
+                writeString(result.getErrorMessage());
+            }
+            records += results.size();
+            bufferedBytes.addAndGet(buffer.capacity() - before);
+            return true;
+        }
+
+        synchronized boolean append(ProductResults results) {
+            if (deleted) {
+                return false;
+            }
+            int before = buffer.capacity();
+            for (ProductResult product : results.getProducts()) {
+                buffer.writeVarInt(PRODUCT_ENTRY);
+                writeString(product.getReportDate());
+                writeString(product.getOnlineStore());
+                writeLiteral(product.getRpc());
+                writeString(product.getCustomerId());
+                buffer.writeVarInt(product.getScores().length);
+                BitSet evaluated = BitSet.valueOf(product.getEvaluated());
+                BitSet passed = BitSet.valueOf(product.getPassed());
+                int slot = 0;
+                for (int rule = evaluated.nextSetBit(0); rule >= 0; rule = evaluated.nextSetBit(rule + 1), slot++) {
+                    int code = product.getErrorCodes()[slot];
+                    writeString(results.getRuleNames().get(rule));
+                    buffer.writeByte(passed.get(rule) ? 1 : 0);
+                    buffer.writeDouble(product.getScores()[slot]);
+                    writeString(code == ProductResults.NO_ERROR ? null : results.getErrorMessages().get(code - 1));
+                }
+            }
+            records += results.resultCount();
+            bufferedBytes.addAndGet(buffer.capacity() - before);
+            return true;
+        }
+
+        synchronized void spill() {
+            if (deleted || buffer.size() == 0) {
+                return;
+            }
+            try {
+                Segment segment = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+                if (segment == null || segment.length > 0 && segment.length + buffer.size() > segmentBytes) {
+                    segment = startSegment();
+                }
+                ByteBuffer bytes = buffer.asReadOnlyBuffer();
+                while (bytes.hasRemaining()) {
+                    current.write(bytes);
+                }
+                segment.length += buffer.size();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Error spilling results for message " + messageId, e);
+            }
+            bufferedBytes.addAndGet(-buffer.capacity());
+            buffer = new BinaryWriter(4096);
+            bufferedBytes.addAndGet(buffer.capacity());
+        }
+
+        synchronized void forEach(Consumer<RuleResult> consumer) throws IOException {
+            for (Segment segment : segments) {
+                try (FileChannel channel = FileChannel.open(segment.path, StandardOpenOption.READ)) {
+                    decode(channel.map(FileChannel.MapMode.READ_ONLY, 0, segment.length), consumer);
+                }
+            }
+            decode(buffer.asReadOnlyBuffer(), consumer);
+        }
+
+        synchronized void delete() {
+            deleted = true;
+            bufferedBytes.addAndGet(-buffer.capacity());
+            closeSegment();
+            for (Segment segment : segments) {
+                try {
+                    Files.deleteIfExists(segment.path);
+                } catch (IOException e) {
+                    log.warn("Could not delete result segment {}", segment.path, e);
+                }
+            }
+            segments.clear();
+        }
+
+        synchronized long heapBytes() {
+            return buffer.capacity() + dictionary.heapBytes();
+        }
+
+        // Segments fill up to segmentBytes; a single spill larger than that gets a segment of its own
+        private Segment startSegment() throws IOException {
+            closeSegment();
+            Path path = directory.resolve(messageId.replaceAll("[^A-Za-z0-9_-]", "_") + "-" + segments.size() + ".seg");
+            current = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.WRITE);
+            Segment segment = new Segment(path);
+            segments.add(segment);
+            log.debug("Spilling results for message {} to {}", messageId, path);
+            return segment;
+        }
+
+        private void closeSegment() {
+            if (current == null) {
+                return;
+            }
+            try {
+                current.close();
+            } catch (IOException e) {
+                log.warn("Could not close result segment of message {}", messageId, e);
+            }
+            current = null;
+        }
+
+        private void writeString(String value) {
+            if (value == null) {
+                buffer.writeVarInt(NULL_STRING);
+                return;
+            }
+            int id = dictionary.idOf(value);
+            if (id == StringDictionary.NOT_FOUND) {
+                buffer.writeVarInt(LITERAL_STRING);
+                buffer.writeString(value);
+            } else {
+                buffer.writeVarInt(id + DICTIONARY_OFFSET);
+            }
+        }
+
+        private void writeLiteral(String value) {
+            if (value == null) {
+                buffer.writeVarInt(NULL_STRING);
+            } else {
+                buffer.writeVarInt(LITERAL_STRING);
+                buffer.writeString(value);
+            }
+        }
+
+        private void decode(ByteBuffer bytes, Consumer<RuleResult> consumer) {
+            BinaryReader reader = new BinaryReader(bytes);
+            while (reader.hasRemaining()) {
+                if (reader.readVarInt() == ROW_ENTRY) {
+                    consumer.accept(RuleResult.builder()
+                            .messageId(messageId)
+                            .reportDate(readString(reader))
+                            .onlineStore(readString(reader))
+                            .rpc(readString(reader))
+                            .customerId(readString(reader))
+                            .ruleName(readString(reader))
+                            .rulePassed(reader.readByte() == 1)
+                            .ruleScore(reader.readDouble())
+                            .errorMessage(readString(reader))
+                            .build());
+                    continue;
+                }
+                String reportDate = readString(reader);
+                String onlineStore = readString(reader);
+                String rpc = readString(reader);
+                String customerId = readString(reader);
+                int count = reader.readVarInt();
+                for (int i = 0; i < count; i++) {
+                    consumer.accept(RuleResult.builder()
+                            .messageId(messageId)
+                            .reportDate(reportDate)
+                            .onlineStore(onlineStore)
+                            .rpc(rpc)
+                            .customerId(customerId)
+                            .ruleName(readString(reader))
+                            .rulePassed(reader.readByte() == 1)
+                            .ruleScore(reader.readDouble())
+                            .errorMessage(readString(reader))
+                            .build());
+                }
+            }
+        }
+
+        private String readString(BinaryReader reader) {
+            int tag = reader.readVarInt();
+            return switch (tag) {
+                case NULL_STRING -> null;
+                case LITERAL_STRING -> reader.readString();
+                default -> dictionary.valueOf(tag - DICTIONARY_OFFSET);
+            };
+        }
+    }
+
+    private static final class Segment {
+
+        private final Path path;
+        private long length;
+
+        Segment(Path path) {
+            this.path = path;
+        }
+    }
+}
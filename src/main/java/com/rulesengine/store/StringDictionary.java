@@ -0,0 +1,47 @@
+package com.rulesengine.store;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Append-only string dictionary with a size cap; strings seen after the cap is reached get no id.
+ */
+class StringDictionary {
+
+    static final int NOT_FOUND = -1;
+
+    private final int maxEntries;
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> values = new ArrayList<>();
+    private long heapBytes;
+
+    StringDictionary(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    int idOf(String value) {
+        Integer id = ids.get(value);
+        if (id != null) {
+            return id;
+        }
+        if (values.size() >= maxEntries) {
+            return NOT_FOUND;
+        }
+        id = values.size();
+        ids.put(value, id);
+        values.add(value);
+        // String + map entry overhead, close enough for budget accounting
+        heapBytes += 2L * value.length() + 96;
+        return id;
+    }
+
+    String valueOf(int id) {
+        return values.get(id);
+    }
+
+    long heapBytes() {
+        return heapBytes;
+    }
+}
@@ -0,0 +1,92 @@
+package com.rulesengine.util;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Executor whose concurrency is capped by a semaphore rather than by the size of the underlying pool.
+ * <p>
+ * {@link #execute} blocks the submitting thread until a permit is free, which gives callers backpressure
+ * and lets the same cap apply whether tasks run on platform or virtual threads. The cap can be changed at
+ * runtime; lowering it lets running tasks finish and only holds back new ones.
+ */
+public class BoundedExecutor implements Executor, AutoCloseable {
+
+    private final String name;
+    private final ExecutorService delegate;
+    private final ResizableSemaphore permits;
+    private int maxConcurrency;
+
+    public BoundedExecutor(String name, ExecutorService delegate, int maxConcurrency) {
+        this.name = name;
+        this.delegate = delegate;
+        this.permits = new ResizableSemaphore(maxConcurrency);
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        permits.acquireUninterruptibly();
+        try {
+            delegate.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public synchronized int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public synchronized void setMaxConcurrency(int maxConcurrency) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("maxConcurrency must be positive: " + maxConcurrency);
+        }
+        int delta = maxConcurrency - this.maxConcurrency;
+        if (delta > 0) {
+            permits.release(delta);
+        } else if (delta < 0) {
+            permits.reduce(-delta);
+        }
+        this.maxConcurrency = maxConcurrency;
+        // A fork-join pool sized to the old cap would otherwise queue the extra tasks
+        if (delegate instanceof ForkJoinPool pool) {
+            pool.setParallelism(maxConcurrency);
+        }
+    }
+
+    public synchronized int getActiveCount() {
+        return maxConcurrency - permits.availablePermits();
+    }
+
+    @Override
+    public void close() {
+        delegate.shutdown();
+    }
+
+    // Available permits may go negative while tasks started under a larger cap are still running
+    private static final class ResizableSemaphore extends Semaphore {
+
+        ResizableSemaphore(int permits) {
+            super(permits);
+        }
+
+        void reduce(int reduction) {
+            reducePermits(reduction);
+        }
+    }
+}
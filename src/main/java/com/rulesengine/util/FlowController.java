@@ -0,0 +1,142 @@
+package com.rulesengine.util;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Caps in-flight records and bytes and adapts the record cap with AIMD.
+ * <p>
+ * Every acknowledged record within the latency target earns credit, and a full window of credit raises the
+ * cap by one. A slow or failed acknowledgement, or downstream backpressure, cuts the cap by a quarter, at
+ * most once per window. Callers block in {@link #acquire} while the caps are exhausted, so the producer runs
+ * at the rate the slowest downstream stage sustains.
+ */
+public class FlowController {
+
+    private static final double DECREASE_FACTOR = 0.75;
+    private static final long RATE_WINDOW_NANOS = 1_000_000_000L;
+
+    private final String name;
+    private final int minInFlight;
+    private final int maxInFlight;
+    private final long maxInFlightBytes;
+    private final long targetLatencyNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+    private int limit;
+    private int inFlight;
+    private long inFlightBytes;
+    private int increaseCredit;
+    private int completedSinceDecrease;
+    private volatile boolean backpressure;
+
+    private long rateWindowStart = System.nanoTime();
+    private long rateWindowCompleted;
+    private volatile double rate;
+
+    public FlowController(String name, int minInFlight, int maxInFlight, long maxInFlightBytes, long targetLatencyNanos) {
+        this.name = name;
+        this.minInFlight = minInFlight;
+        this.maxInFlight = maxInFlight;
+        this.maxInFlightBytes = maxInFlightBytes;
+        this.targetLatencyNanos = targetLatencyNanos;
+        this.limit = Math.max(minInFlight, maxInFlight / 4);
+    }
+
+    /**
+     * Blocks until a record of {@code bytes} fits under both caps. A single record larger than the byte
+     * cap is let through once nothing else is in flight.
+     */
+    public void acquire(long bytes) {
+        lock.lock();
+        try {
+            while (inFlight >= limit || (inFlight > 0 && inFlightBytes + bytes > maxInFlightBytes)) {
+                released.awaitUninterruptibly();
+            }
+            inFlight++;
+            inFlightBytes += bytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void release(long bytes, long latencyNanos, boolean failed) {
+        lock.lock();
+        try {
+            inFlight--;
+            inFlightBytes -= bytes;
+            completedSinceDecrease++;
+            if (failed || backpressure || latencyNanos > targetLatencyNanos) {
+                if (completedSinceDecrease >= limit) {
+                    limit = Math.max(minInFlight, (int) (limit * DECREASE_FACTOR));
+                    completedSinceDecrease = 0;
+                    increaseCredit = 0;
+                }
+            } else if (++increaseCredit >= limit) {
+                limit = Math.min(maxInFlight, limit + 1);
+                increaseCredit = 0;
+            }
+            updateRate();
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Set by a downstream monitor (e.g. consumer lag); while set the cap only shrinks
+    public void setBackpressure(boolean backpressure) {
+        this.backpressure = backpressure;
+    }
+
+    private void updateRate() {
+        rateWindowCompleted++;
+        long now = System.nanoTime();
+        long elapsed = now - rateWindowStart;
+        if (elapsed >= RATE_WINDOW_NANOS) {
+            rate = rateWindowCompleted * 1_000_000_000d / elapsed;
+            rateWindowStart = now;
+            rateWindowCompleted = 0;
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isBackpressure() {
+        return backpressure;
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getInFlightBytes() {
+        lock.lock();
+        try {
+            return inFlightBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Acknowledged records per second over the last completed one-second window
+    public double getRate() {
+        return rate;
+    }
+}
@@ -0,0 +1,136 @@
+package com.rulesengine.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Bounded, versioned in-process LRU cache.
+ * <p>
+ * Every invalidation bumps the cache generation. A value loaded while an invalidation was in flight
+ * is returned to its caller but not stored, so a stale read can never outlive the invalidation.
+ */
+public class NearCache<K, V> {
+
+    private final int maxSize;
+    private final long ttlMs;
+    private final LinkedHashMap<K, Entry<V>> entries;
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public NearCache(int maxSize, long ttlMs) {
+        this.maxSize = maxSize;
+        this.ttlMs = ttlMs;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                boolean evict = size() > NearCache.this.maxSize;
+                if (evict) {
+                    evictions.increment();
+                }
+                return evict;
+            }
+        };
+    }
+
+    public V get(K key, Function<K, V> loader) {
+        long now = System.currentTimeMillis();
+        Entry<V> entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+        if (entry != null && now - entry.loadedAt() < ttlMs) {
+            hits.increment();
+            return entry.value();
+        }
+
+        misses.increment();
+        long loadGeneration = generation.get();
+        V value = loader.apply(key);
+        synchronized (entries) {
+            if (generation.get() == loadGeneration) {
+                entries.put(key, new Entry<>(value, now));
+            }
+        }
+        return value;
+    }
+
+    public V getIfPresent(K key) {
+        Entry<V> entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+        if (entry != null && System.currentTimeMillis() - entry.loadedAt() < ttlMs) {
+            hits.increment();
+            return entry.value();
+        }
+        misses.increment();
+        return null;
+    }
+
+    public void put(K key, V value) {
+        synchronized (entries) {
+            entries.put(key, new Entry<>(value, System.currentTimeMillis()));
+        }
+    }
+
+    // Stores values loaded in bulk, unless an invalidation happened since loadGeneration was read
+    public boolean putAll(Map<K, V> values, long loadGeneration) {
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            if (generation.get() != loadGeneration) {
+                return false;
+            }
+            values.forEach((key, value) -> entries.put(key, new Entry<>(value, now)));
+            return true;
+        }
+    }
+
+    public void invalidate(K key) {
+        synchronized (entries) {
+            generation.incrementAndGet();
+            entries.remove(key);
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (entries) {
+            generation.incrementAndGet();
+            entries.clear();
+        }
+    }
+
+    public long getGeneration() {
+        return generation.get();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    private record Entry<V>(V value, long loadedAt) {
+    }
+}
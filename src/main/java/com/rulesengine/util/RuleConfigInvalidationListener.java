@@ -0,0 +1,42 @@
+package com.rulesengine.util;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Evicts near-cached rule configuration when it changes in Redis.
+ * <p>
+ * Handles keyspace notifications ({@code __keyspace@<db>__:<key>}, requires {@code notify-keyspace-events}
+ * to include {@code K$g}) and explicit messages on the update channel, whose body is the changed key
+ * or {@code *} to flush everything.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RuleConfigInvalidationListener implements MessageListener {
+
+    private static final String KEYSPACE_PREFIX = "__keyspace@";
+
+    private final RuleConfigurationLoader ruleConfigurationLoader;
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String channel = new String(message.getChannel(), StandardCharsets.UTF_8);
+        String key = channel.startsWith(KEYSPACE_PREFIX)
+                ? channel.substring(channel.indexOf("__:") + 3)
+                : new String(message.getBody(), StandardCharsets.UTF_8).trim();
+
+        if ("*".equals(key)) {
+            log.info("Flushing rule config near-cache");
+            ruleConfigurationLoader.invalidateAll();
+        } else {
+            log.debug("Invalidating rule config near-cache entry {}", key);
+            ruleConfigurationLoader.invalidate(key);
+        }
+    }
+}
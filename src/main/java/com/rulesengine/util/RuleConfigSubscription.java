@@ -0,0 +1,100 @@
+package com.rulesengine.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.PatternTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.kafka.listener.AbstractMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Subscribes the {@link RuleConfigInvalidationListener} to rule config changes without making Redis a startup
+ * dependency.
+ * <p>
+ * The listener container throws from {@code start()} when its first subscription fails; that is logged here and
+ * the subscription retried until it is established. Notifications missed meanwhile are covered by the
+ * near-cache TTL. Once subscribed, the container recovers dropped connections itself. The container is not a
+ * bean, so the context does not start it as a dependency of this one.
+ */
+@Slf4j
+@Component
+public class RuleConfigSubscription implements SmartLifecycle, DisposableBean {
+
+    private final RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+
+    private volatile boolean running;
+    private volatile boolean subscribed;
+
+    public RuleConfigSubscription(RedisConnectionFactory connectionFactory, RuleConfigInvalidationListener listener,
+                                  @Value("${rules.cache.invalidation-channel:rule-config-updates}") String channel) {
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(listener, List.of(
+                new PatternTopic("__keyspace@*__:rule_config:*"),
+                new PatternTopic("__keyspace@*__:enabled_rules:*"),
+                new ChannelTopic(channel)));
+        container.afterPropertiesSet();
+    }
+
+    // Before the warm-up's preload (DEFAULT_PHASE - 1), so invalidations during the preload are seen
+    @Override
+    public int getPhase() {
+        return AbstractMessageListenerContainer.DEFAULT_PHASE - 2;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        subscribe();
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false;
+        subscribed = false;
+        container.stop();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        container.destroy();
+    }
+
+    public boolean isSubscribed() {
+        return subscribed;
+    }
+
+    @Scheduled(fixedDelayString = "${rules.cache.subscribe-retry-ms:10000}")
+    public void retry() {
+        if (running && !subscribed) {
+            subscribe();
+        }
+    }
+
+    private synchronized void subscribe() {
+        if (subscribed || !running) {
+            return;
+        }
+        try {
+            container.start();
+            subscribed = true;
+            log.info("Subscribed to rule config invalidations");
+        } catch (RuntimeException e) {
+            // Resets the container so the next attempt subscribes from scratch
+            container.stop();
+            log.warn("Could not subscribe to rule config invalidations, retrying; until then cached configs "
+                    + "are only refreshed when they expire: {}", e.getMessage());
+        }
+    }
+}
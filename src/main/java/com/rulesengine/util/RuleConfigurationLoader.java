@@ -1,23 +1,127 @@
 package com.rulesengine.util;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.rulesengine.model.RuleConfig;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.Cursor;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 
+@Slf4j
 @Component
-@RequiredArgsConstructor
-public class RuleConfigurationLoader {
+public class RuleConfigurationLoader implements MeterBinder {
+
+    public static final String RULE_CONFIG_PREFIX = "rule_config:";
+    public static final String ENABLED_RULES_PREFIX = "enabled_rules:";
+
+    private static final TypeReference<List<String>> RULE_NAMES = new TypeReference<>() {
+    };
 
     private final RedisTemplate<String, Object> redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final NearCache<String, Object> cache;
+
+    public RuleConfigurationLoader(RedisTemplate<String, Object> redisTemplate,
+                                   ObjectMapper objectMapper,
+                                   @Value("${rules.cache.max-size:10000}") int maxSize,
+                                   @Value("${rules.cache.ttl-ms:300000}") long ttlMs) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.cache = new NearCache<>(maxSize, ttlMs);
+    }
 
     public RuleConfig loadConfig(String ruleName) {
-        return (RuleConfig) redisTemplate.opsForValue().get("rule_config:" + ruleName);
+        return (RuleConfig) cache.get(RULE_CONFIG_PREFIX + ruleName,
+                key -> objectMapper.convertValue(redisTemplate.opsForValue().get(key), RuleConfig.class));
     }
 
+    @SuppressWarnings("unchecked")
     public List<String> getEnabledRules(String clientId) {
-        return (List<String>) redisTemplate.opsForValue().get("enabled_rules:" + clientId);
+        return (List<String>) cache.get(ENABLED_RULES_PREFIX + clientId,
+                key -> objectMapper.convertValue(redisTemplate.opsForValue().get(key), RULE_NAMES));
+    }
+
+    /**
+     * Loads every rule config and enabled-rules list into the cache: keys are listed with SCAN and read with
+     * one MGET per batch instead of one GET per key on first use. Returns the ids of clients with an
+     * enabled-rules list.
+     */
+    public List<String> preload(int batchSize) {
+        long generation = cache.getGeneration();
+        preload(RULE_CONFIG_PREFIX, batchSize, generation, value -> objectMapper.convertValue(value, RuleConfig.class));
+        List<String> keys = preload(ENABLED_RULES_PREFIX, batchSize, generation,
+                value -> objectMapper.convertValue(value, RULE_NAMES));
+        return keys.stream().map(key -> key.substring(ENABLED_RULES_PREFIX.length())).toList();
+    }
+
+    private List<String> preload(String prefix, int batchSize, long generation, Function<Object, Object> converter) {
+        List<String> loaded = new ArrayList<>();
+        List<String> batch = new ArrayList<>(batchSize);
+        ScanOptions options = ScanOptions.scanOptions().match(prefix + "*").count(batchSize).build();
+        try (Cursor<String> cursor = redisTemplate.scan(options)) {
+            while (cursor.hasNext()) {
+                batch.add(cursor.next());
+                if (batch.size() == batchSize || !cursor.hasNext()) {
+                    loaded.addAll(load(batch, generation, converter));
+                    batch.clear();
+                }
+            }
+        }
+        if (loaded.size() > cache.getMaxSize()) {
+            log.warn("Preloaded {} {}* keys into a cache of {} entries", loaded.size(), prefix, cache.getMaxSize());
+        }
+        return loaded;
+    }
+
+    private List<String> load(List<String> keys, long generation, Function<Object, Object> converter) {
+        List<Object> values = redisTemplate.opsForValue().multiGet(keys);
+        Map<String, Object> converted = new HashMap<>();
+        for (int i = 0; i < keys.size(); i++) {
+            Object value = values == null ? null : values.get(i);
+            // Keys deleted between SCAN and MGET are left to be loaded lazily
+            if (value != null) {
+                converted.put(keys.get(i), converter.apply(value));
+            }
+        }
+        if (!cache.putAll(converted, generation)) {
+            log.debug("Rule configs changed during preload; {} keys left to be loaded lazily", converted.size());
+        }
+        return new ArrayList<>(converted.keySet());
+    }
+
+    // Changes whenever any cached config is invalidated; compiled state built from configs keys off it
+    public long getVersion() {
+        return cache.getGeneration();
+    }
+
+    public void invalidate(String key) {
+        if (key.startsWith(RULE_CONFIG_PREFIX) || key.startsWith(ENABLED_RULES_PREFIX)) {
+            cache.invalidate(key);
+        }
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("rules.config.cache.hits", cache, NearCache::getHits).register(registry);
+        FunctionCounter.builder("rules.config.cache.misses", cache, NearCache::getMisses).register(registry);
+        FunctionCounter.builder("rules.config.cache.evictions", cache, NearCache::getEvictions).register(registry);
+        Gauge.builder("rules.config.cache.size", cache, NearCache::size).register(registry);
     }
 }
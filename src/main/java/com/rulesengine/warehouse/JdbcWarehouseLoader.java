@@ -0,0 +1,157 @@
+package com.rulesengine.warehouse;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.S3Object;
+import com.rulesengine.output.ResultFormat;
+import com.rulesengine.output.RuleResultColumn;
+import com.rulesengine.output.RuleResultWriterFactory;
+import com.rulesengine.util.BoundedExecutor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.retry.annotation.Backoff;
+import org.springframework.retry.annotation.Retryable;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSetMetaData;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Loads staged CSV files through plain JDBC, for databases without a stage of their own: Postgres (15 or
+ * later, for MERGE) such as the docker-compose instance, or H2.
+ * <p>
+ * Each file is read back from the results bucket and batch-inserted into a staging table on its own
+ * connection, the files in parallel. One MERGE then applies the latest row per key, matching only target
+ * rows of the report dates found in the staging table.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "results.warehouse.loader", havingValue = "jdbc")
+public class JdbcWarehouseLoader implements WarehouseLoader {
+
+    private static final int COLUMNS = RuleResultColumn.values().length;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AmazonS3 amazonS3Client;
+    private final BoundedExecutor publishExecutor;
+    private final RuleResultWriterFactory writerFactory;
+    private final String s3BucketName;
+    private final String tableName;
+    private final int insertBatchSize;
+
+    public JdbcWarehouseLoader(JdbcTemplate jdbcTemplate, AmazonS3 amazonS3Client,
+                               @Qualifier("publishExecutor") BoundedExecutor publishExecutor,
+                               RuleResultWriterFactory writerFactory,
+                               @Value("${s3.bucket.name}") String s3BucketName,
+                               @Value("${snowflake.table.name}") String tableName,
+                               @Value("${results.warehouse.insert-batch-size:1000}") int insertBatchSize) {
+        if (writerFactory.getFormat() != ResultFormat.CSV) {
+            throw new IllegalStateException("The jdbc warehouse loader reads CSV results; set results.output.format=CSV");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.amazonS3Client = amazonS3Client;
+        this.publishExecutor = publishExecutor;
+        this.writerFactory = writerFactory;
+        this.s3BucketName = s3BucketName;
+        this.tableName = tableName;
+        this.insertBatchSize = insertBatchSize;
+    }
+
+    @Override
+    @Retryable(value = {Exception.class}, maxAttempts = 3, backoff = @Backoff(delay = 1000))
+    public void load(List<StagedFile> files) {
+        String staging = MergeStatements.stagingTable(tableName);
+        jdbcTemplate.execute(String.format(
+                "CREATE TABLE %s AS SELECT %s, CAST(NULL AS INTEGER) AS %s, CAST(NULL AS BIGINT) AS %s FROM %s WHERE 1 = 0",
+                staging, MergeStatements.columns(null), MergeStatements.FILE_SEQ, MergeStatements.FILE_ROW, tableName));
+        try {
+            int[] types = columnTypes(staging);
+            List<CompletableFuture<Void>> copies = new ArrayList<>();
+            for (int i = 0; i < files.size(); i++) {
+                int fileSeq = i;
+                copies.add(CompletableFuture.runAsync(() -> copy(staging, files.get(fileSeq), fileSeq, types), publishExecutor));
+            }
+            try {
+                CompletableFuture.allOf(copies.toArray(new CompletableFuture[0])).join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+            int merged = jdbcTemplate.update(mergeSql(staging));
+            log.debug("Merged {} rows from {} staged files into {}", merged, files.size(), tableName);
+        } finally {
+            jdbcTemplate.execute("DROP TABLE IF EXISTS " + staging);
+        }
+    }
+
+    // SQL types of the staging columns, taken from the target table, so values bind as the database expects
+    private int[] columnTypes(String staging) {
+        return jdbcTemplate.query("SELECT * FROM " + staging + " WHERE 1 = 0", resultSet -> {
+            ResultSetMetaData metaData = resultSet.getMetaData();
+            int[] types = new int[COLUMNS + 2];
+            for (int i = 0; i < COLUMNS; i++) {
+                types[i] = metaData.getColumnType(i + 1);
+            }
+            types[COLUMNS] = Types.INTEGER;
+            types[COLUMNS + 1] = Types.BIGINT;
+            return types;
+        });
+    }
+
+    private void copy(String staging, StagedFile file, int fileSeq, int[] types) {
+        String insert = String.format("INSERT INTO %s (%s, %s, %s) VALUES (%s)",
+                staging, MergeStatements.columns(null), MergeStatements.FILE_SEQ, MergeStatements.FILE_ROW,
+                String.join(", ", Collections.nCopies(COLUMNS + 2, "?")));
+        RuleResultColumn[] columns = RuleResultColumn.values();
+        try (S3Object object = amazonS3Client.getObject(s3BucketName, file.s3Key());
+             InputStream in = writerFactory.getCompression().wrap(object.getObjectContent());
+             CSVParser parser = CSVFormat.DEFAULT.withFirstRecordAsHeader()
+                     .parse(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            List<Object[]> rows = new ArrayList<>(insertBatchSize);
+            long fileRow = 0;
+            for (CSVRecord record : parser) {
+                Object[] row = new Object[COLUMNS + 2];
+                for (RuleResultColumn column : columns) {
+                    // Empty fields load as NULL, as with Snowflake's default CSV format
+                    String value = record.get(column.getHeader());
+                    row[column.ordinal()] = value.isEmpty() ? null : value;
+                }
+                row[COLUMNS] = fileSeq;
+                row[COLUMNS + 1] = fileRow++;
+                rows.add(row);
+                if (rows.size() == insertBatchSize) {
+                    jdbcTemplate.batchUpdate(insert, rows, types);
+                    rows.clear();
+                }
+            }
+            if (!rows.isEmpty()) {
+                jdbcTemplate.batchUpdate(insert, rows, types);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error reading staged file s3://" + s3BucketName + "/" + file.s3Key(), e);
+        }
+    }
+
+    private String mergeSql(String staging) {
+        return String.format(
+                "MERGE INTO %s t USING (SELECT %s FROM (SELECT %s, %s AS row_rank FROM %s) ranked WHERE row_rank = 1) s " +
+                        "ON %s AND t.report_date IN (SELECT report_date FROM %s) %s",
+                tableName, MergeStatements.columns(null), MergeStatements.columns(null),
+                MergeStatements.latestRowOrder(MergeStatements.FILE_SEQ), staging,
+                MergeStatements.keyCondition(), staging, MergeStatements.mergeActions(null));
+    }
+}
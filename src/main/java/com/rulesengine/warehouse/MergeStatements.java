@@ -0,0 +1,66 @@
+package com.rulesengine.warehouse;
+
+import com.rulesengine.output.RuleResultColumn;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * SQL fragments shared by the staged loaders: the result columns, the row key and the MERGE clauses.
+ */
+final class MergeStatements {
+
+    static final Set<RuleResultColumn> KEY = EnumSet.of(
+            RuleResultColumn.REPORT_DATE, RuleResultColumn.RPC, RuleResultColumn.RULE_NAME);
+
+    // Position of the row's file in the load, and of the row in its file; the highest of a key wins
+    static final String FILE_SEQ = "file_seq";
+    static final String FILE_ROW = "file_row";
+
+    private MergeStatements() {
+    }
+
+    // One staging table per load, so concurrent publishers never share one
+    static String stagingTable(String targetTable) {
+        return targetTable + "_stage_" + UUID.randomUUID().toString().replace("-", "");
+    }
+
+    static String columns(String alias) {
+        return Arrays.stream(RuleResultColumn.values())
+                .map(column -> alias == null ? column.getColumnName() : alias + "." + column.getColumnName())
+                .collect(Collectors.joining(", "));
+    }
+
+    static String keyColumns() {
+        return KEY.stream().map(RuleResultColumn::getColumnName).collect(Collectors.joining(", "));
+    }
+
+    static String latestRowOrder(String fileSeq) {
+        return "ROW_NUMBER() OVER (PARTITION BY " + keyColumns() + " ORDER BY " + fileSeq + " DESC, " + FILE_ROW + " DESC)";
+    }
+
+    static String keyCondition() {
+        return KEY.stream().map(column -> "t." + column.getColumnName() + " = s." + column.getColumnName())
+                .collect(Collectors.joining(" AND "));
+    }
+
+    /**
+     * WHEN MATCHED / WHEN NOT MATCHED clauses of a MERGE from source {@code s}. Updated columns are qualified
+     * with the target alias where the database requires it.
+     */
+    static String mergeActions(String updateAlias) {
+        String updates = Arrays.stream(RuleResultColumn.values())
+                .filter(column -> !KEY.contains(column))
+                .map(column -> (updateAlias == null ? "" : updateAlias + ".") + column.getColumnName() + " = s." + column.getColumnName())
+                .collect(Collectors.joining(", "));
+        return "WHEN MATCHED THEN UPDATE SET " + updates + " " +
+                "WHEN NOT MATCHED THEN INSERT (" + columns(null) + ") VALUES (" + columns("s") + ")";
+    }
+
+    static String quote(String literal) {
+        return "'" + literal.replace("'", "''") + "'";
+    }
+}
@@ -0,0 +1,103 @@
+package com.rulesengine.warehouse;
+
+import com.rulesengine.output.ResultFormat;
+import com.rulesengine.output.RuleResultColumn;
+import com.rulesengine.output.RuleResultWriterFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.retry.annotation.Backoff;
+import org.springframework.retry.annotation.Retryable;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Loads staged files with one COPY into a transient staging table, which Snowflake runs over the files in
+ * parallel, followed by one MERGE of the latest row per key. The MERGE is restricted to the report dates
+ * of the files, so its cost follows the loaded dates rather than the size of the whole target table.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "results.warehouse.loader", havingValue = "snowflake", matchIfMissing = true)
+public class SnowflakeWarehouseLoader implements WarehouseLoader {
+
+    private static final String SOURCE_FILE = "source_file";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final RuleResultWriterFactory writerFactory;
+    private final String s3BucketName;
+    private final String tableName;
+    private final String parquetFileFormat;
+
+    public SnowflakeWarehouseLoader(JdbcTemplate jdbcTemplate, RuleResultWriterFactory writerFactory,
+                                    @Value("${s3.bucket.name}") String s3BucketName,
+                                    @Value("${snowflake.table.name}") String tableName,
+                                    @Value("${snowflake.parquet-file-format:rule_results_parquet}") String parquetFileFormat) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.writerFactory = writerFactory;
+        this.s3BucketName = s3BucketName;
+        this.tableName = tableName;
+        this.parquetFileFormat = parquetFileFormat;
+    }
+
+    @Override
+    @Retryable(value = {Exception.class}, maxAttempts = 3, backoff = @Backoff(delay = 1000))
+    public void load(List<StagedFile> files) {
+        String staging = MergeStatements.stagingTable(tableName);
+        jdbcTemplate.execute(String.format(
+                "CREATE TRANSIENT TABLE %s AS SELECT %s, CAST(NULL AS VARCHAR) AS %s, CAST(NULL AS NUMBER) AS %s FROM %s WHERE 1 = 0",
+                staging, MergeStatements.columns(null), SOURCE_FILE, MergeStatements.FILE_ROW, tableName));
+        try {
+            jdbcTemplate.execute(copySql(staging, files));
+            List<String> reportDates = reportDates(files);
+            int merged = jdbcTemplate.update(mergeSql(staging, files, reportDates.size()), reportDates.toArray());
+            log.debug("Merged {} rows from {} staged files into {}", merged, files.size(), tableName);
+        } finally {
+            jdbcTemplate.execute("DROP TABLE IF EXISTS " + staging);
+        }
+    }
+
+    // CSV columns are positional ($1, $2, ...) after the header row, with fields quoted by the writer when needed;
+    // Parquet columns are read by name from the single variant column
+    private String copySql(String staging, List<StagedFile> files) {
+        String stagedColumns = Arrays.stream(RuleResultColumn.values())
+                .map(column -> writerFactory.getFormat() == ResultFormat.PARQUET
+                        ? "$1:" + column.getColumnName()
+                        : "$" + (column.ordinal() + 1))
+                .collect(Collectors.joining(", "));
+        String fileNames = files.stream().map(file -> MergeStatements.quote(file.s3Key())).collect(Collectors.joining(", "));
+        String fileFormat = writerFactory.getFormat() == ResultFormat.PARQUET
+                ? "FILE_FORMAT = (FORMAT_NAME = '" + parquetFileFormat + "')"
+                : "FILE_FORMAT = (TYPE = CSV SKIP_HEADER = 1 FIELD_OPTIONALLY_ENCLOSED_BY = '\"')";
+        return String.format(
+                "COPY INTO %s (%s, %s, %s) FROM (SELECT %s, METADATA$FILENAME, METADATA$FILE_ROW_NUMBER FROM @%s) FILES = (%s) %s",
+                staging, MergeStatements.columns(null), SOURCE_FILE, MergeStatements.FILE_ROW,
+                stagedColumns, s3BucketName, fileNames, fileFormat);
+    }
+
+    private String mergeSql(String staging, List<StagedFile> files, int reportDates) {
+        // Files are ranked by their position in the load
+        String fileSeq = IntStream.range(0, files.size())
+                .mapToObj(i -> "WHEN " + MergeStatements.quote(files.get(i).s3Key()) + " THEN " + i)
+                .collect(Collectors.joining(" ", "CASE " + SOURCE_FILE + " ", " END"));
+        String dateFilter = reportDates == 0 ? ""
+                : " AND t.report_date IN (" + String.join(", ", Collections.nCopies(reportDates, "?")) + ")";
+        return String.format(
+                "MERGE INTO %s t USING (SELECT %s FROM %s QUALIFY %s = 1) s ON %s%s %s",
+                tableName, MergeStatements.columns(null), staging, MergeStatements.latestRowOrder(fileSeq),
+                MergeStatements.keyCondition(), dateFilter, MergeStatements.mergeActions("t"));
+    }
+
+    private static List<String> reportDates(List<StagedFile> files) {
+        TreeSet<String> dates = new TreeSet<>();
+        files.forEach(file -> dates.addAll(file.reportDates()));
+        return List.copyOf(dates);
+    }
+}
@@ -0,0 +1,9 @@
+package com.rulesengine.warehouse;
+
+import java.util.Set;
+
+/**
+ * A result file uploaded to the results bucket, with the report dates of the rows it holds.
+ */
+public record StagedFile(String s3Key, Set<String> reportDates) {
+}
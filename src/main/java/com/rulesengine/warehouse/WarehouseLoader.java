@@ -0,0 +1,15 @@
+package com.rulesengine.warehouse;
+
+import java.util.List;
+
+/**
+ * Loads staged result files into the warehouse results table.
+ * <p>
+ * Rows are keyed by (report_date, rpc, rule_name): an existing row is updated, a new one inserted. When the
+ * files hold the same key more than once, the row of the later file in the list wins, and within a file the
+ * later row. A load is idempotent, so a failed load can be repeated with the same files.
+ */
+public interface WarehouseLoader {
+
+    void load(List<StagedFile> files);
+}
@@ -0,0 +1,128 @@
+package com.rulesengine.codec;
+
+import com.rulesengine.model.Product;
+import com.rulesengine.model.ProductResults;
+import com.rulesengine.model.RuleResult;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BinaryCodecTest {
+
+    @Test
+    void roundTripsProduct() {
+        Product product = new Product();
+        product.setMessageId("msg-1");
+        product.setRpc("rpc-1");
+        product.setClientId("client-1");
+        product.setRetailer("amazon");
+        product.setBrand("acme");
+        Map<String, String> attributes = new HashMap<>();
+        attributes.put("title", "Acme anvil");
+        attributes.put("shelf_position", "top");
+        attributes.put("description", null);
+        product.setAttributes(attributes);
+
+        byte[] data = ProductCodec.encode(product);
+
+        assertTrue(BinaryCodec.isBinary(data));
+        Product decoded = ProductCodec.decode(data);
+        assertEquals(product, decoded);
+        assertNull(decoded.getCategory());
+    }
+
+    @Test
+    void internsInlineAttributeKeys() {
+        Product product = new Product();
+        product.setAttributes(Map.of("shelf_position", "top"));
+
+        String first = ProductCodec.decode(ProductCodec.encode(product)).getAttributes().keySet().iterator().next();
+        String second = ProductCodec.decode(ProductCodec.encode(product)).getAttributes().keySet().iterator().next();
+
+        assertSame(first, second);
+    }
+
+    @Test
+    void roundTripsRuleResults() {
+        List<RuleResult> results = List.of(
+                result("rpc-1", "TitleLengthRule", true, ""),
+                result("rpc-1", "ImageRule", false, "Missing image"),
+                result("rpc-2", "TitleLengthRule", true, null));
+
+        assertEquals(results, RuleResultCodec.decode(RuleResultCodec.encode(results)));
+    }
+
+    @Test
+    void roundTripsProductResults() {
+        List<RuleResult> results = List.of(
+                result("rpc-1", "TitleLengthRule", true, ""),
+                result("rpc-1", "ImageRule", false, "Missing image"),
+                result("rpc-2", "TitleLengthRule", true, null));
+
+        ProductResults packed = ProductResults.of("msg-1", results);
+        ProductResults decoded = ProductResultsCodec.decode(ProductResultsCodec.encode(packed));
+
+        assertEquals(2, packed.getProducts().size());
+        assertEquals(List.of("TitleLengthRule", "ImageRule"), packed.getRuleNames());
+        assertEquals(packed, decoded);
+        assertEquals(results, decoded.toRuleResults());
+    }
+
+    @Test
+    void deserializerAcceptsJsonAndBinary() {
+        TopicCodecSerializer serializer = new TopicCodecSerializer();
+        serializer.configure(Map.of(TopicCodecSerializer.BINARY_TOPICS_CONFIG, "rule-results"), false);
+        TopicCodecDeserializer deserializer = new TopicCodecDeserializer();
+        deserializer.configure(Map.of("spring.json.trusted.packages", "*"), false);
+        List<RuleResult> results = List.of(result("rpc-1", "TitleLengthRule", true, ""));
+
+        byte[] binary = serializer.serialize("rule-results", results);
+        assertTrue(BinaryCodec.isBinary(binary));
+        assertEquals(results, deserializer.deserialize("rule-results", binary));
+
+        Product product = new Product();
+        product.setRpc("rpc-1");
+        byte[] json = serializer.serialize("rpc-for-processing", product);
+        assertEquals('{', json[0]);
+    }
+
+    @Test
+    void jsonRuleResultsDeserializeAsRuleResults() {
+        TopicCodecSerializer serializer = new TopicCodecSerializer();
+        serializer.configure(Map.of(), false);
+        TopicCodecDeserializer deserializer = new TopicCodecDeserializer();
+        deserializer.configure(Map.of("spring.json.trusted.packages", "*"), false);
+        List<RuleResult> results = new ArrayList<>(List.of(
+                result("rpc-1", "TitleLengthRule", true, ""),
+                result("rpc-1", "ImageRule", false, "Missing image")));
+        RecordHeaders headers = new RecordHeaders();
+
+        byte[] json = serializer.serialize("rule-results", headers, results);
+
+        assertEquals('[', json[0]);
+        assertEquals(results, deserializer.deserialize("rule-results", headers, json));
+    }
+
+    private static RuleResult result(String rpc, String ruleName, boolean passed, String errorMessage) {
+        return RuleResult.builder()
+                .messageId("msg-1")
+                .reportDate("2024-01-01")
+                .onlineStore("amazon")
+                .rpc(rpc)
+                .customerId("client-1")
+                .ruleName(ruleName)
+                .rulePassed(passed)
+                .ruleScore(passed ? 1.0 : 0.0)
+                .errorMessage(errorMessage)
+                .build();
+    }
+}
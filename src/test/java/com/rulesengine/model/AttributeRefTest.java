@@ -0,0 +1,30 @@
+package com.rulesengine.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class AttributeRefTest {
+
+    private final AttributeRef price = new AttributeRef("price");
+
+    @Test
+    void readsSlotOfEachProductsSchema() {
+        assertEquals("19.99", price.get(product(TableSchema.of("title", "price"), "Anvil", "19.99")));
+        assertEquals("4.50", price.get(product(TableSchema.of("price", "title"), "4.50", "Hammer")));
+        assertEquals("24.99", price.get(product(TableSchema.of("title", "price"), "Tongs", "24.99")));
+    }
+
+    @Test
+    void returnsNullWithoutTheAttribute() {
+        assertNull(price.get(product(TableSchema.of("title"), "Anvil")));
+        assertNull(price.get(new Product()));
+    }
+
+    private static Product product(TableSchema schema, String... values) {
+        Product product = new Product();
+        product.setAttributes(schema, values);
+        return product;
+    }
+}
@@ -0,0 +1,88 @@
+package com.rulesengine.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProductTest {
+
+    private static final TableSchema SCHEMA = TableSchema.of("title", "price", "color");
+
+    @Test
+    void exposesAttributesAsReadOnlyMapView() {
+        Product product = product(SCHEMA, "Anvil", "19.99", null);
+        Map<String, String> attributes = product.getAttributes();
+
+        assertEquals(3, attributes.size());
+        assertEquals("Anvil", attributes.get("title"));
+        assertTrue(attributes.containsKey("color"));
+        assertNull(attributes.get("color"));
+        assertFalse(attributes.containsKey("weight"));
+        assertNull(attributes.get(42));
+        List<String> names = new ArrayList<>();
+        attributes.forEach((name, value) -> names.add(name));
+        assertEquals(List.of("title", "price", "color"), names);
+        assertThrows(UnsupportedOperationException.class, () -> attributes.put("title", "Hammer"));
+    }
+
+    @Test
+    void copiesMapIntoSchemaLayout() {
+        Map<String, String> attributes = new LinkedHashMap<>();
+        attributes.put("title", "Anvil");
+        attributes.put("price", "19.99");
+        Product product = new Product();
+
+        product.setAttributes(attributes);
+
+        assertEquals(attributes, product.getAttributes());
+        assertEquals("19.99", product.getAttribute("price"));
+        assertNull(product.getAttribute("color"));
+
+        product.setAttributes((Map<String, String>) null);
+        assertNull(product.getAttributes());
+        assertNull(product.getAttribute("title"));
+    }
+
+    @Test
+    void rejectsValuesNotMatchingSchema() {
+        assertThrows(IllegalArgumentException.class, () -> product(SCHEMA, "Anvil", "19.99"));
+    }
+
+    @Test
+    void comparesAttributeValues() {
+        Product anvil = product(SCHEMA, "Anvil", "19.99", null);
+
+        assertEquals(anvil, product(SCHEMA, "Anvil", "19.99", null));
+        assertEquals(anvil.hashCode(), product(SCHEMA, "Anvil", "19.99", null).hashCode());
+        assertNotEquals(anvil, product(SCHEMA, "Anvil", "24.99", null));
+        assertNotEquals(anvil, product(SCHEMA, "Anvil", "19.99", "red"));
+    }
+
+    @Test
+    void equalsProductWithSameAttributesInAnotherOrder() {
+        Product anvil = product(SCHEMA, "Anvil", "19.99", "black");
+        Product reordered = product(TableSchema.of("color", "title", "price"), "black", "Anvil", "19.99");
+
+        assertEquals(anvil, reordered);
+        assertEquals(anvil.hashCode(), reordered.hashCode());
+        assertNotEquals(anvil, product(TableSchema.of("title", "price"), "Anvil", "19.99"));
+    }
+
+    private static Product product(TableSchema schema, String... values) {
+        Product product = new Product();
+        product.setRpc("rpc-1");
+        product.setBrand("acme");
+        product.setAttributes(schema, values);
+        return product;
+    }
+}
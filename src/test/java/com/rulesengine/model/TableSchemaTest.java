@@ -0,0 +1,40 @@
+package com.rulesengine.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TableSchemaTest {
+
+    @Test
+    void internsSchemasByAttributeNames() {
+        String[] names = {"title", "gtin", "price"};
+        TableSchema schema = TableSchema.of(names);
+
+        assertSame(schema, TableSchema.of("title", "gtin", "price"));
+        assertNotSame(schema, TableSchema.of("gtin", "title", "price"));
+        assertSame(TableSchema.EMPTY, TableSchema.of());
+
+        // The interned schema does not share the caller's array
+        names[0] = "changed";
+        assertEquals("title", schema.attributeName(0));
+    }
+
+    @Test
+    void mapsNamesToSlots() {
+        TableSchema schema = TableSchema.of("title", "gtin", "price");
+
+        assertEquals(3, schema.size());
+        assertEquals(1, schema.slotOf("gtin"));
+        assertEquals(-1, schema.slotOf("color"));
+        assertEquals("price", schema.attributeName(2));
+    }
+
+    @Test
+    void rejectsDuplicateNames() {
+        assertThrows(IllegalArgumentException.class, () -> TableSchema.of("title", "title"));
+    }
+}
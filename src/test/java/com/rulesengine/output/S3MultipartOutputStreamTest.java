@@ -0,0 +1,65 @@
+package com.rulesengine.output;
+
+import com.rulesengine.support.InMemoryS3;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class S3MultipartOutputStreamTest {
+
+    private final InMemoryS3 s3 = new InMemoryS3();
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void uploadsLargeObjectInParts() throws IOException {
+        byte[] data = new byte[12 * 1024 * 1024];
+        new Random(42).nextBytes(data);
+
+        try (OutputStream out = new S3MultipartOutputStream(s3, "bucket", "large.bin", 0, executor)) {
+            for (int offset = 0; offset < data.length; offset += 1000) {
+                out.write(data, offset, Math.min(1000, data.length - offset));
+            }
+        }
+
+        assertEquals(3, s3.getUploadedParts());
+        assertEquals(0, s3.getOpenUploads());
+        assertArrayEquals(data, s3.getBytes("bucket", "large.bin"));
+    }
+
+    @Test
+    void sendsSmallObjectInSingleRequest() throws IOException {
+        try (OutputStream out = new S3MultipartOutputStream(s3, "bucket", "small.csv", 0, executor)) {
+            out.write("a,b,c\n".getBytes(StandardCharsets.UTF_8));
+        }
+
+        assertEquals(0, s3.getUploadedParts());
+        assertEquals("a,b,c\n", new String(s3.getBytes("bucket", "small.csv"), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void writesCompressedStream() throws IOException {
+        try (OutputStream out = Compression.GZIP.wrap(new S3MultipartOutputStream(s3, "bucket", "results.csv.gz", 0, executor))) {
+            out.write("2024-01-01,store,rpc-1\n".getBytes(StandardCharsets.UTF_8));
+        }
+
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(s3.getBytes("bucket", "results.csv.gz")))) {
+            assertEquals("2024-01-01,store,rpc-1\n", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+}
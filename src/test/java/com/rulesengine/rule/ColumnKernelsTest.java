@@ -0,0 +1,84 @@
+package com.rulesengine.rule;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class ColumnKernelsTest {
+
+    // Around every lane count and 64-bit word boundary, plus sizes that are no multiple of any lane count
+    private static final int[] SIZES = {0, 1, 3, 4, 7, 8, 9, 15, 16, 17, 31, 33, 63, 64, 65, 100, 127, 128, 129, 1000};
+
+    private final Random random = new Random(42);
+
+    @Test
+    void vectorAndScalarKernelsSetTheSameBits() {
+        assumeTrue(ColumnKernels.isVectorized(), "jdk.incubator.vector is not in the boot layer");
+        int[][] ranges = {{0, 10}, {5, 5}, {-1, -1}, {-1, 3}, {10, 0}, {Integer.MIN_VALUE, Integer.MAX_VALUE}};
+
+        for (int size : SIZES) {
+            // -1 is the length of a null value
+            int[] values = random.ints(size, -1, 12).toArray();
+            for (int[] range : ranges) {
+                long[] vector = new long[(size + 63) >>> 6];
+                long[] scalar = new long[(size + 63) >>> 6];
+
+                VectorKernels.within(values, size, range[0], range[1], vector);
+                ColumnKernels.withinScalar(values, 0, size, range[0], range[1], scalar);
+
+                assertArrayEquals(scalar, vector, "size " + size + ", range " + range[0] + ".." + range[1]);
+            }
+        }
+    }
+
+    @Test
+    void setsNoBitsWhenMinExceedsMax() {
+        int[] values = random.ints(129, -1, 12).toArray();
+        long[] passed = new long[3];
+
+        ColumnKernels.within(values, values.length, 10, 0, passed);
+
+        assertArrayEquals(new long[3], passed);
+    }
+
+    @Test
+    void leavesBitsBeyondSizeAndAlreadySetBitsAlone() {
+        int[] values = {1, 50, 2, 50, 3};
+        long[] passed = {1L << 1 | 1L << 40};
+
+        ColumnKernels.within(values, 3, 0, 10, passed);
+
+        assertEquals(1L | 1L << 1 | 1L << 2 | 1L << 40, passed[0]);
+    }
+
+    @Test
+    void marksRowsStraddlingWordBoundaries() {
+        int[] values = new int[130];
+        values[63] = 1;
+        values[64] = 1;
+        values[129] = 1;
+        long[] passed = new long[3];
+
+        ColumnKernels.within(values, values.length, 1, 1, passed);
+
+        assertArrayEquals(new long[]{1L << 63, 1L, 1L << 1}, passed);
+    }
+
+    @Test
+    void scoresRowsByPassBit() {
+        long[] passed = {1L << 63, 1L};
+        double[] scores = new double[66];
+
+        ColumnKernels.scores(passed, 66, 1.0, 0.25, scores);
+
+        assertEquals(1.0, scores[63]);
+        assertEquals(1.0, scores[64]);
+        assertEquals(0.25, scores[65]);
+        assertTrue(scores[0] == 0.25 && scores[62] == 0.25);
+    }
+}
@@ -0,0 +1,104 @@
+package com.rulesengine.rule;
+
+import com.rulesengine.model.Product;
+import com.rulesengine.model.RuleConfig;
+import com.rulesengine.model.RuleResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DeclarativeRuleTest {
+
+    @Test
+    void passesWhenAllConditionsHold() {
+        DeclarativeRule rule = DeclarativeRule.compile("GtinRule", config(Map.of(
+                "type", "declarative",
+                "title.length", "5..20",
+                "gtin.matches", "\\d{13}",
+                "price.range", "0.01..",
+                "brand.in", "acme, globex")));
+
+        RuleResult result = rule.apply(product("Acme anvil", "4006381333931", "19.99"), RuleParameters.EMPTY);
+
+        assertTrue(result.isRulePassed());
+        assertEquals("GtinRule", result.getRuleName());
+        assertEquals(4, rule.getConditions().size());
+    }
+
+    @Test
+    void reportsFirstFailingConditionInKeyOrder() {
+        DeclarativeRule rule = DeclarativeRule.compile("GtinRule", config(Map.of(
+                "type", "declarative",
+                "title.length", "..5",
+                "gtin.matches", "\\d{8}")));
+
+        RuleResult result = rule.apply(product("Acme anvil", "4006381333931", "19.99"), RuleParameters.EMPTY);
+
+        assertFalse(result.isRulePassed());
+        assertEquals("Condition not met: gtin.matches=\\d{8}", result.getErrorMessage());
+    }
+
+    @Test
+    void treatsMissingValuesAsFailures() {
+        DeclarativeRule rule = DeclarativeRule.compile("ColorRule", config(Map.of(
+                "type", "declarative",
+                "message", "Color is required",
+                "color.required", "true",
+                "category.notIn", "tools")));
+
+        RuleResult result = rule.apply(product("Acme anvil", null, "abc"), RuleParameters.EMPTY);
+
+        assertFalse(result.isRulePassed());
+        assertEquals("Color is required", result.getErrorMessage());
+    }
+
+    @Test
+    void rejectsInvalidConditions() {
+        assertThrows(IllegalArgumentException.class,
+                () -> DeclarativeRule.compile("Bad", config(Map.of("type", "declarative", "title.between", "1..2"))));
+        assertThrows(IllegalArgumentException.class,
+                () -> DeclarativeRule.compile("Bad", config(Map.of("type", "declarative", "title.length", "10"))));
+        assertThrows(IllegalArgumentException.class,
+                () -> DeclarativeRule.compile("Bad", config(Map.of("type", "declarative"))));
+    }
+
+    @Test
+    void stopsMatchingPatternsOnceInterrupted() {
+        DeclarativeRule rule = DeclarativeRule.compile("Backtracking", config(Map.of(
+                "type", "declarative",
+                "title.matches", "(a+)+b")));
+        assertTrue(rule.hasPatternConditions());
+
+        Thread.currentThread().interrupt();
+        try {
+            assertThrows(RuleExecutionException.class,
+                    () -> rule.apply(product("a".repeat(40), null, null), RuleParameters.EMPTY));
+        } finally {
+            Thread.interrupted();
+        }
+    }
+
+    private static RuleConfig config(Map<String, String> parameters) {
+        RuleConfig config = new RuleConfig();
+        config.setParameters(parameters);
+        return config;
+    }
+
+    private static Product product(String title, String gtin, String price) {
+        Product product = new Product();
+        product.setRpc("rpc-1");
+        product.setBrand("acme");
+        Map<String, String> attributes = new HashMap<>();
+        attributes.put("title", title);
+        attributes.put("gtin", gtin);
+        attributes.put("price", price);
+        product.setAttributes(attributes);
+        return product;
+    }
+}
@@ -0,0 +1,81 @@
+package com.rulesengine.rule;
+
+import com.rulesengine.model.Product;
+import com.rulesengine.model.RuleResult;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ResultFingerprintStoreTest {
+
+    private final ResultFingerprintStore store = new ResultFingerprintStore(true, 1_000, 60_000);
+
+    @Test
+    void reusesOutcomeForNewMessageWhileFingerprintMatches() {
+        store.remember(product("table-1"), "PriceRule", 42, result(product("table-1"), false, "Price missing"));
+
+        RuleResult reused = store.reuse(product("table-2"), "PriceRule", 42);
+
+        assertEquals(RuleResult.builder()
+                .messageId("table-2")
+                .reportDate(LocalDate.now().toString())
+                .onlineStore("store-1")
+                .rpc("rpc-1")
+                .customerId("client-1")
+                .ruleName("PriceRule")
+                .rulePassed(false)
+                .ruleScore(0.5)
+                .errorMessage("Price missing")
+                .build(), reused);
+        assertNull(store.reuse(product("table-2"), "PriceRule", 43));
+        assertNull(store.reuse(product("table-2"), "TitleRule", 42));
+    }
+
+    @Test
+    void keepsNullAndEmptyErrorMessagesApart() {
+        store.remember(product("table-1"), "RuleA", 1, result(product("table-1"), true, null));
+        store.remember(product("table-1"), "RuleB", 1, result(product("table-1"), true, ""));
+
+        assertNull(store.reuse(product("table-2"), "RuleA", 1).getErrorMessage());
+        assertEquals("", store.reuse(product("table-2"), "RuleB", 1).getErrorMessage());
+    }
+
+    @Test
+    void stopsRememberingOnceErrorMessageTableIsFull() {
+        for (int i = 0; i < 4096; i++) {
+            store.remember(product("table-1"), "Rule" + i % 100, i, result(product("table-1"), false, "Error " + i));
+        }
+        store.remember(product("table-1"), "LateRule", 1, result(product("table-1"), false, "One message too many"));
+        store.remember(product("table-1"), "KnownRule", 1, result(product("table-1"), false, "Error 7"));
+
+        assertNull(store.reuse(product("table-2"), "LateRule", 1));
+        assertFalse(store.reuse(product("table-2"), "KnownRule", 1).isRulePassed());
+    }
+
+    private static Product product(String messageId) {
+        Product product = new Product();
+        product.setMessageId(messageId);
+        product.setRpc("rpc-1");
+        product.setClientId("client-1");
+        product.setRetailer("store-1");
+        return product;
+    }
+
+    private static RuleResult result(Product product, boolean passed, String errorMessage) {
+        return RuleResult.builder()
+                .messageId(product.getMessageId())
+                .reportDate("2024-01-01")
+                .onlineStore(product.getRetailer())
+                .rpc(product.getRpc())
+                .customerId(product.getClientId())
+                .ruleName("ignored")
+                .rulePassed(passed)
+                .ruleScore(passed ? 1.0 : 0.5)
+                .errorMessage(errorMessage)
+                .build();
+    }
+}
@@ -0,0 +1,229 @@
+package com.rulesengine.rule;
+
+import com.rulesengine.metrics.PipelineMetrics;
+import com.rulesengine.metrics.RuleMeters;
+import com.rulesengine.model.Product;
+import com.rulesengine.model.RuleConfig;
+import com.rulesengine.model.RuleResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RuleGuardTest {
+
+    private static final long HOUR = TimeUnit.HOURS.toNanos(1);
+    private static final long BUDGET = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Product product = new Product();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void opensAfterConsecutiveFailuresAndSkipsTheRule() {
+        RuleGuard guard = new RuleGuard("rule-a", null, 1, 3, HOUR, RuleMeters.NOOP);
+        CountingRule failing = new CountingRule(false);
+
+        for (int i = 0; i < 3; i++) {
+            assertRejected(RuleGuard.Rejection.ERROR, () -> guard.execute(failing, product, RuleParameters.EMPTY));
+        }
+
+        assertEquals(RuleGuard.State.OPEN, guard.getState());
+        assertRejected(RuleGuard.Rejection.CIRCUIT_OPEN, () -> guard.execute(failing, product, RuleParameters.EMPTY));
+        assertEquals(3, failing.calls.get());
+    }
+
+    @Test
+    void successResetsConsecutiveFailures() {
+        RuleGuard guard = new RuleGuard("rule-a", null, 1, 2, HOUR, RuleMeters.NOOP);
+
+        assertRejected(RuleGuard.Rejection.ERROR, () -> guard.execute(new CountingRule(false), product, RuleParameters.EMPTY));
+        guard.execute(new CountingRule(true), product, RuleParameters.EMPTY);
+        assertRejected(RuleGuard.Rejection.ERROR, () -> guard.execute(new CountingRule(false), product, RuleParameters.EMPTY));
+
+        assertEquals(RuleGuard.State.CLOSED, guard.getState());
+    }
+
+    @Test
+    void halfOpenProbeClosesOnSuccessAndReopensOnFailure() {
+        RuleGuard guard = new RuleGuard("rule-a", null, 1, 1, 0, RuleMeters.NOOP);
+
+        assertRejected(RuleGuard.Rejection.ERROR, () -> guard.execute(new CountingRule(false), product, RuleParameters.EMPTY));
+        assertEquals(RuleGuard.State.OPEN, guard.getState());
+
+        guard.execute(new CountingRule(true), product, RuleParameters.EMPTY);
+        assertEquals(RuleGuard.State.CLOSED, guard.getState());
+
+        assertRejected(RuleGuard.Rejection.ERROR, () -> guard.execute(new CountingRule(false), product, RuleParameters.EMPTY));
+        assertRejected(RuleGuard.Rejection.ERROR, () -> guard.execute(new CountingRule(false), product, RuleParameters.EMPTY));
+        assertEquals(RuleGuard.State.OPEN, guard.getState());
+    }
+
+    @Test
+    void admitsOneProbeAtATime() {
+        RuleGuard guard = new RuleGuard("rule-a", null, 1, 1, 0, RuleMeters.NOOP);
+        assertRejected(RuleGuard.Rejection.ERROR, () -> guard.execute(new CountingRule(false), product, RuleParameters.EMPTY));
+
+        Rule probe = new CountingRule(true) {
+            @Override
+            public RuleResult apply(Product product, RuleParameters parameters) {
+                assertEquals(RuleGuard.State.HALF_OPEN, guard.getState());
+                assertRejected(RuleGuard.Rejection.CIRCUIT_OPEN,
+                        () -> guard.execute(new CountingRule(true), product, RuleParameters.EMPTY));
+                return super.apply(product, parameters);
+            }
+        };
+        guard.execute(probe, product, RuleParameters.EMPTY);
+
+        assertEquals(RuleGuard.State.CLOSED, guard.getState());
+    }
+
+    @Test
+    void slowInlineRuleKeepsItsResultButCountsAsFailure() {
+        RuleGuard guard = new RuleGuard("rule-a", null, 1, 1, HOUR, RuleMeters.NOOP);
+        guard.configure(1, false);
+        Rule slow = new CountingRule(true) {
+            @Override
+            public RuleResult apply(Product product, RuleParameters parameters) {
+                sleep(5);
+                return super.apply(product, parameters);
+            }
+        };
+
+        RuleResult result = guard.execute(slow, product, RuleParameters.EMPTY);
+
+        assertTrue(result.isRulePassed());
+        assertEquals(RuleGuard.State.OPEN, guard.getState());
+    }
+
+    @Test
+    void fullBulkheadRejectsWithoutOpeningTheCircuit() throws Exception {
+        RuleGuard guard = new RuleGuard("rule-a", executor, 1, 1, HOUR, RuleMeters.NOOP);
+        guard.configure(HOUR, true);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Rule blocking = new CountingRule(true) {
+            @Override
+            public RuleResult apply(Product product, RuleParameters parameters) {
+                started.countDown();
+                await(release);
+                return super.apply(product, parameters);
+            }
+        };
+        CompletableFuture<RuleResult> first = CompletableFuture.supplyAsync(
+                () -> guard.execute(blocking, product, RuleParameters.EMPTY));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        assertRejected(RuleGuard.Rejection.BULKHEAD_FULL,
+                () -> guard.execute(new CountingRule(true), product, RuleParameters.EMPTY));
+        assertEquals(RuleGuard.State.CLOSED, guard.getState());
+
+        release.countDown();
+        assertTrue(first.get(5, TimeUnit.SECONDS).isRulePassed());
+        assertTrue(guard.execute(new CountingRule(true), product, RuleParameters.EMPTY).isRulePassed());
+    }
+
+    @Test
+    void timedOutRuleReturnsItsPermitWhenInterrupted() throws Exception {
+        RuleGuard guard = new RuleGuard("rule-a", executor, 1, 10, HOUR, RuleMeters.NOOP);
+        guard.configure(BUDGET, true);
+        Rule hung = new CountingRule(true) {
+            @Override
+            public RuleResult apply(Product product, RuleParameters parameters) {
+                await(new CountDownLatch(1));
+                return super.apply(product, parameters);
+            }
+        };
+
+        assertRejected(RuleGuard.Rejection.TIMEOUT, () -> guard.execute(hung, product, RuleParameters.EMPTY));
+        // Runs once the interrupted rule has finished
+        executor.submit(() -> { }).get(5, TimeUnit.SECONDS);
+
+        assertTrue(guard.execute(new CountingRule(true), product, RuleParameters.EMPTY).isRulePassed());
+    }
+
+    @Test
+    void ruleCancelledBeforeItStartedReturnsItsPermit() throws Exception {
+        RuleGuard guard = new RuleGuard("rule-a", executor, 1, 10, HOUR, RuleMeters.NOOP);
+        guard.configure(BUDGET, true);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.submit(() -> await(release));
+        CountingRule queued = new CountingRule(true);
+
+        assertRejected(RuleGuard.Rejection.TIMEOUT, () -> guard.execute(queued, product, RuleParameters.EMPTY));
+        release.countDown();
+
+        assertTrue(guard.execute(new CountingRule(true), product, RuleParameters.EMPTY).isRulePassed());
+        assertEquals(0, queued.calls.get());
+    }
+
+    @Test
+    void registryIsolatesPatternRulesUnlessTheyOptOut() {
+        RuleGuardRegistry registry = new RuleGuardRegistry(executor, new PipelineMetrics(new SimpleMeterRegistry()),
+                100, false, 1, 10, 1_000);
+        RuleConfig config = new RuleConfig();
+        config.setParameters(Map.of("type", "declarative", "gtin.matches", "\\d{13}"));
+        DeclarativeRule rule = DeclarativeRule.compile("GtinRule", config);
+
+        assertTrue(registry.guard(rule, RuleParameters.EMPTY).isIsolated());
+        assertFalse(registry.guard(rule, new RuleParameters(Map.of(RuleGuardRegistry.ISOLATED_PARAMETER, "false")))
+                .isIsolated());
+        assertFalse(registry.guard(new CountingRule(true), RuleParameters.EMPTY).isIsolated());
+    }
+
+    private static void assertRejected(RuleGuard.Rejection rejection, Runnable execution) {
+        assertEquals(rejection, assertThrows(RuleExecutionException.class, execution::run).getRejection());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted");
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class CountingRule implements Rule {
+
+        private final boolean passes;
+        private final AtomicInteger calls = new AtomicInteger();
+
+        CountingRule(boolean passes) {
+            this.passes = passes;
+        }
+
+        @Override
+        public RuleResult apply(Product product, RuleParameters parameters) {
+            calls.incrementAndGet();
+            if (!passes) {
+                throw new IllegalStateException("Rule failed");
+            }
+            return RuleResult.builder().ruleName(getName()).rulePassed(true).ruleScore(1.0).build();
+        }
+    }
+}
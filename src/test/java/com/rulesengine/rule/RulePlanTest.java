@@ -0,0 +1,173 @@
+package com.rulesengine.rule;
+
+import com.rulesengine.model.Dimension;
+import com.rulesengine.model.Product;
+import com.rulesengine.model.RuleConfig;
+import com.rulesengine.model.RuleResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class RulePlanTest {
+
+    @Test
+    void leavesRulesUnrestrictedOnDimensionsTheyDoNotName() {
+        RulePlan plan = plan(
+                config(Map.of(Dimension.BRAND, List.of("acme")), null),
+                config(Map.of(Dimension.CATEGORY, List.of("tools")), null),
+                config(null, null));
+
+        assertEquals(bits(0, 2), plan.applicableRules(product("acme", "food")));
+        assertEquals(bits(1, 2), plan.applicableRules(product("globex", "tools")));
+        assertEquals(bits(0, 1, 2), plan.applicableRules(product("acme", "tools")));
+    }
+
+    @Test
+    void neverAppliesRuleWithNullOrEmptyValueList() {
+        Map<Dimension, List<String>> nullValues = new HashMap<>();
+        nullValues.put(Dimension.BRAND, null);
+        RulePlan plan = plan(
+                config(nullValues, null),
+                config(Map.of(Dimension.BRAND, List.of()), null),
+                config(null, null));
+
+        assertEquals(bits(2), plan.applicableRules(product("acme", "tools")));
+        assertEquals(bits(2), plan.applicableRules(product(null, "tools")));
+    }
+
+    @Test
+    void restrictedRulesSkipProductsWithoutTheDimension() {
+        RulePlan plan = plan(config(Map.of(Dimension.BRAND, List.of("acme")), null), config(null, null));
+
+        assertEquals(bits(1), plan.applicableRules(product(null, "tools")));
+    }
+
+    @Test
+    void excludesListedValuesOnly() {
+        RulePlan plan = plan(
+                config(null, Map.of(Dimension.CATEGORY, List.of("food"))),
+                config(Map.of(Dimension.BRAND, List.of("acme")), Map.of(Dimension.CATEGORY, List.of("tools"))));
+
+        assertEquals(bits(1), plan.applicableRules(product("acme", "food")));
+        assertEquals(bits(0), plan.applicableRules(product("acme", "tools")));
+        assertEquals(bits(0), plan.applicableRules(product(null, null)));
+    }
+
+    @Test
+    void compilesRulesWithNullValuedParameters() {
+        Map<String, String> parameters = new HashMap<>();
+        parameters.put("note", null);
+        parameters.put("minLength", "3");
+        RuleConfig config = config(null, null);
+        config.setParameters(parameters);
+
+        RulePlan plan = plan(config, config(null, null));
+
+        assertNull(plan.getParameters(0).getString("note"));
+        assertEquals(3, plan.getParameters(0).getInt("minLength"));
+        assertEquals(bits(0, 1), plan.applicableRules(product("acme", "tools")));
+    }
+
+    @Test
+    void interleavesBatchAndPerProductResultsInProductOrder() {
+        // A negative minimum must still fail the null title, whose batch length is -1
+        for (String minLength : List.of("3", "-1")) {
+            RuleConfig titleConfig = config(Map.of(Dimension.BRAND, List.of("acme")), null);
+            titleConfig.setParameters(Map.of("minLength", minLength, "maxLength", "8"));
+            RulePlan plan = RulePlan.compile("client-1", 0,
+                    List.of(new NamedRule("Rule0"), new TitleLengthRule(), new FailingBatchRule(), new NamedRule("Rule3")),
+                    List.of(config(null, null), titleConfig, config(Map.of(Dimension.CATEGORY, List.of("tools")), null),
+                            config(null, null)));
+            List<Product> products = new ArrayList<>();
+            for (int i = 0; i < 70; i++) {
+                Product product = product(i % 3 == 0 ? "globex" : "acme", i % 2 == 0 ? "tools" : "food");
+                product.setRpc("rpc-" + i);
+                product.setAttributes(Map.of("title", "x".repeat(i % 11)));
+                products.add(product);
+            }
+            products.get(5).setAttributes((Map<String, String>) null);
+            List<RuleResult> expected = new ArrayList<>();
+            products.forEach(product -> expected.addAll(plan.evaluate(product)));
+
+            List<RuleResult> batched = plan.evaluate(products, new ResultFingerprintStore(false, 1, 1));
+
+            assertEquals(expected, batched);
+            assertFalse(batched.stream()
+                    .filter(result -> result.getRpc().equals("rpc-5") && result.getRuleName().equals("TitleLengthRule"))
+                    .findFirst().orElseThrow().isRulePassed());
+            // An acme tools product gets every rule, batch results between the per-product ones
+            assertEquals(List.of("Rule0", "TitleLengthRule", "FailingBatchRule", "Rule3"), batched.stream()
+                    .filter(result -> result.getRpc().equals("rpc-2"))
+                    .map(RuleResult::getRuleName)
+                    .toList());
+        }
+    }
+
+    private static RulePlan plan(RuleConfig... configs) {
+        List<Rule> rules = new ArrayList<>();
+        for (int i = 0; i < configs.length; i++) {
+            rules.add(new NamedRule("Rule" + i));
+        }
+        return RulePlan.compile("client-1", 0, rules, Arrays.asList(configs));
+    }
+
+    private static RuleConfig config(Map<Dimension, List<String>> applicableTo, Map<Dimension, List<String>> exclusions) {
+        RuleConfig config = new RuleConfig();
+        config.setApplicableTo(applicableTo);
+        config.setExclusions(exclusions);
+        config.setParameters(Map.of());
+        return config;
+    }
+
+    private static Product product(String brand, String category) {
+        Product product = new Product();
+        product.setRpc("rpc-1");
+        product.setBrand(brand);
+        product.setCategory(category);
+        return product;
+    }
+
+    private static BitSet bits(int... rules) {
+        BitSet bits = new BitSet();
+        for (int rule : rules) {
+            bits.set(rule);
+        }
+        return bits;
+    }
+
+    // Fails the same way per product and per batch
+    private static final class FailingBatchRule implements BatchRule {
+
+        @Override
+        public RuleResult apply(Product product, RuleParameters parameters) {
+            throw new IllegalStateException("column unavailable");
+        }
+
+        @Override
+        public void evaluate(ProductBatch batch, RuleParameters parameters, BatchOutcome outcome) {
+            throw new IllegalStateException("column unavailable");
+        }
+    }
+
+    private record NamedRule(String name) implements Rule {
+
+        @Override
+        public RuleResult apply(Product product, RuleParameters parameters) {
+            return RuleResult.builder().rpc(product.getRpc()).ruleName(name).rulePassed(true).ruleScore(1.0).build();
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+    }
+}
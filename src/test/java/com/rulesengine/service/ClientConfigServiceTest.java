@@ -0,0 +1,123 @@
+package com.rulesengine.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rulesengine.metrics.PipelineMetrics;
+import com.rulesengine.model.Product;
+import com.rulesengine.model.RuleConfig;
+import com.rulesengine.model.RuleResult;
+import com.rulesengine.rule.Rule;
+import com.rulesengine.rule.RuleGuardRegistry;
+import com.rulesengine.rule.RuleParameters;
+import com.rulesengine.rule.RulePlan;
+import com.rulesengine.util.RuleConfigurationLoader;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ClientConfigServiceTest {
+
+    private final StubLoader loader = new StubLoader();
+    private final PipelineMetrics metrics = new PipelineMetrics(new SimpleMeterRegistry());
+    private final ClientConfigService service = new ClientConfigService(List.of(new PassingRule()), loader, metrics,
+            new RuleGuardRegistry(null, metrics, 100, false, 4, 20, 30_000));
+
+    @Test
+    void recompilesWhenConfigVersionChanges() {
+        configure(60_000, 60_000);
+        RulePlan first = service.getRulePlan("client-1");
+
+        assertSame(first, service.getRulePlan("client-1"));
+
+        loader.version = 1;
+        RulePlan second = service.getRulePlan("client-1");
+        assertEquals(1, second.getVersion());
+        assertEquals(List.of("PassingRule"), second.getRules().stream().map(Rule::getName).toList());
+    }
+
+    @Test
+    void keepsServingPreviousPlanWhileReloadFails() {
+        configure(60_000, 0);
+        RulePlan first = service.getRulePlan("client-1");
+
+        loader.version = 1;
+        loader.failing = true;
+        assertSame(first, service.getRulePlan("client-1"));
+
+        loader.failing = false;
+        assertEquals(1, service.getRulePlan("client-1").getVersion());
+    }
+
+    @Test
+    void waitsForRetryIntervalAfterFailedReload() {
+        configure(60_000, 60_000);
+        RulePlan first = service.getRulePlan("client-1");
+
+        loader.version = 1;
+        loader.failing = true;
+        assertSame(first, service.getRulePlan("client-1"));
+        loader.failing = false;
+
+        assertSame(first, service.getRulePlan("client-1"));
+        assertEquals(1, loader.failures);
+    }
+
+    @Test
+    void failsWhenThereIsNoPlanToFallBackOn() {
+        configure(60_000, 60_000);
+        loader.failing = true;
+
+        assertThrows(IllegalStateException.class, () -> service.getRulePlan("client-1"));
+    }
+
+    private void configure(long ttlMs, long retryMs) {
+        ReflectionTestUtils.setField(service, "planTtlMs", ttlMs);
+        ReflectionTestUtils.setField(service, "planRetryMs", retryMs);
+    }
+
+    private static final class StubLoader extends RuleConfigurationLoader {
+
+        private volatile long version;
+        private volatile boolean failing;
+        private int failures;
+
+        StubLoader() {
+            super(null, new ObjectMapper(), 10, 60_000);
+        }
+
+        @Override
+        public long getVersion() {
+            return version;
+        }
+
+        @Override
+        public List<String> getEnabledRules(String clientId) {
+            if (failing) {
+                failures++;
+                throw new IllegalStateException("Redis unavailable");
+            }
+            return List.of("PassingRule");
+        }
+
+        @Override
+        public RuleConfig loadConfig(String ruleName) {
+            RuleConfig config = new RuleConfig();
+            config.setParameters(Map.of());
+            return config;
+        }
+    }
+
+    private static final class PassingRule implements Rule {
+
+        @Override
+        public RuleResult apply(Product product, RuleParameters parameters) {
+            return RuleResult.builder().ruleName(getName()).rulePassed(true).ruleScore(1.0).build();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.rulesengine.service;
+
+import com.rulesengine.service.IngestCheckpointStore.Checkpoint;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IngestCheckpointStoreTest {
+
+    private static final String TABLE = "products_2024";
+    private static final long LEASE = 60_000;
+
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+            "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", ""));
+    private final IngestCheckpointStore store = new IngestCheckpointStore(jdbcTemplate, "rpc_ingest_checkpoints");
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("SHUTDOWN");
+    }
+
+    @Test
+    void grantsLeaseToOneOwnerUntilReleased() {
+        assertNull(store.load(TABLE, 0));
+
+        assertTrue(store.claim(TABLE, 0, "node-a", LEASE));
+        assertFalse(store.claim(TABLE, 0, "node-b", LEASE));
+        assertTrue(store.claim(TABLE, 0, "node-a", LEASE));
+        assertTrue(store.claim(TABLE, 1, "node-b", LEASE));
+        assertEquals(new Checkpoint(null, 0, false), store.load(TABLE, 0));
+
+        store.release(TABLE, 0, "node-a");
+
+        assertTrue(store.claim(TABLE, 0, "node-b", LEASE));
+    }
+
+    @Test
+    void takesOverExpiredLease() {
+        assertTrue(store.claim(TABLE, 0, "node-a", -1));
+
+        assertTrue(store.claim(TABLE, 0, "node-b", LEASE));
+        assertFalse(store.renew(TABLE, 0, "node-a", LEASE));
+        assertTrue(store.renew(TABLE, 0, "node-b", LEASE));
+    }
+
+    @Test
+    void savesCheckpointsOnlyForLeaseOwner() {
+        store.claim(TABLE, 0, "node-a", LEASE);
+
+        assertTrue(store.save(TABLE, 0, "node-a", LEASE, new Checkpoint("rpc-9", 10, false)));
+        assertFalse(store.save(TABLE, 0, "node-b", LEASE, new Checkpoint("rpc-19", 20, false)));
+
+        assertEquals(new Checkpoint("rpc-9", 10, false), store.load(TABLE, 0));
+    }
+
+    @Test
+    void refusesToClaimCompletedPartition() {
+        store.claim(TABLE, 0, "node-a", LEASE);
+        store.save(TABLE, 0, "node-a", LEASE, new Checkpoint("rpc-9", 10, true));
+        store.release(TABLE, 0, "node-a");
+
+        assertFalse(store.claim(TABLE, 0, "node-b", LEASE));
+        assertTrue(store.load(TABLE, 0).completed());
+    }
+}
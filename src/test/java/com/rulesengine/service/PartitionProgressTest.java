@@ -0,0 +1,109 @@
+package com.rulesengine.service;
+
+import com.rulesengine.model.RpcTablePartition;
+import com.rulesengine.service.IngestCheckpointStore.Checkpoint;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PartitionProgressTest {
+
+    private static final String TABLE = "products_2024";
+    private static final long LEASE = 60_000;
+    private static final RpcTablePartition PARTITION = RpcTablePartition.builder()
+            .tableName(TABLE)
+            .partition(3)
+            .partitionCount(8)
+            .build();
+
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+            "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", ""));
+    private final IngestCheckpointStore store = new IngestCheckpointStore(jdbcTemplate, "rpc_ingest_checkpoints");
+    private PartitionProgress progress;
+
+    @BeforeEach
+    void setUp() {
+        store.claim(TABLE, 3, "node-a", LEASE);
+        progress = new PartitionProgress(PARTITION, new Checkpoint("rpc-0", 0, false), store, "node-a", LEASE);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("SHUTDOWN");
+    }
+
+    @Test
+    void checkpointsOnlyContiguousCompletedBatches() {
+        long first = progress.submitted("rpc-10", 10);
+        long second = progress.submitted("rpc-20", 10);
+        long third = progress.submitted("rpc-30", 10);
+
+        progress.completed(second, true);
+        progress.completed(third, true);
+        assertEquals(new Checkpoint("rpc-0", 0, false), progress.checkpoint());
+
+        progress.completed(first, true);
+        assertEquals(new Checkpoint("rpc-30", 30, false), store.load(TABLE, 3));
+        assertEquals("rpc-30", progress.resumeFrom());
+
+        progress.finish();
+        assertEquals(new Checkpoint("rpc-30", 30, true), store.load(TABLE, 3));
+    }
+
+    @Test
+    void stopsAdvancingAfterFailedBatch() {
+        long first = progress.submitted("rpc-10", 10);
+        long second = progress.submitted("rpc-20", 10);
+        long third = progress.submitted("rpc-30", 10);
+
+        progress.completed(first, true);
+        progress.completed(second, false);
+        progress.completed(third, true);
+
+        assertTrue(progress.isFailed());
+        assertEquals(new Checkpoint("rpc-10", 10, false), store.load(TABLE, 3));
+        assertThrows(IllegalStateException.class, progress::finish);
+        assertFalse(store.load(TABLE, 3).completed());
+    }
+
+    @Test
+    void refusesToFinishWithBatchesInFlight() {
+        progress.submitted("rpc-10", 10);
+
+        assertThrows(IllegalStateException.class, progress::finish);
+        assertFalse(store.load(TABLE, 3).completed());
+    }
+
+    @Test
+    void failsOnceLeaseIsTakenOver() {
+        long first = progress.submitted("rpc-10", 10);
+        store.release(TABLE, 3, "node-a");
+        store.claim(TABLE, 3, "node-b", LEASE);
+
+        progress.completed(first, true);
+
+        assertTrue(progress.isFailed());
+        assertEquals(new Checkpoint(null, 0, false), store.load(TABLE, 3));
+        assertThrows(IllegalStateException.class, progress::finish);
+    }
+
+    @Test
+    void heartbeatFailsPartitionWhoseLeaseWasLost() {
+        progress.renew();
+        assertFalse(progress.isFailed());
+
+        store.release(TABLE, 3, "node-a");
+        progress.renew();
+
+        assertTrue(progress.isFailed());
+    }
+}
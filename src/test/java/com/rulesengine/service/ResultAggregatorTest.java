@@ -0,0 +1,132 @@
+package com.rulesengine.service;
+
+import com.rulesengine.metrics.PipelineMetrics;
+import com.rulesengine.model.RuleResult;
+import com.rulesengine.output.Compression;
+import com.rulesengine.output.ResultFormat;
+import com.rulesengine.output.RuleResultWriterFactory;
+import com.rulesengine.store.InMemoryResultStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ResultAggregatorTest {
+
+    private static final String COMPLETION_TOPIC = "processing-complete-by-message";
+    private static final TopicPartition RESULTS = new TopicPartition("rule-results", 0);
+    private static final TopicPartition COMPLETIONS = new TopicPartition(COMPLETION_TOPIC, 0);
+
+    private final InMemoryResultStore store = new InMemoryResultStore();
+    private final PipelineMetrics metrics = new PipelineMetrics(new SimpleMeterRegistry());
+    private final ResultAggregator aggregator = new ResultAggregator(store,
+            new RuleResultWriterFactory(ResultFormat.CSV, Compression.NONE, CompressionCodecName.SNAPPY), metrics,
+            COMPLETION_TOPIC, 0, 3_600_000, 600_000);
+    private final MockConsumer<String, Object> consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+
+    @BeforeEach
+    void setUp() {
+        consumer.assign(List.of(RESULTS, COMPLETIONS));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        for (String table : List.of("table-a", "table-b")) {
+            Files.deleteIfExists(Path.of("rule_results_" + table + ".csv"));
+        }
+    }
+
+    @Test
+    void commitsResultsOnlyUpToOldestOpenJob() throws IOException {
+        results(0, "table-a");
+        results(1, "table-b");
+        results(2, "table-a");
+        assertEquals(0, committed(RESULTS));
+
+        complete(0, "table-a");
+
+        // table-b's first result is at offset 1 and must be read again by a new owner
+        assertEquals(1, committed(RESULTS));
+        assertEquals(1, committed(COMPLETIONS));
+        assertEquals(2, Files.readAllLines(Path.of("rule_results_table-a.csv")).size() - 1);
+
+        complete(1, "table-b");
+
+        assertEquals(3, committed(RESULTS));
+        assertEquals(2, committed(COMPLETIONS));
+        assertEquals(0, store.messageCount());
+    }
+
+    @Test
+    void dropsResultsArrivingAfterCompletion() {
+        results(0, "table-a");
+        complete(0, "table-a");
+
+        results(1, "table-a");
+        aggregator.onPartitionsRevokedBeforeCommit(consumer, List.of(RESULTS, COMPLETIONS));
+
+        assertEquals(0, store.messageCount());
+        assertEquals(2, committed(RESULTS));
+        assertEquals(1.0, metrics.getRegistry().counter("results.aggregator.late.results").count());
+    }
+
+    @Test
+    void commitsAndDropsOpenJobsOfRevokedPartitions() {
+        results(0, "table-a");
+        results(1, "table-b");
+        complete(0, "table-a");
+        results(2, "table-b");
+
+        aggregator.onPartitionsRevokedBeforeCommit(consumer, List.of(RESULTS, COMPLETIONS));
+
+        assertEquals(1, committed(RESULTS));
+        assertEquals(0, store.messageCount());
+        assertEquals(1.0, metrics.getRegistry().counter("results.aggregator.abandoned.jobs").count());
+    }
+
+    @Test
+    void leavesOffsetsOfLostPartitionsUncommitted() {
+        results(0, "table-a");
+        complete(0, "table-a");
+        results(1, "table-b");
+
+        aggregator.onPartitionsLost(consumer, List.of(RESULTS, COMPLETIONS));
+
+        assertEquals(1, committed(RESULTS));
+        assertEquals(0, store.messageCount());
+    }
+
+    private void results(long offset, String table) {
+        RuleResult result = RuleResult.builder()
+                .messageId(table)
+                .reportDate("2024-01-01")
+                .rpc("rpc-" + offset)
+                .ruleName("rule-a")
+                .rulePassed(true)
+                .build();
+        aggregator.onRecord(new ConsumerRecord<>(RESULTS.topic(), 0, offset, table, List.of(result)), consumer);
+    }
+
+    private void complete(long offset, String table) {
+        aggregator.onRecord(new ConsumerRecord<>(COMPLETION_TOPIC, 0, offset, table, table), consumer);
+    }
+
+    private long committed(TopicPartition partition) {
+        OffsetAndMetadata offset = consumer.committed(Set.of(partition)).get(partition);
+        return offset == null ? 0 : offset.offset();
+    }
+}
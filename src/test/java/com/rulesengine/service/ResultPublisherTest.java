@@ -0,0 +1,317 @@
+package com.rulesengine.service;
+
+import com.rulesengine.metrics.PipelineMetrics;
+import com.rulesengine.model.RuleResult;
+import com.rulesengine.output.Compression;
+import com.rulesengine.output.ResultFormat;
+import com.rulesengine.output.RuleResultColumn;
+import com.rulesengine.output.RuleResultWriterFactory;
+import com.rulesengine.support.InMemoryS3;
+import com.rulesengine.util.BoundedExecutor;
+import com.rulesengine.warehouse.StagedFile;
+import com.rulesengine.warehouse.WarehouseLoader;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.RecordDeserializationException;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+class ResultPublisherTest {
+
+    private static final String BUCKET = "bucket";
+    private static final String TOPIC = "rule-results";
+    private static final TopicPartition PARTITION = new TopicPartition(TOPIC, 0);
+
+    private final InMemoryS3 s3 = new InMemoryS3();
+    private final BoundedExecutor executor = new BoundedExecutor("publish", Executors.newFixedThreadPool(2), 2);
+    private final StubLoader loader = new StubLoader();
+    private final RecordingConsumer consumer = new RecordingConsumer();
+    private ResultPublisher publisher;
+    private long nextOffset;
+
+    @AfterEach
+    void tearDown() {
+        if (publisher != null) {
+            publisher.stop();
+        }
+        executor.close();
+    }
+
+    @Test
+    void cutsBatchesByRecordCountAndDrainsOpenBatchOnStop() {
+        start(3, 60_000);
+        send(3);
+        send(3);
+        send(1);
+        await(() -> loader.rows() == 6 && consumer.position() == 7);
+
+        publisher.stop();
+
+        assertEquals(List.of(3, 3, 1), loader.fileSizes());
+        assertEquals(7, consumer.committedOffset());
+    }
+
+    @Test
+    void cutsBatchesByAge() {
+        start(1_000, 200);
+        send(2);
+
+        await(() -> consumer.committedOffset() == 2);
+
+        assertTrue(publisher.isRunning());
+        assertEquals(List.of(2), loader.fileSizes());
+    }
+
+    @Test
+    void commitsOffsetsOnlyAfterTheirBatchIsMerged() {
+        loader.delayMs = 50;
+        start(2, 60_000);
+        for (int i = 0; i < 4; i++) {
+            send(2);
+        }
+
+        await(() -> consumer.committedOffset() == 8);
+
+        assertEquals(List.of(), consumer.commitsAheadOfMerge);
+        assertEquals(8, loader.rows());
+    }
+
+    @Test
+    void rewindsToCommittedOffsetsAfterFailedMerge() {
+        loader.failures.set(1);
+        start(2, 60_000);
+        send(2);
+        send(2);
+
+        await(() -> consumer.committedOffset() == 4);
+
+        assertEquals(Set.of("rpc-0", "rpc-1", "rpc-2", "rpc-3"), loader.rpcs());
+        assertEquals(List.of(), consumer.commitsAheadOfMerge);
+    }
+
+    @Test
+    void skipsUndecodableRecords() {
+        start(1_000, 200);
+        send(2);
+        consumer.schedulePollTask(() -> consumer.setPollException(new RecordDeserializationException(
+                PARTITION, nextOffset++, "Unknown codec", new SerializationException("bad header"))));
+        send(1);
+
+        await(() -> consumer.committedOffset() == 4);
+
+        assertTrue(publisher.isRunning());
+        assertEquals(Set.of("rpc-0", "rpc-1", "rpc-3"), loader.rpcs());
+    }
+
+    private void start(long batchMaxRecords, long batchMaxAgeMs) {
+        ConsumerFactory<String, Object> consumerFactory = new ConsumerFactory<>() {
+            @Override
+            public Consumer<String, Object> createConsumer(String groupId, String clientIdPrefix, String clientIdSuffix,
+                                                           Properties properties) {
+                return consumer;
+            }
+
+            @Override
+            public boolean isAutoCommit() {
+                return false;
+            }
+        };
+        publisher = new ResultPublisher(loader, s3, executor,
+                new RuleResultWriterFactory(ResultFormat.CSV, Compression.NONE, CompressionCodecName.SNAPPY),
+                new PipelineMetrics(new SimpleMeterRegistry()), consumerFactory);
+        ReflectionTestUtils.setField(publisher, "s3BucketName", BUCKET);
+        ReflectionTestUtils.setField(publisher, "resultsTopic", TOPIC);
+        ReflectionTestUtils.setField(publisher, "enabled", true);
+        ReflectionTestUtils.setField(publisher, "batchMaxRecords", batchMaxRecords);
+        ReflectionTestUtils.setField(publisher, "batchMaxAgeMs", batchMaxAgeMs);
+        ReflectionTestUtils.setField(publisher, "queueCapacity", 2);
+        ReflectionTestUtils.setField(publisher, "failureBackoffMs", 10L);
+        ReflectionTestUtils.setField(publisher, "mergeMaxFiles", 8);
+        consumer.schedulePollTask(() -> {
+            consumer.updateBeginningOffsets(Map.of(PARTITION, 0L));
+            consumer.rebalance(List.of(PARTITION));
+        });
+        publisher.start();
+    }
+
+    // Adds records with one result each, returned together by one poll
+    private void send(int count) {
+        consumer.schedulePollTask(() -> {
+            for (int i = 0; i < count; i++) {
+                long offset = nextOffset++;
+                RuleResult result = RuleResult.builder()
+                        .messageId("table-1")
+                        .reportDate("2024-01-01")
+                        .rpc("rpc-" + offset)
+                        .ruleName("rule-a")
+                        .rulePassed(true)
+                        .ruleScore(1.0)
+                        .build();
+                consumer.addRecord(new ConsumerRecord<>(TOPIC, 0, offset, "table-1", result));
+            }
+        });
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Condition not met within 10 seconds");
+            }
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail("Interrupted");
+            }
+        }
+    }
+
+    private final class StubLoader implements WarehouseLoader {
+
+        private final List<List<String>> files = new CopyOnWriteArrayList<>();
+        private final AtomicLong mergedRows = new AtomicLong();
+        private final AtomicInteger failures = new AtomicInteger();
+        private volatile long delayMs;
+
+        @Override
+        public void load(List<StagedFile> staged) {
+            if (failures.getAndDecrement() > 0) {
+                throw new IllegalStateException("Warehouse unavailable");
+            }
+            try {
+                Thread.sleep(delayMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            for (StagedFile file : staged) {
+                List<String> rpcs = read(file.s3Key());
+                files.add(rpcs);
+                mergedRows.addAndGet(rpcs.size());
+            }
+        }
+
+        private List<String> read(String key) {
+            String csv = new String(s3.getBytes(BUCKET, key), StandardCharsets.UTF_8);
+            try (CSVParser parser = CSVFormat.DEFAULT.withFirstRecordAsHeader().parse(new StringReader(csv))) {
+                List<String> rpcs = new ArrayList<>();
+                for (CSVRecord record : parser) {
+                    rpcs.add(record.get(RuleResultColumn.RPC.getHeader()));
+                }
+                return rpcs;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        long rows() {
+            return mergedRows.get();
+        }
+
+        List<Integer> fileSizes() {
+            return files.stream().map(List::size).toList();
+        }
+
+        Set<String> rpcs() {
+            Set<String> rpcs = new TreeSet<>();
+            files.forEach(rpcs::addAll);
+            return rpcs;
+        }
+    }
+
+    /**
+     * Records commits, flagging every one that covers more records than were merged when it was made, and
+     * serves records again after a seek, as a broker would.
+     */
+    private final class RecordingConsumer extends MockConsumer<String, Object> {
+
+        private final List<ConsumerRecord<String, Object>> sent = new ArrayList<>();
+        private final List<Long> commitsAheadOfMerge = new CopyOnWriteArrayList<>();
+        private volatile long committedOffset;
+
+        RecordingConsumer() {
+            super(OffsetResetStrategy.EARLIEST);
+        }
+
+        @Override
+        public synchronized void addRecord(ConsumerRecord<String, Object> record) {
+            sent.add(record);
+            super.addRecord(record);
+        }
+
+        @Override
+        public synchronized void seek(TopicPartition partition, long offset) {
+            super.seek(partition, offset);
+            replayFrom(offset);
+        }
+
+        @Override
+        public synchronized void seek(TopicPartition partition, OffsetAndMetadata offset) {
+            super.seek(partition, offset);
+            replayFrom(offset.offset());
+        }
+
+        @Override
+        public synchronized void seekToBeginning(Collection<TopicPartition> partitions) {
+            super.seekToBeginning(partitions);
+            replayFrom(0);
+        }
+
+        private void replayFrom(long offset) {
+            sent.stream().filter(record -> record.offset() >= offset).forEach(super::addRecord);
+        }
+
+        @Override
+        public synchronized void commitSync(Map<TopicPartition, OffsetAndMetadata> offsets) {
+            OffsetAndMetadata offset = offsets.get(PARTITION);
+            if (offset != null) {
+                if (offset.offset() > loader.rows()) {
+                    commitsAheadOfMerge.add(offset.offset());
+                }
+                committedOffset = offset.offset();
+            }
+            super.commitSync(offsets);
+        }
+
+        synchronized long position() {
+            return assignment().contains(PARTITION) ? position(PARTITION) : 0;
+        }
+
+        long committedOffset() {
+            return committedOffset;
+        }
+    }
+}
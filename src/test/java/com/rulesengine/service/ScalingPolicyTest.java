@@ -0,0 +1,77 @@
+package com.rulesengine.service;
+
+import com.rulesengine.service.ScalingPolicy.Action;
+import com.rulesengine.service.ScalingPolicy.Decision;
+import com.rulesengine.service.ScalingPolicy.Sample;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ScalingPolicyTest {
+
+    private static final long TARGET = TimeUnit.SECONDS.toNanos(60);
+    private static final long COOLDOWN = TimeUnit.SECONDS.toNanos(60);
+    private static final long AFTER_COOLDOWN = COOLDOWN;
+    // 1 ms per record: 4 consumers drain 240,000 records in exactly the target
+    private static final double RECORD_NANOS = 1_000_000;
+
+    private final ScalingPolicy policy = new ScalingPolicy(TARGET, 0.75, 0.25, COOLDOWN, 2, 24, 2, 64);
+
+    @Test
+    void projectsDrainTimeFromLagRecordTimeAndConsumers() {
+        assertEquals(60e9, ScalingPolicy.drainNanos(240_000, RECORD_NANOS, 4));
+        assertEquals(0, ScalingPolicy.drainNanos(0, Double.NaN, 4));
+        assertEquals(Double.POSITIVE_INFINITY, ScalingPolicy.drainNanos(1, Double.NaN, 4));
+    }
+
+    @Test
+    void holdsWhileLagDrainsWithinTarget() {
+        assertEquals(Decision.NONE, policy.decide(sample(240_000, 200_000, 0.9, 4, 12, 8, true), AFTER_COOLDOWN));
+    }
+
+    @Test
+    void scalesUpOnlyWhenBehindAndGrowingOrBusy() {
+        // Would take too long, but the lag is shrinking and the consumers are not busy
+        assertEquals(Decision.NONE, policy.decide(sample(480_000, 500_000, 0.5, 4, 12, 8, false), AFTER_COOLDOWN));
+
+        assertEquals(Action.CONSUMERS_UP, policy.decide(sample(480_000, 400_000, 0.5, 4, 12, 8, false), AFTER_COOLDOWN).action());
+        assertEquals(Action.CONSUMERS_UP, policy.decide(sample(480_000, 500_000, 0.9, 4, 12, 8, false), AFTER_COOLDOWN).action());
+    }
+
+    @Test
+    void addsWorkersBeforeConsumersWhenEveryWorkerIsBusy() {
+        assertEquals(new Decision(Action.WORKERS_UP, 12), policy.decide(sample(480_000, 400_000, 0.9, 4, 12, 8, true), AFTER_COOLDOWN));
+        assertEquals(new Decision(Action.WORKERS_UP, 64), policy.decide(sample(480_000, 400_000, 0.9, 4, 12, 60, true), AFTER_COOLDOWN));
+
+        // At the worker limit the consumers grow instead
+        assertEquals(new Decision(Action.CONSUMERS_UP, 6), policy.decide(sample(480_000, 400_000, 0.9, 4, 12, 64, true), AFTER_COOLDOWN));
+    }
+
+    @Test
+    void capsConsumersAtPartitionCount() {
+        assertEquals(new Decision(Action.CONSUMERS_UP, 12), policy.decide(sample(960_000, 800_000, 0.9, 10, 12, 8, false), AFTER_COOLDOWN));
+        assertEquals(new Decision(Action.AT_LIMIT, 12), policy.decide(sample(960_000, 800_000, 0.9, 12, 12, 8, false), AFTER_COOLDOWN));
+    }
+
+    @Test
+    void scalesDownWorkersFirstWhenIdle() {
+        assertEquals(new Decision(Action.WORKERS_DOWN, 6), policy.decide(sample(1_000, 1_000, 0.1, 4, 12, 8, false), AFTER_COOLDOWN));
+        assertEquals(new Decision(Action.CONSUMERS_DOWN, 3), policy.decide(sample(1_000, 1_000, 0.1, 4, 12, 2, false), AFTER_COOLDOWN));
+        assertEquals(Decision.NONE, policy.decide(sample(1_000, 1_000, 0.1, 2, 12, 2, false), AFTER_COOLDOWN));
+    }
+
+    @Test
+    void waitsForCooldownAfterChange() {
+        Sample behind = sample(480_000, 400_000, 0.9, 4, 12, 8, false);
+
+        assertEquals(Decision.NONE, policy.decide(behind, COOLDOWN - 1));
+        assertEquals(Action.CONSUMERS_UP, policy.decide(behind, COOLDOWN).action());
+    }
+
+    private static Sample sample(long lag, long previousLag, double utilization, int consumers, int partitions,
+                                 int workers, boolean workersSaturated) {
+        return new Sample(lag, previousLag, utilization, RECORD_NANOS, consumers, partitions, workers, workersSaturated);
+    }
+}
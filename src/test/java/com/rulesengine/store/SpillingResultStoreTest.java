@@ -0,0 +1,124 @@
+package com.rulesengine.store;
+
+import com.rulesengine.model.ProductResults;
+import com.rulesengine.model.RuleResult;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SpillingResultStoreTest {
+
+    private static final String MESSAGE_ID = "table/1";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void spillsEveryAppendOverBudgetIntoBoundedSegments() throws IOException {
+        SpillingResultStore store = store(0, 512, 16);
+        List<RuleResult> expected = new ArrayList<>();
+        for (int batch = 0; batch < 5; batch++) {
+            List<RuleResult> results = results(batch * 10, 10);
+            store.append(MESSAGE_ID, results);
+            expected.addAll(results);
+        }
+
+        assertTrue(segmentFiles() > 1);
+        assertEquals(50, store.size(MESSAGE_ID));
+        assertEquals(expected, read(store));
+    }
+
+    @Test
+    void replaysSpilledAndBufferedResultsInOrder() throws IOException {
+        SpillingResultStore store = store(4096, 1 << 20, 16);
+        List<RuleResult> spilled = results(0, 200);
+        List<RuleResult> buffered = results(200, 1);
+
+        store.append(MESSAGE_ID, spilled);
+        store.append(MESSAGE_ID, buffered);
+
+        assertEquals(1, segmentFiles());
+        assertEquals(Stream.concat(spilled.stream(), buffered.stream()).toList(), read(store));
+    }
+
+    @Test
+    void replaysCompactProductResults() throws IOException {
+        SpillingResultStore store = store(0, 512, 16);
+        ProductResults packed = ProductResults.of(MESSAGE_ID, results(0, 40));
+
+        store.append(packed);
+
+        assertEquals(40, store.size(MESSAGE_ID));
+        assertEquals(packed.toRuleResults(), read(store));
+    }
+
+    @Test
+    void writesStringsInlineOnceDictionaryIsFull() throws IOException {
+        SpillingResultStore store = store(0, 512, 2);
+        List<RuleResult> results = results(0, 30);
+
+        store.append(MESSAGE_ID, results);
+
+        assertEquals(results, read(store));
+    }
+
+    @Test
+    void deletesSegmentsAndDropsResultsAppendedAfterRemoval() throws IOException {
+        SpillingResultStore store = store(0, 512, 16);
+        store.append(MESSAGE_ID, results(0, 50));
+        assertTrue(segmentFiles() > 0);
+
+        store.remove(MESSAGE_ID);
+        store.append(MESSAGE_ID, results(50, 1));
+        store.append(ProductResults.of(MESSAGE_ID, results(51, 1)));
+
+        assertEquals(0, segmentFiles());
+        assertEquals(0, store.messageCount());
+        assertEquals(0, store.size(MESSAGE_ID));
+        assertEquals(0, store.totalHeapBytes());
+        assertEquals(List.of(), read(store));
+    }
+
+    private SpillingResultStore store(long heapBudgetBytes, int segmentBytes, int maxDictionaryEntries) throws IOException {
+        return new SpillingResultStore(directory.toString(), heapBudgetBytes, segmentBytes, maxDictionaryEntries, 600_000);
+    }
+
+    private long segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.toString().endsWith(".seg")).count();
+        }
+    }
+
+    private static List<RuleResult> read(ResultStore store) throws IOException {
+        List<RuleResult> results = new ArrayList<>();
+        store.forEach(MESSAGE_ID, results::add);
+        return results;
+    }
+
+    // Three rules per product, with a distinct error message per failed result
+    private static List<RuleResult> results(int from, int count) {
+        return IntStream.range(from, from + count)
+                .mapToObj(i -> RuleResult.builder()
+                        .messageId(MESSAGE_ID)
+                        .reportDate("2024-01-01")
+                        .onlineStore("store-" + i / 3 % 2)
+                        .rpc("rpc-" + i / 3)
+                        .customerId("client-1")
+                        .ruleName("rule-" + i % 3)
+                        .rulePassed(i % 2 == 0)
+                        .ruleScore(i % 2 == 0 ? 1.0 : 0.25)
+                        .errorMessage(i % 2 == 0 ? null : "Failed check " + i)
+                        .build())
+                .toList();
+    }
+}
@@ -0,0 +1,121 @@
+package com.rulesengine.support;
+
+import com.amazonaws.services.s3.AbstractAmazonS3;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadResult;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadResult;
+import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.PutObjectResult;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.amazonaws.services.s3.model.UploadPartResult;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local S3 stand-in covering the single-request and multipart upload calls, and reading objects back.
+ */
+public class InMemoryS3 extends AbstractAmazonS3 {
+
+    private final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+    private final Map<String, Map<Integer, byte[]>> uploads = new ConcurrentHashMap<>();
+    private final AtomicInteger uploadedParts = new AtomicInteger();
+
+    public byte[] getBytes(String bucket, String key) {
+        return objects.get(bucket + "/" + key);
+    }
+
+    public Map<String, byte[]> getObjects() {
+        return objects;
+    }
+
+    public int getUploadedParts() {
+        return uploadedParts.get();
+    }
+
+    public int getOpenUploads() {
+        return uploads.size();
+    }
+
+    @Override
+    public PutObjectResult putObject(PutObjectRequest request) {
+        try {
+            byte[] bytes = request.getFile() != null
+                    ? Files.readAllBytes(request.getFile().toPath())
+                    : request.getInputStream().readAllBytes();
+            objects.put(request.getBucketName() + "/" + request.getKey(), bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new PutObjectResult();
+    }
+
+    @Override
+    public InitiateMultipartUploadResult initiateMultipartUpload(InitiateMultipartUploadRequest request) {
+        String uploadId = UUID.randomUUID().toString();
+        uploads.put(uploadId, new ConcurrentHashMap<>());
+        InitiateMultipartUploadResult result = new InitiateMultipartUploadResult();
+        result.setBucketName(request.getBucketName());
+        result.setKey(request.getKey());
+        result.setUploadId(uploadId);
+        return result;
+    }
+
+    @Override
+    public UploadPartResult uploadPart(UploadPartRequest request) {
+        try (InputStream in = request.getInputStream()) {
+            uploads.get(request.getUploadId()).put(request.getPartNumber(), in.readAllBytes());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        uploadedParts.incrementAndGet();
+        UploadPartResult result = new UploadPartResult();
+        result.setPartNumber(request.getPartNumber());
+        result.setETag("etag-" + request.getPartNumber());
+        return result;
+    }
+
+    @Override
+    public CompleteMultipartUploadResult completeMultipartUpload(CompleteMultipartUploadRequest request) {
+        Map<Integer, byte[]> parts = uploads.remove(request.getUploadId());
+        ByteArrayOutputStream object = new ByteArrayOutputStream();
+        for (PartETag etag : request.getPartETags()) {
+            object.writeBytes(parts.get(etag.getPartNumber()));
+        }
+        objects.put(request.getBucketName() + "/" + request.getKey(), object.toByteArray());
+        CompleteMultipartUploadResult result = new CompleteMultipartUploadResult();
+        result.setBucketName(request.getBucketName());
+        result.setKey(request.getKey());
+        return result;
+    }
+
+    @Override
+    public void abortMultipartUpload(AbortMultipartUploadRequest request) {
+        uploads.remove(request.getUploadId());
+    }
+
+    @Override
+    public S3Object getObject(String bucket, String key) {
+        byte[] bytes = getBytes(bucket, key);
+        if (bytes == null) {
+            throw new IllegalArgumentException("No such object: s3://" + bucket + "/" + key);
+        }
+        S3Object object = new S3Object();
+        object.setBucketName(bucket);
+        object.setKey(key);
+        object.setObjectContent(new ByteArrayInputStream(bytes));
+        return object;
+    }
+}
@@ -0,0 +1,104 @@
+package com.rulesengine.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NearCacheTest {
+
+    private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void servesLoadedValuesUntilTheyExpire() {
+        NearCache<String, String> cache = new NearCache<>(10, HOUR);
+
+        assertEquals("a-1", cache.get("a", this::load));
+        assertEquals("a-1", cache.get("a", this::load));
+        assertEquals("a-1", cache.getIfPresent("a"));
+        assertEquals(1, loads.get());
+        assertEquals(2, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void reloadsExpiredValues() {
+        NearCache<String, String> cache = new NearCache<>(10, 0);
+
+        assertEquals("a-1", cache.get("a", this::load));
+        assertEquals("a-2", cache.get("a", this::load));
+        assertNull(cache.getIfPresent("a"));
+    }
+
+    @Test
+    void invalidationBumpsTheGenerationAndDropsEntries() {
+        NearCache<String, String> cache = new NearCache<>(10, HOUR);
+        cache.get("a", this::load);
+        cache.get("b", this::load);
+        long generation = cache.getGeneration();
+
+        cache.invalidate("a");
+        assertEquals(generation + 1, cache.getGeneration());
+        assertNull(cache.getIfPresent("a"));
+        assertEquals("b-2", cache.getIfPresent("b"));
+
+        cache.invalidateAll();
+        assertEquals(generation + 2, cache.getGeneration());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void valueLoadedDuringAnInvalidationIsReturnedButNotStored() {
+        NearCache<String, String> cache = new NearCache<>(10, HOUR);
+
+        String value = cache.get("a", key -> {
+            cache.invalidate(key);
+            return load(key);
+        });
+
+        assertEquals("a-1", value);
+        assertNull(cache.getIfPresent("a"));
+        assertEquals("a-2", cache.get("a", this::load));
+    }
+
+    @Test
+    void bulkLoadIsDiscardedAfterAnInvalidation() {
+        NearCache<String, String> cache = new NearCache<>(10, HOUR);
+        long generation = cache.getGeneration();
+
+        cache.invalidate("c");
+        assertFalse(cache.putAll(Map.of("a", "a-0", "b", "b-0"), generation));
+        assertEquals(0, cache.size());
+
+        assertTrue(cache.putAll(Map.of("a", "a-0", "b", "b-0"), cache.getGeneration()));
+        assertEquals("a-0", cache.getIfPresent("a"));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedBeyondMaxSize() {
+        NearCache<String, String> cache = new NearCache<>(2, HOUR);
+        cache.put("a", "a-0");
+        cache.put("b", "b-0");
+        cache.getIfPresent("a");
+
+        cache.put("c", "c-0");
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictions());
+        assertNull(cache.getIfPresent("b"));
+        assertEquals("a-0", cache.getIfPresent("a"));
+    }
+
+    private String load(String key) {
+        return key + "-" + loads.incrementAndGet();
+    }
+}
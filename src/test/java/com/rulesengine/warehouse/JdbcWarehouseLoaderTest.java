@@ -0,0 +1,157 @@
+package com.rulesengine.warehouse;
+
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.rulesengine.model.RuleResult;
+import com.rulesengine.output.Compression;
+import com.rulesengine.output.ResultFormat;
+import com.rulesengine.output.RuleResultWriter;
+import com.rulesengine.output.RuleResultWriterFactory;
+import com.rulesengine.support.InMemoryS3;
+import com.rulesengine.util.BoundedExecutor;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JdbcWarehouseLoaderTest {
+
+    private static final String BUCKET = "bucket";
+    private static final String TABLE = "rule_results";
+
+    private final InMemoryS3 s3 = new InMemoryS3();
+    private final RuleResultWriterFactory writerFactory =
+            new RuleResultWriterFactory(ResultFormat.CSV, Compression.GZIP, CompressionCodecName.SNAPPY);
+    private final BoundedExecutor executor = new BoundedExecutor("publish", Executors.newFixedThreadPool(4), 4);
+    private JdbcTemplate jdbcTemplate;
+    private JdbcWarehouseLoader loader;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", ""));
+        jdbcTemplate.execute("CREATE TABLE " + TABLE + " (report_date VARCHAR(10), online_store VARCHAR(255), "
+                + "rpc VARCHAR(255), customer_id VARCHAR(255), rule_name VARCHAR(255), rule_pass BOOLEAN, "
+                + "rule_score DOUBLE PRECISION, error_message VARCHAR(1024))");
+        loader = new JdbcWarehouseLoader(jdbcTemplate, s3, executor, writerFactory, BUCKET, TABLE, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("SHUTDOWN");
+        executor.close();
+    }
+
+    @Test
+    void laterFileAndLaterRowWinPerKey() throws IOException {
+        StagedFile first = stage("first.csv.gz",
+                result("2024-01-01", "rpc-1", "rule-a", 1.0),
+                result("2024-01-01", "rpc-1", "rule-a", 2.0),
+                result("2024-01-01", "rpc-2", "rule-a", 1.0));
+        StagedFile second = stage("second.csv.gz",
+                result("2024-01-01", "rpc-2", "rule-a", 3.0),
+                result("2024-01-01", "rpc-2", "rule-a", 4.0));
+
+        loader.load(List.of(first, second));
+
+        assertEquals(Map.of("rpc-1", 2.0, "rpc-2", 4.0), scores("2024-01-01", "rule-a"));
+        assertEquals(0, stagingTables());
+    }
+
+    @Test
+    void updatesMatchingRowsAndInsertsNewOnes() throws IOException {
+        insert(result("2024-01-01", "rpc-1", "rule-a", 1.0));
+
+        loader.load(List.of(stage("update.csv.gz",
+                result("2024-01-01", "rpc-1", "rule-a", 5.0),
+                result("2024-01-01", "rpc-1", "rule-b", 6.0))));
+
+        assertEquals(2, count());
+        assertEquals(Map.of("rpc-1", 5.0), scores("2024-01-01", "rule-a"));
+        assertEquals(Map.of("rpc-1", 6.0), scores("2024-01-01", "rule-b"));
+    }
+
+    @Test
+    void leavesRowsOfOtherReportDatesAlone() throws IOException {
+        insert(result("2024-01-01", "rpc-1", "rule-a", 1.0));
+        insert(result("2024-01-02", "rpc-1", "rule-a", 1.0));
+
+        loader.load(List.of(stage("dated.csv.gz", result("2024-01-02", "rpc-1", "rule-a", 7.0))));
+
+        assertEquals(2, count());
+        assertEquals(Map.of("rpc-1", 1.0), scores("2024-01-01", "rule-a"));
+        assertEquals(Map.of("rpc-1", 7.0), scores("2024-01-02", "rule-a"));
+    }
+
+    @Test
+    void dropsStagingTableWhenLoadFails() throws IOException {
+        StagedFile staged = stage("present.csv.gz", result("2024-01-01", "rpc-1", "rule-a", 1.0));
+        StagedFile missing = new StagedFile("missing.csv.gz", Set.of("2024-01-01"));
+
+        assertThrows(IllegalArgumentException.class, () -> loader.load(List.of(staged, missing)));
+
+        assertEquals(0, stagingTables());
+        assertEquals(0, count());
+    }
+
+    private StagedFile stage(String key, RuleResult... results) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (RuleResultWriter writer = writerFactory.open(out, true)) {
+            for (RuleResult result : results) {
+                writer.write(result);
+            }
+        }
+        s3.putObject(new PutObjectRequest(BUCKET, key, new ByteArrayInputStream(out.toByteArray()), new ObjectMetadata()));
+        return new StagedFile(key, Set.of(results[0].getReportDate()));
+    }
+
+    private static RuleResult result(String reportDate, String rpc, String ruleName, double score) {
+        return RuleResult.builder()
+                .reportDate(reportDate)
+                .onlineStore("store")
+                .rpc(rpc)
+                .customerId("client-1")
+                .ruleName(ruleName)
+                .rulePassed(true)
+                .ruleScore(score)
+                .build();
+    }
+
+    private void insert(RuleResult result) {
+        jdbcTemplate.update("INSERT INTO " + TABLE + " VALUES (?, ?, ?, ?, ?, ?, ?, ?)",
+                result.getReportDate(), result.getOnlineStore(), result.getRpc(), result.getCustomerId(),
+                result.getRuleName(), result.isRulePassed(), result.getRuleScore(), result.getErrorMessage());
+    }
+
+    private Map<String, Double> scores(String reportDate, String ruleName) {
+        Map<String, Double> scores = new TreeMap<>();
+        jdbcTemplate.query("SELECT rpc, rule_score FROM " + TABLE + " WHERE report_date = ? AND rule_name = ?",
+                (RowCallbackHandler) row -> scores.put(row.getString(1), row.getDouble(2)), reportDate, ruleName);
+        return scores;
+    }
+
+    private int count() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + TABLE, Integer.class);
+    }
+
+    private int stagingTables() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES WHERE LOWER(TABLE_NAME) LIKE ?",
+                Integer.class, TABLE + "_stage_%");
+    }
+}
@@ -0,0 +1,99 @@
+package com.rulesengine.warehouse;
+
+import com.rulesengine.output.Compression;
+import com.rulesengine.output.ResultFormat;
+import com.rulesengine.output.RuleResultWriterFactory;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SnowflakeWarehouseLoaderTest {
+
+    private final RecordingJdbcTemplate jdbcTemplate = new RecordingJdbcTemplate();
+
+    @Test
+    void copiesCsvWithHeaderAndQuotedFields() {
+        loader(ResultFormat.CSV).load(List.of(new StagedFile("results/a.csv.gz", Set.of("2024-01-01"))));
+
+        String copy = jdbcTemplate.statements.get(1);
+        assertTrue(copy.startsWith("COPY INTO rule_results_stage_"), copy);
+        assertTrue(copy.contains("(report_date, online_store, rpc, customer_id, rule_name, rule_pass, rule_score, error_message, source_file, file_row)"), copy);
+        assertTrue(copy.contains("FROM (SELECT $1, $2, $3, $4, $5, $6, $7, $8, METADATA$FILENAME, METADATA$FILE_ROW_NUMBER FROM @bucket)"), copy);
+        assertTrue(copy.endsWith("FILES = ('results/a.csv.gz') FILE_FORMAT = (TYPE = CSV SKIP_HEADER = 1 FIELD_OPTIONALLY_ENCLOSED_BY = '\"')"), copy);
+    }
+
+    @Test
+    void copiesParquetColumnsByName() {
+        loader(ResultFormat.PARQUET).load(List.of(new StagedFile("results/a.parquet", Set.of("2024-01-01"))));
+
+        String copy = jdbcTemplate.statements.get(1);
+        assertTrue(copy.contains("SELECT $1:report_date, $1:online_store, $1:rpc"), copy);
+        assertTrue(copy.endsWith("FILE_FORMAT = (FORMAT_NAME = 'rule_results_parquet')"), copy);
+    }
+
+    @Test
+    void mergesLatestRowOfLatestFileForLoadedDates() {
+        loader(ResultFormat.CSV).load(List.of(
+                new StagedFile("results/a.csv.gz", Set.of("2024-01-02")),
+                new StagedFile("results/o'b.csv.gz", Set.of("2024-01-01", "2024-01-02"))));
+
+        String merge = jdbcTemplate.statements.get(2);
+        assertTrue(merge.startsWith("MERGE INTO rule_results t USING (SELECT report_date, online_store"), merge);
+        assertTrue(merge.contains("QUALIFY ROW_NUMBER() OVER (PARTITION BY report_date, rpc, rule_name ORDER BY "
+                + "CASE source_file WHEN 'results/a.csv.gz' THEN 0 WHEN 'results/o''b.csv.gz' THEN 1 END DESC, file_row DESC) = 1) s"), merge);
+        assertTrue(merge.contains("ON t.report_date = s.report_date AND t.rpc = s.rpc AND t.rule_name = s.rule_name "
+                + "AND t.report_date IN (?, ?) WHEN MATCHED THEN UPDATE SET t.online_store = s.online_store"), merge);
+        assertTrue(merge.endsWith("WHEN NOT MATCHED THEN INSERT (report_date, online_store, rpc, customer_id, rule_name, rule_pass, rule_score, error_message) "
+                + "VALUES (s.report_date, s.online_store, s.rpc, s.customer_id, s.rule_name, s.rule_pass, s.rule_score, s.error_message)"), merge);
+        assertEquals(List.of("2024-01-01", "2024-01-02"), jdbcTemplate.arguments);
+    }
+
+    @Test
+    void dropsStagingTableWhenCopyFails() {
+        jdbcTemplate.failOn = "COPY INTO";
+
+        assertThrows(IllegalStateException.class, () -> loader(ResultFormat.CSV)
+                .load(List.of(new StagedFile("results/a.csv.gz", Set.of("2024-01-01")))));
+
+        String create = jdbcTemplate.statements.get(0);
+        String staging = create.substring("CREATE TRANSIENT TABLE ".length(), create.indexOf(' ', "CREATE TRANSIENT TABLE ".length()));
+        assertEquals("DROP TABLE IF EXISTS " + staging, jdbcTemplate.statements.get(jdbcTemplate.statements.size() - 1));
+    }
+
+    private SnowflakeWarehouseLoader loader(ResultFormat format) {
+        return new SnowflakeWarehouseLoader(jdbcTemplate,
+                new RuleResultWriterFactory(format, Compression.GZIP, CompressionCodecName.SNAPPY),
+                "bucket", "rule_results", "rule_results_parquet");
+    }
+
+    private static final class RecordingJdbcTemplate extends JdbcTemplate {
+
+        private final List<String> statements = new ArrayList<>();
+        private List<Object> arguments;
+        private String failOn;
+
+        @Override
+        public void execute(String sql) {
+            statements.add(sql);
+            if (failOn != null && sql.startsWith(failOn)) {
+                throw new IllegalStateException("Failed: " + sql);
+            }
+        }
+
+        @Override
+        public int update(String sql, Object... args) {
+            statements.add(sql);
+            arguments = Arrays.asList(args);
+            return 0;
+        }
+    }
+}